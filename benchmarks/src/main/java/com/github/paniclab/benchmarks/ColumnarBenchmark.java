@@ -0,0 +1,75 @@
+package com.github.paniclab.benchmarks;
+
+import com.github.paniclab.specifications.Column;
+import com.github.paniclab.specifications.ColumnarSpecification;
+import com.github.paniclab.specifications.Property;
+import com.github.paniclab.specifications.Specification;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ColumnarBenchmark {
+    private static final int ROWS = 10_000_000;
+    private static final int RECORD_SIZE = Integer.BYTES + Double.BYTES;
+
+    private static final Property<Row, Integer> AGE = Specification.property(Row.class, row -> row.age);
+    private static final Property<Row, Double> SALARY = Specification.property(Row.class, row -> row.salary);
+
+    private ColumnarSpecification<Row> arrays;
+    private ColumnarSpecification<Row> buffer;
+
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        int[] ages = new int[ROWS];
+        double[] salaries = new double[ROWS];
+        ByteBuffer records = ByteBuffer.allocateDirect(ROWS * RECORD_SIZE);
+        for(int i = 0; i < ROWS; i++) {
+            ages[i] = 18 + random.nextInt(48);
+            salaries[i] = random.nextInt(10_000);
+            records.putInt(i * RECORD_SIZE, ages[i]);
+            records.putDouble(i * RECORD_SIZE + Integer.BYTES, salaries[i]);
+        }
+
+        Specification<Row> spec = AGE.between(30, 40).and(SALARY.greaterThan(5_000.0)).or(AGE.in(18, 65));
+        arrays = ColumnarSpecification.builder(spec)
+                                      .withColumn(AGE, Column.ints(ages))
+                                      .withColumn(SALARY, Column.doubles(salaries))
+                                      .build();
+        buffer = ColumnarSpecification.builder(spec)
+                                      .withColumn(AGE, Column.ints(records, 0, RECORD_SIZE, ROWS))
+                                      .withColumn(SALARY, Column.doubles(records, Integer.BYTES, RECORD_SIZE, ROWS))
+                                      .build();
+    }
+
+    @Benchmark
+    public long arrays() {
+        return arrays.count();
+    }
+
+    @Benchmark
+    public long recordBuffer() {
+        return buffer.count();
+    }
+
+
+    public static final class Row {
+        private final int age;
+        private final double salary;
+
+        Row(int age, double salary) {
+            this.age = age;
+            this.salary = salary;
+        }
+    }
+}
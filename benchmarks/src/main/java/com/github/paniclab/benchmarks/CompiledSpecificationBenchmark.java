@@ -0,0 +1,53 @@
+package com.github.paniclab.benchmarks;
+
+import com.github.paniclab.specifications.Specification;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CompiledSpecificationBenchmark {
+    private static final int INPUTS = 1024;
+
+    @Param({"1", "2", "4", "8", "16"})
+    private int depth;
+
+    private Specification<Integer> interpreted;
+    private Specification<Integer> compiled;
+    private Integer[] inputs;
+    private int index;
+
+
+    @Setup
+    public void setUp() {
+        interpreted = Specifications.alternating(depth);
+        compiled = interpreted.compile();
+
+        Random random = new Random(42);
+        inputs = new Integer[INPUTS];
+        for(int i = 0; i < INPUTS; i++) {
+            inputs[i] = random.nextInt();
+        }
+    }
+
+    @Benchmark
+    public boolean interpreted() {
+        return interpreted.isSatisfiedBy(next());
+    }
+
+    @Benchmark
+    public boolean compiled() {
+        return compiled.isSatisfiedBy(next());
+    }
+
+    private Integer next() {
+        return inputs[index++ & (INPUTS - 1)];
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.paniclab.benchmarks;
+
+import com.github.paniclab.specifications.ContinuousQuery;
+import com.github.paniclab.specifications.ContinuousQueryMetrics;
+import com.github.paniclab.specifications.SpecId;
+import com.github.paniclab.specifications.Specification;
+import com.github.paniclab.specifications.SpecificationProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * End to end throughput: one producer thread submits events, the workers match them against 16 registered
+ * specifications and deliver matches to one subscriber per id. Reported per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContinuousQueryBenchmark {
+    private static final int EVENTS = 100_000;
+
+    @Param({"1", "4"})
+    private int workers;
+
+    private final List<Specification<Event>> specs = new ArrayList<>();
+    private final LongAdder delivered = new LongAdder();
+    private ContinuousQuery<Event> query;
+    private Event[] events;
+
+
+    @Setup
+    public void setUp() {
+        for(Route route : Route.values()) {
+            int bucket = route.ordinal();
+            Specification<Event> spec = Specification.of(Event.class, e -> e.amount % 16 == bucket && e.priority > 2)
+                                                     .withId(route);
+            specs.add(spec);
+        }
+
+        query = ContinuousQuery.builder(Event.class)
+                               .withWorkers(workers)
+                               .withQueueCapacity(16_384)
+                               .withBatchSize(256)
+                               .build();
+        for(Route route : Route.values()) {
+            query.subscribe(route, e -> delivered.increment());
+        }
+
+        events = new Event[EVENTS];
+        for(int i = 0; i < EVENTS; i++) {
+            events[i] = new Event(i * 31, i % 5);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        query.close();
+        specs.forEach(SpecificationProvider::unregisterForTesting);
+    }
+
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public long submit() throws InterruptedException {
+        long target = query.metrics().processed() + EVENTS;
+        for(Event event : events) {
+            query.submit(event);
+        }
+
+        ContinuousQueryMetrics metrics;
+        while((metrics = query.metrics()).processed() < target) {
+            Thread.yield();
+        }
+        return metrics.deliveries();
+    }
+
+
+    public static final class Event {
+        private final int amount;
+        private final int priority;
+
+        private Event(int amount, int priority) {
+            this.amount = amount;
+            this.priority = priority;
+        }
+    }
+
+
+    public enum Route implements SpecId<Event> {
+        R0, R1, R2, R3, R4, R5, R6, R7, R8, R9, R10, R11, R12, R13, R14, R15;
+
+        @Override
+        public Class<Event> subject() {
+            return Event.class;
+        }
+    }
+}
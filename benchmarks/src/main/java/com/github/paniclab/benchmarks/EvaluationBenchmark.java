@@ -0,0 +1,74 @@
+package com.github.paniclab.benchmarks;
+
+import com.github.paniclab.specifications.Specification;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.paniclab.specifications.Specification.not;
+
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EvaluationBenchmark {
+    private static final int INPUTS = 1024;
+
+    @Param({"1", "4", "16"})
+    private int depth;
+
+    private Specification<Integer> leaf;
+    private Specification<Integer> alternating;
+    private Specification<Integer> negated;
+    private Specification<Integer> conjunction;
+    private Integer[] inputs;
+    private int index;
+
+
+    @Setup
+    public void setUp() {
+        leaf = Specifications.bit(0);
+        alternating = Specifications.alternating(depth);
+        negated = not(not(alternating));
+
+        Specification<Integer> all = Specification.always(Integer.class);
+        for(int i = 0; i < depth; i++) {
+            all = all.and(Specifications.bit(i % 31).or(Specifications.bit((i + 7) % 31)));
+        }
+        conjunction = all;
+
+        Random random = new Random(42);
+        inputs = new Integer[INPUTS];
+        for(int i = 0; i < INPUTS; i++) {
+            inputs[i] = random.nextInt();
+        }
+    }
+
+    @Benchmark
+    public boolean leaf() {
+        return leaf.isSatisfiedBy(next());
+    }
+
+    @Benchmark
+    public boolean alternating() {
+        return alternating.isSatisfiedBy(next());
+    }
+
+    @Benchmark
+    public boolean doubleNegation() {
+        return negated.isSatisfiedBy(next());
+    }
+
+    @Benchmark
+    public boolean conjunctionOfDisjunctions() {
+        return conjunction.isSatisfiedBy(next());
+    }
+
+    private Integer next() {
+        return inputs[index++ & (INPUTS - 1)];
+    }
+}
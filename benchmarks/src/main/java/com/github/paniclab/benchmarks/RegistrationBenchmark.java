@@ -0,0 +1,62 @@
+package com.github.paniclab.benchmarks;
+
+import com.github.paniclab.specifications.SpecId;
+import com.github.paniclab.specifications.Specification;
+import com.github.paniclab.specifications.SpecificationProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RegistrationBenchmark {
+    private Specification<Integer> spec;
+    private Specification<Integer> registered;
+
+
+    @Setup
+    public void setUp() {
+        spec = Specifications.bit(3);
+        registered = Specifications.bit(4).withId(Id.LOOKED_UP);
+    }
+
+    @TearDown
+    public void tearDown() {
+        SpecificationProvider.unregisterForTesting(registered);
+    }
+
+    /**
+     * Registration is measured together with the removal, ids are enum constants and cannot be registered twice.
+     */
+    @Benchmark
+    public boolean withId() {
+        return SpecificationProvider.unregisterForTesting(spec.withId(Id.REGISTERED));
+    }
+
+    @Benchmark
+    public boolean as() {
+        return SpecificationProvider.unregisterForTesting(Specification.as(spec, Id.REGISTERED));
+    }
+
+    @Benchmark
+    public Optional<Specification<Integer>> byId() {
+        return SpecificationProvider.byId(Id.LOOKED_UP);
+    }
+
+
+    public enum Id implements SpecId<Integer> {
+        REGISTERED,
+        LOOKED_UP;
+
+        @Override
+        public Class<Integer> subject() {
+            return Integer.class;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.paniclab.benchmarks;
+
+import com.github.paniclab.specifications.Specification;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SelectBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    private int size;
+
+    private List<Integer> source;
+    private Specification<Integer> spec;
+
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        source = new ArrayList<>(size);
+        for(int i = 0; i < size; i++) {
+            source.add(random.nextInt());
+        }
+        spec = Specifications.alternating(8);
+    }
+
+    @Benchmark
+    public Set<Integer> hashed() {
+        return spec.selectSatisfying(source);
+    }
+
+    @Benchmark
+    public Collection<Integer> ordered() {
+        return spec.selectSatisfying(source, Specification.Selection.ORDERED);
+    }
+
+    @Benchmark
+    public Collection<Integer> orderedForkJoin() {
+        return spec.selectSatisfying(source, Specification.Selection.ORDERED, ForkJoinPool.commonPool());
+    }
+}
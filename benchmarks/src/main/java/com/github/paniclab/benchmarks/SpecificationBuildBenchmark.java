@@ -0,0 +1,49 @@
+package com.github.paniclab.benchmarks;
+
+import com.github.paniclab.specifications.Specification;
+import com.github.paniclab.specifications.SpecificationBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SpecificationBuildBenchmark {
+    private Specification<Integer> left;
+    private Specification<Integer> right;
+
+
+    @Setup
+    public void setUp() {
+        left = Specifications.bit(1);
+        right = Specifications.bit(2);
+    }
+
+    @Benchmark
+    public Specification<Integer> and() {
+        return left.and(right);
+    }
+
+    @Benchmark
+    public Specification<Integer> not() {
+        return left.not();
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Specification<Integer> builder() {
+        Class<Specification<Integer>> specType = (Class<Specification<Integer>>) (Class<?>) Specification.class;
+        return new SpecificationBuilder<>(Integer.class, specType).withPredicate(value -> value > 0)
+                                                                  .build();
+    }
+
+    @Benchmark
+    public Specification<Integer> of() {
+        return Specification.of(Integer.class, value -> value > 0);
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.paniclab.benchmarks;
+
+import com.github.paniclab.specifications.Specification;
+
+
+final class Specifications {
+
+    private Specifications() {}
+
+
+    static Specification<Integer> bit(int position) {
+        int mask = 1 << position;
+        return Specification.of(Integer.class, value -> (value & mask) != 0);
+    }
+
+    /**
+     * Builds a specification whose tree is {@code depth} levels deep. AND and OR levels alternate, so the
+     * normalizer cannot flatten them away.
+     */
+    static Specification<Integer> alternating(int depth) {
+        Specification<Integer> spec = bit(0);
+        for(int level = 1; level < depth; level++) {
+            spec = level % 2 == 0
+                    ? spec.or(bit(level % 31).not())
+                    : spec.and(bit(level % 31));
+        }
+        return spec;
+    }
+}
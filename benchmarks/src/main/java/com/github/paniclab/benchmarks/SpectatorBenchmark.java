@@ -0,0 +1,80 @@
+package com.github.paniclab.benchmarks;
+
+import com.github.paniclab.specifications.Specification;
+import com.github.paniclab.spectator.Spectator;
+import com.github.paniclab.spectator.Spectators;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SpectatorBenchmark {
+    private Spectator order;
+    private Spectator customer;
+    private Specification<Order> largeOrder;
+    private List<Spectator> mixed;
+
+
+    @Setup
+    public void setUp() {
+        order = new Order(150);
+        customer = new Customer();
+        largeOrder = Specification.of(Order.class, o -> o.total > 100);
+
+        mixed = new ArrayList<>();
+        for(int i = 0; i < 1024; i++) {
+            mixed.add(i % 4 == 0 ? new Order(i) : new Customer());
+        }
+    }
+
+    @Benchmark
+    public boolean matchingType() {
+        return order.satisfy(largeOrder);
+    }
+
+    @Benchmark
+    public boolean nonMatchingType() {
+        return customer.satisfy(largeOrder);
+    }
+
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public int mixedOneByOne() {
+        int count = 0;
+        for(Spectator spectator : mixed) {
+            if(spectator.satisfy(largeOrder)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public BitSet mixedBulk() {
+        return Spectators.satisfying(mixed, largeOrder);
+    }
+
+
+    public static final class Order implements Spectator {
+        private final int total;
+
+        Order(int total) {
+            this.total = total;
+        }
+    }
+
+
+    public static final class Customer implements Spectator {
+    }
+}
@@ -0,0 +1,192 @@
+package com.github.paniclab.specifications.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+
+
+/**
+ * Generates {@code <Name>_Factory} and {@code <Name>_Builder} for classes annotated with {@code @SpecificationType}.
+ */
+@SupportedAnnotationTypes(SpecificationProcessor.ANNOTATION)
+public class SpecificationProcessor extends AbstractProcessor {
+    static final String PACKAGE = "com.github.paniclab.specifications";
+    static final String ANNOTATION = PACKAGE + ".SpecificationType";
+    private static final String SPECIFICATION = PACKAGE + ".Specification";
+    private static final String BUILDER = PACKAGE + ".SpecificationBuilder";
+    private static final String FACTORY = PACKAGE + ".SpecificationFactory";
+
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for(TypeElement annotation : annotations) {
+            for(Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if(element.getKind() != ElementKind.CLASS) {
+                    error(element, "@SpecificationType is applicable to classes only");
+                    continue;
+                }
+                process((TypeElement) element);
+            }
+        }
+        return true;
+    }
+
+
+    private void process(TypeElement type) {
+        if(type.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(type, "@SpecificationType class must not be abstract");
+            return;
+        }
+        if(!type.getTypeParameters().isEmpty()) {
+            error(type, "@SpecificationType class must not declare type parameters");
+            return;
+        }
+        if(type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+            error(type, "@SpecificationType nested class must be static");
+            return;
+        }
+
+        TypeMirror subject = findSubject(type.asType());
+        if(subject == null || subject.getKind() != TypeKind.DECLARED) {
+            error(type, "@SpecificationType class must extend " + SPECIFICATION + " with a concrete subject type");
+            return;
+        }
+        if(!hasBuilderConstructor(type)) {
+            error(type, "@SpecificationType class must declare a non-private constructor taking " + BUILDER);
+            return;
+        }
+
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String baseName = flatName(type);
+
+        try {
+            write(packageName, baseName + "_Factory", factorySource(packageName, baseName, type, subject), type);
+            write(packageName, baseName + "_Builder", builderSource(packageName, baseName, type, subject), type);
+        } catch (IOException e) {
+            error(type, "Unable to generate sources: " + e.getMessage());
+        }
+    }
+
+    private TypeMirror findSubject(TypeMirror type) {
+        Types types = processingEnv.getTypeUtils();
+
+        TypeMirror current = type;
+        while(current != null && current.getKind() == TypeKind.DECLARED) {
+            DeclaredType declared = (DeclaredType) current;
+            TypeElement element = (TypeElement) declared.asElement();
+            if(element.getQualifiedName().contentEquals(SPECIFICATION)) {
+                return declared.getTypeArguments().isEmpty() ? null : declared.getTypeArguments().get(0);
+            }
+
+            current = types.directSupertypes(current).stream()
+                           .filter(supertype -> ((DeclaredType) supertype).asElement().getKind() == ElementKind.CLASS)
+                           .findFirst()
+                           .orElse(null);
+        }
+
+        return null;
+    }
+
+    private boolean hasBuilderConstructor(TypeElement type) {
+        Types types = processingEnv.getTypeUtils();
+
+        for(ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if(constructor.getModifiers().contains(Modifier.PRIVATE) || constructor.getParameters().size() != 1) {
+                continue;
+            }
+
+            TypeMirror parameter = types.erasure(constructor.getParameters().get(0).asType());
+            if(parameter.getKind() == TypeKind.DECLARED &&
+                    ((TypeElement) ((DeclaredType) parameter).asElement()).getQualifiedName().contentEquals(BUILDER)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String factorySource(String packageName, String baseName, TypeElement type, TypeMirror subject) {
+        String spec = type.getQualifiedName().toString();
+        String subjectName = subject.toString();
+
+        return header(packageName) +
+                "public final class " + baseName + "_Factory implements " + FACTORY + "<" + subjectName + ", " + spec + "> {\n" +
+                "\n" +
+                "    @Override\n" +
+                "    public " + spec + " create(" + BUILDER + "<" + subjectName + ", ? extends " + SPECIFICATION + "<" + subjectName + ">> builder) {\n" +
+                "        return new " + spec + "(builder);\n" +
+                "    }\n" +
+                "}\n";
+    }
+
+    private String builderSource(String packageName, String baseName, TypeElement type, TypeMirror subject) {
+        Types types = processingEnv.getTypeUtils();
+        String spec = type.getQualifiedName().toString();
+        String subjectName = subject.toString();
+        String subjectClass = "(Class<" + subjectName + ">) (Class<?>) " + types.erasure(subject) + ".class";
+
+        return header(packageName) +
+                "public class " + baseName + "_Builder extends " + BUILDER + "<" + subjectName + ", " + spec + "> {\n" +
+                "\n" +
+                "    @SuppressWarnings(\"unchecked\")\n" +
+                "    public " + baseName + "_Builder() {\n" +
+                "        super(" + subjectClass + ", " + spec + ".class);\n" +
+                "    }\n" +
+                "\n" +
+                "    @Override\n" +
+                "    public " + spec + " build() {\n" +
+                "        return new " + spec + "(this);\n" +
+                "    }\n" +
+                "}\n";
+    }
+
+    private String header(String packageName) {
+        return (packageName.isEmpty() ? "" : "package " + packageName + ";\n\n") +
+                "// Generated by " + getClass().getName() + ", do not edit.\n";
+    }
+
+    private void write(String packageName, String simpleName, String source, TypeElement origin) throws IOException {
+        String name = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(name, origin);
+        try (Writer writer = file.openWriter()) {
+            writer.write(source);
+        }
+    }
+
+    private static String flatName(TypeElement type) {
+        String name = type.getSimpleName().toString();
+        Element enclosing = type.getEnclosingElement();
+        while(enclosing instanceof TypeElement) {
+            name = enclosing.getSimpleName() + "_" + name;
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return name;
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
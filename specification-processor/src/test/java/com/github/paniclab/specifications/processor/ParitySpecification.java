@@ -0,0 +1,20 @@
+package com.github.paniclab.specifications.processor;
+
+import com.github.paniclab.specifications.Specification;
+import com.github.paniclab.specifications.SpecificationBuilder;
+import com.github.paniclab.specifications.SpecificationType;
+
+import java.util.function.Function;
+
+
+@SpecificationType
+public class ParitySpecification extends Specification<Integer> {
+
+    public ParitySpecification(Function<Integer, Boolean> predicate) {
+        super(Integer.class, predicate);
+    }
+
+    protected ParitySpecification(SpecificationBuilder<Integer, ? extends Specification<Integer>> builder) {
+        super(builder);
+    }
+}
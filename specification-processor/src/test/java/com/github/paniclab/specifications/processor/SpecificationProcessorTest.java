@@ -0,0 +1,34 @@
+package com.github.paniclab.specifications.processor;
+
+import com.github.paniclab.specifications.Specification;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class SpecificationProcessorTest {
+
+    @Test
+    public void generatedBuilder_createsAnnotatedType() {
+        ParitySpecification spec = new ParitySpecification_Builder().withPredicate(value -> value % 2 == 0)
+                                                                     .build();
+
+        assertEquals(Integer.class, spec.subject());
+        assertTrue(spec.isSatisfiedBy(2));
+        assertFalse(spec.isSatisfiedBy(3));
+    }
+
+    @Test
+    public void composition_usesGeneratedFactory() {
+        ParitySpecification even = new ParitySpecification(value -> value % 2 == 0);
+        Specification<Integer> positive = Specification.of(Integer.class, value -> value > 0);
+
+        //ParitySpecification has no no-args constructor, reflective instantiation would fail here
+        ParitySpecification positiveEven = even.and(positive);
+
+        assertEquals(ParitySpecification.class, positiveEven.getClass());
+        assertTrue(positiveEven.isSatisfiedBy(4));
+        assertFalse(positiveEven.isSatisfiedBy(-4));
+        assertFalse(positiveEven.isSatisfiedBy(3));
+    }
+}
@@ -1,9 +1,12 @@
 package com.github.paniclab.invariants;
 
+import java.util.function.Supplier;
 
 public class InvariantCheckException extends RuntimeException {
     private Invariant<?> invariant;
     private Object instance;
+    private transient Supplier<String> messageSupplier;
+    private String message;
 
 
     public InvariantCheckException() {
@@ -21,12 +24,48 @@ public class InvariantCheckException extends RuntimeException {
         super(cause);
     }
 
+    /**
+     * The message is built on first access, neither the instance nor the invariant is formatted before.
+     */
     public InvariantCheckException(Object instance, Invariant<?> invariant) {
-        super("Invariant checking failed. Instance: " + instance + ", invariant: " + invariant);
+        this(instance, invariant, true);
+    }
+
+    protected InvariantCheckException(Object instance, Invariant<?> invariant, boolean writableStackTrace) {
+        super(null, null, writableStackTrace, writableStackTrace);
         this.invariant = invariant;
         this.instance = instance;
     }
 
+    /**
+     * Exception without a stack trace, cheap enough for expected check failures.
+     */
+    public static InvariantCheckException stackless(Object instance, Invariant<?> invariant) {
+        return new InvariantCheckException(instance, invariant, false);
+    }
+
+    static InvariantCheckException stackless(Object instance, Supplier<String> messageSupplier) {
+        InvariantCheckException exception = new InvariantCheckException(instance, null, false);
+        exception.messageSupplier = messageSupplier;
+        return exception;
+    }
+
+
+    @Override
+    public String getMessage() {
+        String superMessage = super.getMessage();
+        if(superMessage != null || invariant == null && messageSupplier == null) {
+            return superMessage;
+        }
+
+        if(message == null) {
+            message = messageSupplier != null
+                    ? messageSupplier.get()
+                    : "Invariant checking failed. Instance: " + instance + ", invariant: " + invariant;
+        }
+        return message;
+    }
+
     public Invariant<?> getInvariant() {
         return invariant;
     }
@@ -34,4 +73,4 @@ public class InvariantCheckException extends RuntimeException {
     public Object getInstance() {
         return instance;
     }
-}
\ No newline at end of file
+}
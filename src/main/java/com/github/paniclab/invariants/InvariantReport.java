@@ -0,0 +1,65 @@
+package com.github.paniclab.invariants;
+
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Outcome of {@link InvariantSet#checkAll(Object)}: the names of the violated invariants and of those not finished
+ * before the deadline.
+ */
+public final class InvariantReport {
+    private final Object instance;
+    private final List<String> violations;
+    private final List<String> timedOut;
+
+
+    InvariantReport(Object instance, List<String> violations, List<String> timedOut) {
+        this.instance = instance;
+        this.violations = violations == null ? Collections.emptyList() : Collections.unmodifiableList(violations);
+        this.timedOut = timedOut == null ? Collections.emptyList() : Collections.unmodifiableList(timedOut);
+    }
+
+
+    /**
+     * Returns {@code true} if every invariant was checked and holds.
+     */
+    public boolean isValid() {
+        return violations.isEmpty() && timedOut.isEmpty();
+    }
+
+    public boolean isComplete() {
+        return timedOut.isEmpty();
+    }
+
+    public List<String> violations() {
+        return violations;
+    }
+
+    public List<String> timedOut() {
+        return timedOut;
+    }
+
+    public Object instance() {
+        return instance;
+    }
+
+    /**
+     * Throws a stackless {@link InvariantCheckException}, its message is this report, formatted only when read.
+     */
+    public void throwIfInvalid() throws InvariantCheckException {
+        if(!isValid()) {
+            throw InvariantCheckException.stackless(instance, this::toString);
+        }
+    }
+
+
+    @Override
+    public String toString() {
+        return "InvariantReport{" +
+                "instance=" + instance +
+                ", violations=" + violations +
+                ", timedOut=" + timedOut +
+                '}';
+    }
+}
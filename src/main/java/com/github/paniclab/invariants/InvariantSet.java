@@ -0,0 +1,457 @@
+package com.github.paniclab.invariants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Named invariants of one domain class, checked together. Immutable once built, fail-fast checks run the
+ * invariants in their measured cost order, so they must be free of side effects.
+ */
+public final class InvariantSet<T> implements Invariant<T> {
+    static final int SAMPLE_INTERVAL = 16;
+    static final int REORDER_INTERVAL = 256;
+
+    /**
+     * Checks left until the next sample, per thread and shared by all sets. Intervals are random, so sets checked
+     * in a fixed rhythm are all sampled.
+     */
+    private static final ThreadLocal<int[]> COUNTDOWN = ThreadLocal.withInitial(() -> new int[] {nextInterval()});
+
+    private final Class<T> subject;
+    private final Entry<T>[] entries;
+    private final boolean hasExpensive;
+    private final Map<String, long[]> readers;
+    private final long[] readsAll;
+    private final AtomicReference<Entry<T>[]> order;
+    private final LongAdder samples = new LongAdder();
+    private final AtomicBoolean reordering = new AtomicBoolean();
+
+
+    private InvariantSet(Builder<T> builder) {
+        this.subject = builder.subject;
+        this.entries = builder.entries.toArray(newEntries(builder.entries.size()));
+        this.order = new AtomicReference<>(entries.clone());
+
+        boolean expensive = false;
+        for(Entry<T> entry : entries) {
+            expensive |= entry.expensive;
+        }
+        this.hasExpensive = expensive;
+
+        int words = (entries.length + Long.SIZE - 1) / Long.SIZE;
+        this.readsAll = new long[words];
+        this.readers = new HashMap<>();
+        for(int i = 0; i < entries.length; i++) {
+            if(entries[i].reads == null) {
+                readsAll[i >>> 6] |= 1L << i;
+                continue;
+            }
+            for(String property : entries[i].reads) {
+                readers.computeIfAbsent(property, key -> new long[words])[i >>> 6] |= 1L << i;
+            }
+        }
+    }
+
+    public static <U> Builder<U> builder(Class<U> subject) {
+        return new Builder<>(subject);
+    }
+
+
+    public Class<T> subject() {
+        return subject;
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * Names of the invariants in registration order.
+     */
+    public List<String> names() {
+        List<String> names = new ArrayList<>(entries.length);
+        for(Entry<T> entry : entries) {
+            names.add(entry.name);
+        }
+        return names;
+    }
+
+    /**
+     * Names of the invariants in the order the fail-fast checks currently run them.
+     */
+    public List<String> order() {
+        Entry<T>[] current = order.get();
+        List<String> names = new ArrayList<>(current.length);
+        for(Entry<T> entry : current) {
+            names.add(entry.name);
+        }
+        return names;
+    }
+
+
+    /**
+     * Returns {@code false} on the first violated invariant.
+     */
+    @Override
+    public boolean check(T instance) {
+        return firstViolated(instance) == null;
+    }
+
+    /**
+     * Throws a stackless {@link InvariantCheckException} naming the first violated invariant.
+     */
+    public void verify(T instance) throws InvariantCheckException {
+        Entry<T> violated = firstViolated(instance);
+        if(violated != null) {
+            throw InvariantCheckException.stackless(instance, violated);
+        }
+    }
+
+    public InvariantReport checkAll(T instance) {
+        boolean sampled = sampled();
+        List<String> violations = null;
+        for(Entry<T> entry : entries) {
+            if(!run(entry, instance, sampled)) {
+                violations = add(violations, entry.name);
+            }
+        }
+        if(sampled) {
+            sampleTaken();
+        }
+        return new InvariantReport(instance, violations, null);
+    }
+
+    /**
+     * Same as {@link #checkAll(Object)}, but the expensive invariants run in parallel on the executor. Those not
+     * finished by the deadline are reported as timed out and cancelled; a cancelled invariant is not interrupted.
+     * When an invariant throws or the caller is interrupted, the pending ones are cancelled before returning.
+     */
+    public InvariantReport checkAll(T instance, Executor executor, long timeout, TimeUnit unit) {
+        if(!hasExpensive) {
+            return checkAll(instance);
+        }
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for(Entry<T> entry : entries) {
+            if(entry.expensive) {
+                futures.add(CompletableFuture.supplyAsync(() -> run(entry, instance, true), executor));
+            }
+        }
+
+        try {
+            List<String> violations = null;
+            for(Entry<T> entry : entries) {
+                if(!entry.expensive && !run(entry, instance, false)) {
+                    violations = add(violations, entry.name);
+                }
+            }
+
+            List<String> timedOut = null;
+            int next = 0;
+            for(Entry<T> entry : entries) {
+                if(!entry.expensive) {
+                    continue;
+                }
+                CompletableFuture<Boolean> future = futures.get(next++);
+                try {
+                    if(!future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                        violations = add(violations, entry.name);
+                    }
+                } catch (TimeoutException | CancellationException e) {
+                    future.cancel(false);
+                    timedOut = add(timedOut, entry.name);
+                } catch (ExecutionException e) {
+                    throw propagate(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InvariantCheckException("Interrupted while checking invariants of " + instance, e);
+                }
+            }
+            return new InvariantReport(instance, violations, timedOut);
+        } finally {
+            futures.forEach(pending -> pending.cancel(false));
+        }
+    }
+
+
+    /**
+     * Checks every invariant once and keeps the results for incremental re-checks of the instance.
+     */
+    public InvariantState<T> stateOf(T instance) {
+        return new InvariantState<>(this, instance);
+    }
+
+
+    String nameAt(int index) {
+        return entries[index].name;
+    }
+
+    boolean check(int index, T instance) {
+        return run(entries[index], instance, false);
+    }
+
+    /**
+     * Adds the invariants reading the property to the mask, invariants without declared reads are always added.
+     */
+    void readersOf(Iterable<String> properties, long[] mask) {
+        for(int word = 0; word < mask.length; word++) {
+            mask[word] |= readsAll[word];
+        }
+        for(String property : properties) {
+            long[] readersMask = readers.get(property);
+            if(readersMask != null) {
+                for(int word = 0; word < mask.length; word++) {
+                    mask[word] |= readersMask[word];
+                }
+            }
+        }
+    }
+
+
+    private Entry<T> firstViolated(T instance) {
+        Entry<T>[] current = order.get();
+        if(!sampled()) {
+            for(Entry<T> entry : current) {
+                if(!run(entry, instance, false)) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        try {
+            for(Entry<T> entry : current) {
+                if(!run(entry, instance, true)) {
+                    return entry;
+                }
+            }
+            return null;
+        } finally {
+            sampleTaken();
+        }
+    }
+
+    private boolean run(Entry<T> entry, T instance, boolean sampled) {
+        long start = sampled ? System.nanoTime() : 0L;
+        boolean result;
+        try {
+            result = entry.invariant.check(instance);
+        } catch (InvariantCheckException e) {
+            result = false;
+        }
+        if(sampled) {
+            entry.record(System.nanoTime() - start, !result);
+        }
+        return result;
+    }
+
+    private static boolean sampled() {
+        int[] countdown = COUNTDOWN.get();
+        if(--countdown[0] > 0) {
+            return false;
+        }
+        countdown[0] = nextInterval();
+        return true;
+    }
+
+    private static int nextInterval() {
+        return 1 + ThreadLocalRandom.current().nextInt(2 * SAMPLE_INTERVAL - 1);
+    }
+
+    private void sampleTaken() {
+        samples.increment();
+        if(samples.sum() >= REORDER_INTERVAL) {
+            reorder();
+        }
+    }
+
+    private void reorder() {
+        if(!reordering.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if(samples.sum() < REORDER_INTERVAL) {
+                return;
+            }
+            samples.reset();
+            Entry<T>[] current = order.get().clone();
+            for(Entry<T> entry : current) {
+                entry.updateRank();
+            }
+            Arrays.sort(current, Comparator.comparingDouble(entry -> entry.rank));
+            order.set(current);
+        } finally {
+            reordering.set(false);
+        }
+    }
+
+    private static List<String> add(List<String> names, String name) {
+        if(names == null) {
+            names = new ArrayList<>(4);
+        }
+        names.add(name);
+        return names;
+    }
+
+    private static RuntimeException propagate(Throwable cause) {
+        if(cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if(cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if(cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new InvariantCheckException(cause);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <U> Entry<U>[] newEntries(int length) {
+        return new Entry[length];
+    }
+
+
+    @Override
+    public String toString() {
+        return "InvariantSet{" +
+                "subject=" + (subject == null ? null : subject.getSimpleName()) +
+                ", invariants=" + names() +
+                '}';
+    }
+
+
+    public static final class Builder<T> {
+        private final Class<T> subject;
+        private final List<Entry<T>> entries = new ArrayList<>();
+
+        private Builder(Class<T> subject) {
+            this.subject = subject;
+        }
+
+        /**
+         * Adds an invariant which may read any property of the instance.
+         */
+        public Builder<T> add(String name, Invariant<? super T> invariant) {
+            return add(name, invariant, null, false);
+        }
+
+        /**
+         * Adds an invariant reading only the given properties, see {@link InvariantState#update(Collection)}.
+         */
+        public Builder<T> add(String name, Invariant<? super T> invariant, Collection<String> reads) {
+            return add(name, invariant, Objects.requireNonNull(reads), false);
+        }
+
+        /**
+         * Adds an invariant worth running in parallel, see {@link #checkAll(Object, Executor, long, TimeUnit)}.
+         */
+        public Builder<T> addExpensive(String name, Invariant<? super T> invariant) {
+            return add(name, invariant, null, true);
+        }
+
+        public Builder<T> addExpensive(String name, Invariant<? super T> invariant, Collection<String> reads) {
+            return add(name, invariant, Objects.requireNonNull(reads), true);
+        }
+
+        @SuppressWarnings("unchecked")
+        private Builder<T> add(String name, Invariant<? super T> invariant, Collection<String> reads,
+                               boolean expensive) {
+            if(name == null || invariant == null) {
+                throw new IllegalArgumentException("Name and invariant are required");
+            }
+            for(Entry<T> entry : entries) {
+                if(entry.name.equals(name)) {
+                    throw new IllegalArgumentException("Duplicate invariant name: " + name);
+                }
+            }
+            Set<String> properties = reads == null ? null : new HashSet<>(reads);
+            entries.add(new Entry<>(name, (Invariant<T>) invariant, properties, expensive));
+            return this;
+        }
+
+        public InvariantSet<T> build() {
+            return new InvariantSet<>(this);
+        }
+    }
+
+
+    /**
+     * Invariant with its sampled counters. The rank is an exponentially smoothed cost per violation, invariants
+     * that were never sampled keep an infinite rank and with it their place behind the measured ones.
+     */
+    private static final class Entry<T> implements Invariant<T> {
+        private final String name;
+        private final Invariant<T> invariant;
+        private final Set<String> reads;
+        private final boolean expensive;
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder violations = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        private double cost = Double.NaN;
+        private double selectivity = Double.NaN;
+        private volatile double rank = Double.POSITIVE_INFINITY;
+
+        private Entry(String name, Invariant<T> invariant, Set<String> reads, boolean expensive) {
+            this.name = name;
+            this.invariant = invariant;
+            this.reads = reads;
+            this.expensive = expensive;
+        }
+
+        @Override
+        public boolean check(T instance) {
+            return invariant.check(instance);
+        }
+
+        private void record(long elapsed, boolean violated) {
+            evaluations.increment();
+            nanos.add(elapsed);
+            if(violated) {
+                violations.increment();
+            }
+        }
+
+        private void updateRank() {
+            long count = evaluations.sumThenReset();
+            long violated = violations.sumThenReset();
+            long elapsed = nanos.sumThenReset();
+            if(count == 0) {
+                return;
+            }
+
+            double windowCost = Math.max(1.0, (double) elapsed / count);
+            double windowSelectivity = (violated + 0.5) / (count + 1.0);
+            cost = Double.isNaN(cost) ? windowCost : (cost + windowCost) / 2;
+            selectivity = Double.isNaN(selectivity) ? windowSelectivity : (selectivity + windowSelectivity) / 2;
+            rank = cost / selectivity;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
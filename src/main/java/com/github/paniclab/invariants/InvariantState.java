@@ -0,0 +1,123 @@
+package com.github.paniclab.invariants;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+
+/**
+ * Results of an {@link InvariantSet} for one instance, an update re-checks only the invariants reading a changed
+ * property. Not thread safe.
+ */
+public final class InvariantState<T> {
+    private final InvariantSet<T> invariants;
+    private final T instance;
+    private final long[] violated;
+    private final long[] stale;
+    private int violations;
+    private int lastChecked;
+
+
+    InvariantState(InvariantSet<T> invariants, T instance) {
+        this.invariants = invariants;
+        this.instance = instance;
+        this.violated = new long[(invariants.size() + Long.SIZE - 1) / Long.SIZE];
+        this.stale = new long[violated.length];
+        updateAll();
+    }
+
+
+    /**
+     * Re-checks the invariants reading any of the changed properties, returns {@code true} if every invariant holds.
+     */
+    public boolean update(Collection<String> changedProperties) {
+        if(changedProperties.isEmpty()) {
+            lastChecked = 0;
+            return isValid();
+        }
+
+        for(int word = 0; word < stale.length; word++) {
+            stale[word] = 0L;
+        }
+        invariants.readersOf(changedProperties, stale);
+        recheck();
+        return isValid();
+    }
+
+    /**
+     * Re-checks every invariant, e.g. after a change whose properties are not known.
+     */
+    public boolean updateAll() {
+        int size = invariants.size();
+        for(int word = 0; word < stale.length; word++) {
+            int bits = Math.min(Long.SIZE, size - word * Long.SIZE);
+            stale[word] = bits == Long.SIZE ? -1L : (1L << bits) - 1;
+        }
+        recheck();
+        return isValid();
+    }
+
+    public boolean isValid() {
+        return violations == 0;
+    }
+
+    /**
+     * Names of the violated invariants in registration order.
+     */
+    public List<String> violations() {
+        List<String> names = new ArrayList<>(violations);
+        for(int word = 0; word < violated.length; word++) {
+            long bits = violated[word];
+            while(bits != 0) {
+                names.add(invariants.nameAt(word * Long.SIZE + Long.numberOfTrailingZeros(bits)));
+                bits &= bits - 1;
+            }
+        }
+        return names;
+    }
+
+    public InvariantReport report() {
+        return new InvariantReport(instance, violations(), null);
+    }
+
+    /**
+     * Number of invariants evaluated by the last update.
+     */
+    public int lastChecked() {
+        return lastChecked;
+    }
+
+    public T instance() {
+        return instance;
+    }
+
+
+    private void recheck() {
+        int checked = 0;
+        for(int word = 0; word < stale.length; word++) {
+            long bits = stale[word];
+            while(bits != 0) {
+                int index = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                long bit = bits & -bits;
+                boolean wasViolated = (violated[word] & bit) != 0;
+                boolean isViolated = !invariants.check(index, instance);
+                if(isViolated != wasViolated) {
+                    violated[word] ^= bit;
+                    violations += isViolated ? 1 : -1;
+                }
+                checked++;
+                bits &= bits - 1;
+            }
+        }
+        lastChecked = checked;
+    }
+
+
+    @Override
+    public String toString() {
+        return "InvariantState{" +
+                "instance=" + instance +
+                ", violations=" + violations() +
+                '}';
+    }
+}
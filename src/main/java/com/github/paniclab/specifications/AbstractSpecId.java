@@ -29,7 +29,7 @@ public class AbstractSpecId<S, E extends Enum<E>> implements SpecId<S> {
 
     @Override
     public int hashCode() {
-        return Objects.hash(value());
+        return Objects.hash(subject(), value());
     }
 
     @Override
@@ -40,7 +40,7 @@ public class AbstractSpecId<S, E extends Enum<E>> implements SpecId<S> {
         if(!(obj instanceof SpecId)) return false;
         SpecId other = SpecId.class.cast(obj);
 
-        return this.value().equals(other.value());
+        return this.subject().equals(other.subject()) && this.value().equals(other.value());
     }
 
     @Override
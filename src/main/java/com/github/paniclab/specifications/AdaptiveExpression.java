@@ -0,0 +1,220 @@
+package com.github.paniclab.specifications;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Junction reordering its operands by sampled cost per decision, operands must be free of side effects.
+ */
+final class AdaptiveExpression<T> extends Expression<T> {
+    static final int SAMPLE_INTERVAL = 16;
+    static final int REORDER_INTERVAL = 256;
+
+    /**
+     * Evaluations left until the next sample, per thread and shared by all adaptive expressions. Intervals are
+     * random, so nested expressions evaluated in a fixed rhythm are all sampled.
+     */
+    private static final ThreadLocal<int[]> COUNTDOWN = ThreadLocal.withInitial(() -> new int[] {nextInterval()});
+
+    private final Junction<T> junction;
+    private final boolean decisive;
+    private final AtomicReference<Plan<T>> plan;
+    private final LongAdder samples = new LongAdder();
+    private final AtomicBoolean reordering = new AtomicBoolean();
+
+
+    private AdaptiveExpression(Junction<T> junction) {
+        this.junction = junction;
+        this.decisive = junction.kind() == Kind.OR;
+
+        Expression<T>[] operands = junction.operands();
+        @SuppressWarnings("unchecked")
+        OperandStats<T>[] stats = (OperandStats<T>[]) new OperandStats<?>[operands.length];
+        for(int i = 0; i < operands.length; i++) {
+            stats[i] = new OperandStats<>(operands[i]);
+        }
+        this.plan = new AtomicReference<>(new Plan<>(stats));
+    }
+
+
+    /**
+     * Replaces every AND/OR node of the tree with an adaptive one.
+     */
+    static <T> Expression<T> of(Expression<T> expression) {
+        switch (expression.kind()) {
+            case AND:
+            case OR:
+                Junction<T> junction = (Junction<T>) expression;
+                Expression<T>[] operands = junction.operands().clone();
+                for(int i = 0; i < operands.length; i++) {
+                    operands[i] = of(operands[i]);
+                }
+                return new AdaptiveExpression<>(junction.with(operands));
+            case NOT:
+                return new Not<>(of(((Not<T>) expression).operand()));
+            case NAMED:
+                Named<T> named = (Named<T>) expression;
+                return new Named<>(named.id(), of(named.body()));
+            case COMPILED:
+                return of(expression.plain());
+            default:
+                return expression;
+        }
+    }
+
+
+    Junction<T> junction() {
+        return junction;
+    }
+
+    Expression<T>[] order() {
+        return plan.get().operands;
+    }
+
+    @Override
+    public boolean check(T instance) {
+        Plan<T> current = plan.get();
+        if(!sample()) {
+            for(Expression<T> operand : current.operands) {
+                if(operand.check(instance) == decisive) {
+                    return decisive;
+                }
+            }
+            return !decisive;
+        }
+
+        try {
+            for(OperandStats<T> stats : current.stats) {
+                long start = System.nanoTime();
+                boolean result = stats.operand.check(instance);
+                stats.record(System.nanoTime() - start, result == decisive);
+                if(result == decisive) {
+                    return decisive;
+                }
+            }
+            return !decisive;
+        } finally {
+            samples.increment();
+            if(samples.sum() >= REORDER_INTERVAL) {
+                reorder();
+            }
+        }
+    }
+
+    private static boolean sample() {
+        int[] countdown = COUNTDOWN.get();
+        if(--countdown[0] > 0) {
+            return false;
+        }
+        countdown[0] = nextInterval();
+        return true;
+    }
+
+    private static int nextInterval() {
+        return 1 + ThreadLocalRandom.current().nextInt(2 * SAMPLE_INTERVAL - 1);
+    }
+
+    private void reorder() {
+        if(!reordering.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if(samples.sum() < REORDER_INTERVAL) {
+                return;
+            }
+            samples.reset();
+            Plan<T> current = plan.get();
+            OperandStats<T>[] stats = current.stats.clone();
+            for(OperandStats<T> operand : stats) {
+                operand.updateRank();
+            }
+            Arrays.sort(stats, Comparator.comparingDouble(operand -> operand.rank));
+            plan.set(new Plan<>(stats));
+        } finally {
+            reordering.set(false);
+        }
+    }
+
+    @Override
+    Kind kind() {
+        return Kind.ADAPTIVE;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * junction.hashCode() + System.identityHashCode(this);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj;
+    }
+
+    @Override
+    public String toString() {
+        return "adaptive(" + junction + ")";
+    }
+
+
+    private static final class Plan<T> {
+        private final OperandStats<T>[] stats;
+        private final Expression<T>[] operands;
+
+        @SuppressWarnings("unchecked")
+        private Plan(OperandStats<T>[] stats) {
+            this.stats = stats;
+            this.operands = (Expression<T>[]) new Expression<?>[stats.length];
+            for(int i = 0; i < stats.length; i++) {
+                operands[i] = stats[i].operand;
+            }
+        }
+    }
+
+
+    /**
+     * Sampled counters of one operand. The rank is an exponentially smoothed cost per decision, operands that were
+     * never evaluated keep an infinite rank and with it their place behind the measured ones.
+     */
+    private static final class OperandStats<T> {
+        private final Expression<T> operand;
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder decisions = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        private double cost = Double.NaN;
+        private double selectivity = Double.NaN;
+        private double rank = Double.POSITIVE_INFINITY;
+
+        private OperandStats(Expression<T> operand) {
+            this.operand = operand;
+        }
+
+        private void record(long elapsed, boolean decided) {
+            evaluations.increment();
+            nanos.add(elapsed);
+            if(decided) {
+                decisions.increment();
+            }
+        }
+
+        private void updateRank() {
+            long count = evaluations.sumThenReset();
+            long decided = decisions.sumThenReset();
+            long elapsed = nanos.sumThenReset();
+            if(count == 0) {
+                return;
+            }
+
+            double windowCost = Math.max(1.0, (double) elapsed / count);
+            double windowSelectivity = (decided + 0.5) / (count + 1.0);
+            cost = Double.isNaN(cost) ? windowCost : (cost + windowCost) / 2;
+            selectivity = Double.isNaN(selectivity) ? windowSelectivity : (selectivity + windowSelectivity) / 2;
+            rank = cost / selectivity;
+        }
+    }
+}
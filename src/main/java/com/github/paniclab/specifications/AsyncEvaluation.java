@@ -0,0 +1,112 @@
+package com.github.paniclab.specifications;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+
+/**
+ * Evaluates an expression without blocking on batched leaves, operands after the deciding one are never evaluated.
+ */
+final class AsyncEvaluation {
+    private AsyncEvaluation() {}
+
+
+    static <T> CompletableFuture<Boolean> evaluate(Expression<T> expression, T instance, Executor executor) {
+        if(!isAsync(expression)) {
+            return CompletableFuture.supplyAsync(() -> expression.check(instance), executor);
+        }
+
+        switch (expression.kind()) {
+            case BATCHED:
+                return ((BatchedExpression<T>) expression).load(instance);
+            case NAMED:
+                return evaluate(((Expression.Named<T>) expression).body(), instance, executor);
+            case NOT:
+                return evaluate(((Expression.Not<T>) expression).operand(), instance, executor).thenApply(value -> !value);
+            case COMPILED:
+            case MEMOIZED:
+            case ADAPTIVE:
+                return evaluate(unwrap(expression), instance, executor);
+            default:
+                Expression<T>[] operands = ((Expression.Junction<T>) expression).operands();
+                return junction(operands, 0, expression.kind() == Expression.Kind.OR, instance, executor);
+        }
+    }
+
+    private static <T> CompletableFuture<Boolean> junction(Expression<T>[] operands, int from, boolean decisive,
+                                                           T instance, Executor executor) {
+        if(from == operands.length) {
+            return result(!decisive);
+        }
+
+        if(isAsync(operands[from])) {
+            return evaluate(operands[from], instance, executor).thenCompose(value -> value == decisive
+                    ? result(decisive)
+                    : junction(operands, from + 1, decisive, instance, executor));
+        }
+
+        int to = from;
+        while(to < operands.length && !isAsync(operands[to])) {
+            to++;
+        }
+        int next = to;
+        return CompletableFuture.supplyAsync(() -> {
+            for(int i = from; i < next; i++) {
+                if(operands[i].check(instance) == decisive) {
+                    return true;
+                }
+            }
+            return false;
+        }, executor).thenCompose(decided -> decided
+                ? result(decisive)
+                : junction(operands, next, decisive, instance, executor));
+    }
+
+    private static CompletableFuture<Boolean> result(boolean value) {
+        return CompletableFuture.completedFuture(value);
+    }
+
+    /**
+     * Returns {@code true} if the tree has a batched leaf reachable through junctions, negations, names and the
+     * compiled, memoized and adaptive wrappers.
+     */
+    static boolean isAsync(Expression<?> expression) {
+        switch (expression.kind()) {
+            case BATCHED:
+                return true;
+            case NAMED:
+                return isAsync(((Expression.Named<?>) expression).body());
+            case NOT:
+                return isAsync(((Expression.Not<?>) expression).operand());
+            case COMPILED:
+            case MEMOIZED:
+            case ADAPTIVE:
+                return isAsync(unwrap(expression));
+            case AND:
+            case OR:
+                for(Expression<?> operand : ((Expression.Junction<?>) expression).operands()) {
+                    if(isAsync(operand)) {
+                        return true;
+                    }
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Source tree of a wrapper. A memoized tree with a batched leaf is evaluated asynchronously without its cache,
+     * as the cache would block on the batch.
+     */
+    private static <T> Expression<T> unwrap(Expression<T> expression) {
+        switch (expression.kind()) {
+            case MEMOIZED:
+                return ((MemoizedExpression<T>) expression).operand();
+            case ADAPTIVE:
+                return ((AdaptiveExpression<T>) expression).junction();
+            default:
+                return expression.plain();
+        }
+    }
+}
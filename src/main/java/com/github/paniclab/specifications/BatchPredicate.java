@@ -0,0 +1,18 @@
+package com.github.paniclab.specifications;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+
+/**
+ * Predicate evaluated for many instances at once, typically a single query to a repository or a remote cache,
+ * see {@link Specification#batched(Class, BatchPredicate, java.util.concurrent.Executor)}.
+ */
+@FunctionalInterface
+public interface BatchPredicate<T> {
+
+    /**
+     * Returns one result per instance, in the order of {@code instances}.
+     */
+    CompletableFuture<List<Boolean>> test(List<T> instances);
+}
@@ -0,0 +1,142 @@
+package com.github.paniclab.specifications;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+
+/**
+ * Leaf collecting the instances of concurrent evaluations into batches for a {@link BatchPredicate}.
+ */
+final class BatchedExpression<T> extends Expression<T> {
+    private final BatchPredicate<T> predicate;
+    private final Executor executor;
+    private final int maxBatchSize;
+
+    private final Object lock = new Object();
+    private Map<T, CompletableFuture<Boolean>> pending = new LinkedHashMap<>();
+    private boolean scheduled;
+
+
+    BatchedExpression(BatchPredicate<T> predicate, Executor executor, int maxBatchSize) {
+        if(maxBatchSize < 1) {
+            throw new SpecificationException("Maximum batch size must be positive, got: " + maxBatchSize);
+        }
+        this.predicate = predicate;
+        this.executor = executor;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+
+    CompletableFuture<Boolean> load(T instance) {
+        CompletableFuture<Boolean> result;
+        Map<T, CompletableFuture<Boolean>> full = null;
+        boolean schedule = false;
+
+        synchronized (lock) {
+            result = pending.get(instance);
+            if(result != null) {
+                return result;
+            }
+
+            result = new CompletableFuture<>();
+            pending.put(instance, result);
+            if(pending.size() >= maxBatchSize) {
+                full = pending;
+                pending = new LinkedHashMap<>();
+            } else if(!scheduled) {
+                scheduled = true;
+                schedule = true;
+            }
+        }
+
+        if(full != null) {
+            dispatch(full);
+        } else if(schedule) {
+            executor.execute(this::dispatchPending);
+        }
+        return result;
+    }
+
+    private void dispatchPending() {
+        Map<T, CompletableFuture<Boolean>> batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = new LinkedHashMap<>();
+            scheduled = false;
+        }
+        if(!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    private void dispatch(Map<T, CompletableFuture<Boolean>> batch) {
+        List<T> instances = new ArrayList<>(batch.keySet());
+        CompletableFuture<List<Boolean>> results;
+        try {
+            results = predicate.test(instances);
+        } catch (RuntimeException e) {
+            fail(batch, e);
+            return;
+        }
+
+        results.whenComplete((values, error) -> {
+            if(error != null) {
+                fail(batch, error);
+            } else if(values == null || values.size() != instances.size()) {
+                fail(batch, new SpecificationException("Batch predicate returned " +
+                        (values == null ? "null" : values.size() + " results") + " for " + instances.size() + " instances"));
+            } else {
+                for(int i = 0; i < instances.size(); i++) {
+                    batch.get(instances.get(i)).complete(Boolean.TRUE.equals(values.get(i)));
+                }
+            }
+        });
+    }
+
+    private static void fail(Map<?, CompletableFuture<Boolean>> batch, Throwable error) {
+        for(CompletableFuture<Boolean> result : batch.values()) {
+            result.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Blocks until the batch of this instance completes.
+     */
+    @Override
+    public boolean check(T instance) {
+        try {
+            return load(instance).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SpecificationException("Batched evaluation failed for " + instance, cause);
+        }
+    }
+
+    @Override
+    Kind kind() {
+        return Kind.BATCHED;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj;
+    }
+
+    @Override
+    public String toString() {
+        return "batched@" + Integer.toHexString(hashCode());
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.paniclab.specifications;
+
+
+/**
+ * Bloom filter over 64-bit hashes, the bit positions are derived by double hashing. The number of bits is rounded
+ * up to a power of two.
+ */
+final class BloomFilter {
+    private final long[] words;
+    private final long mask;
+    private final int hashes;
+
+
+    BloomFilter(int expectedSize, double falsePositiveRate) {
+        long bits = (long) Math.ceil(-Math.max(1, expectedSize) * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        bits = Math.max(Long.SIZE, Long.highestOneBit(bits - 1) << 1);
+        if(bits > (long) Integer.MAX_VALUE * Long.SIZE) {
+            throw new SpecificationException("Bloom filter too large for " + expectedSize + " values");
+        }
+
+        this.words = new long[(int) (bits / Long.SIZE)];
+        this.mask = bits - 1;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / Math.max(1, expectedSize) * Math.log(2)));
+    }
+
+
+    void put(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for(int i = 0; i < hashes; i++) {
+            long bit = (h1 + (long) i * h2) & mask;
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for(int i = 0; i < hashes; i++) {
+            long bit = (h1 + (long) i * h2) & mask;
+            if((words[(int) (bit >>> 6)] & 1L << bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+}
@@ -0,0 +1,197 @@
+package com.github.paniclab.specifications;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Primitive values of one property, read from an array or in place from a {@link ByteBuffer}: value {@code i} is
+ * at {@code offset + i * stride}.
+ */
+public abstract class Column {
+    private final int rows;
+
+
+    Column(int rows) {
+        if(rows < 0) {
+            throw new SpecificationException("Row count must not be negative, got: " + rows);
+        }
+        this.rows = rows;
+    }
+
+
+    public static Column ints(int[] values) {
+        return new IntArrayColumn(values);
+    }
+
+    public static Column longs(long[] values) {
+        return new LongArrayColumn(values);
+    }
+
+    public static Column doubles(double[] values) {
+        return new DoubleArrayColumn(values);
+    }
+
+    public static Column ints(ByteBuffer buffer, int offset, int stride, int rows) {
+        checkRegion(buffer, offset, stride, rows, Integer.BYTES);
+        return new IntBufferColumn(buffer, offset, stride, rows);
+    }
+
+    public static Column longs(ByteBuffer buffer, int offset, int stride, int rows) {
+        checkRegion(buffer, offset, stride, rows, Long.BYTES);
+        return new LongBufferColumn(buffer, offset, stride, rows);
+    }
+
+    public static Column doubles(ByteBuffer buffer, int offset, int stride, int rows) {
+        checkRegion(buffer, offset, stride, rows, Double.BYTES);
+        return new DoubleBufferColumn(buffer, offset, stride, rows);
+    }
+
+
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * Sets bit {@code i} of {@code words} for every row {@code from + i} satisfying the condition, {@code i} below
+     * {@code count}. The words are expected to be cleared.
+     */
+    abstract void evaluate(ColumnCondition condition, int from, int count, long[] words);
+
+
+    private static void checkRegion(ByteBuffer buffer, int offset, int stride, int rows, int size) {
+        if(offset < 0 || stride < size || rows < 0 ||
+                rows > 0 && (long) offset + (long) (rows - 1) * stride + size > buffer.limit()) {
+            throw new SpecificationException("Column region out of buffer bounds: offset=" + offset +
+                    ", stride=" + stride + ", rows=" + rows + ", limit=" + buffer.limit());
+        }
+    }
+
+
+    private static final class IntArrayColumn extends Column {
+        private final int[] values;
+
+        private IntArrayColumn(int[] values) {
+            super(values.length);
+            this.values = values;
+        }
+
+        @Override
+        void evaluate(ColumnCondition condition, int from, int count, long[] words) {
+            for(int i = 0; i < count; i++) {
+                if(condition.test(values[from + i])) {
+                    words[i >>> 6] |= 1L << i;
+                }
+            }
+        }
+    }
+
+
+    private static final class LongArrayColumn extends Column {
+        private final long[] values;
+
+        private LongArrayColumn(long[] values) {
+            super(values.length);
+            this.values = values;
+        }
+
+        @Override
+        void evaluate(ColumnCondition condition, int from, int count, long[] words) {
+            for(int i = 0; i < count; i++) {
+                if(condition.test(values[from + i])) {
+                    words[i >>> 6] |= 1L << i;
+                }
+            }
+        }
+    }
+
+
+    private static final class DoubleArrayColumn extends Column {
+        private final double[] values;
+
+        private DoubleArrayColumn(double[] values) {
+            super(values.length);
+            this.values = values;
+        }
+
+        @Override
+        void evaluate(ColumnCondition condition, int from, int count, long[] words) {
+            for(int i = 0; i < count; i++) {
+                if(condition.test(values[from + i])) {
+                    words[i >>> 6] |= 1L << i;
+                }
+            }
+        }
+    }
+
+
+    private static final class IntBufferColumn extends Column {
+        private final ByteBuffer buffer;
+        private final int offset;
+        private final int stride;
+
+        private IntBufferColumn(ByteBuffer buffer, int offset, int stride, int rows) {
+            super(rows);
+            this.buffer = buffer;
+            this.offset = offset;
+            this.stride = stride;
+        }
+
+        @Override
+        void evaluate(ColumnCondition condition, int from, int count, long[] words) {
+            int position = offset + from * stride;
+            for(int i = 0; i < count; i++, position += stride) {
+                if(condition.test(buffer.getInt(position))) {
+                    words[i >>> 6] |= 1L << i;
+                }
+            }
+        }
+    }
+
+
+    private static final class LongBufferColumn extends Column {
+        private final ByteBuffer buffer;
+        private final int offset;
+        private final int stride;
+
+        private LongBufferColumn(ByteBuffer buffer, int offset, int stride, int rows) {
+            super(rows);
+            this.buffer = buffer;
+            this.offset = offset;
+            this.stride = stride;
+        }
+
+        @Override
+        void evaluate(ColumnCondition condition, int from, int count, long[] words) {
+            int position = offset + from * stride;
+            for(int i = 0; i < count; i++, position += stride) {
+                if(condition.test(buffer.getLong(position))) {
+                    words[i >>> 6] |= 1L << i;
+                }
+            }
+        }
+    }
+
+
+    private static final class DoubleBufferColumn extends Column {
+        private final ByteBuffer buffer;
+        private final int offset;
+        private final int stride;
+
+        private DoubleBufferColumn(ByteBuffer buffer, int offset, int stride, int rows) {
+            super(rows);
+            this.buffer = buffer;
+            this.offset = offset;
+            this.stride = stride;
+        }
+
+        @Override
+        void evaluate(ColumnCondition condition, int from, int count, long[] words) {
+            int position = offset + from * stride;
+            for(int i = 0; i < count; i++, position += stride) {
+                if(condition.test(buffer.getDouble(position))) {
+                    words[i >>> 6] |= 1L << i;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.paniclab.specifications;
+
+import java.util.Arrays;
+import java.util.Set;
+
+
+/**
+ * Primitive form of a {@link PropertyExpression} over a numeric property. Integral bounds and values are compared
+ * as {@code long}, anything else as {@code double} with {@link Double#compare} semantics, like {@code compareTo}.
+ */
+final class ColumnCondition {
+    private final boolean integral;
+    private final long lower;
+    private final long upper;
+    private final long[] longValues;
+
+    private final boolean hasLower;
+    private final double lowerDouble;
+    private final boolean lowerInclusive;
+    private final boolean hasUpper;
+    private final double upperDouble;
+    private final boolean upperInclusive;
+    private final double[] doubleValues;
+
+
+    ColumnCondition(PropertyExpression<?, ?> expression) {
+        Set<?> values = expression.values();
+        Object lowerBound = expression.lower();
+        Object upperBound = expression.upper();
+
+        boolean allIntegral = isIntegral(lowerBound) && isIntegral(upperBound);
+        if(values != null) {
+            for(Object value : values) {
+                allIntegral &= isIntegral(value);
+            }
+        }
+        this.integral = allIntegral;
+
+        this.lowerInclusive = expression.lowerInclusive();
+        this.upperInclusive = expression.upperInclusive();
+        this.hasLower = lowerBound != null;
+        this.hasUpper = upperBound != null;
+        this.lowerDouble = hasLower ? number(lowerBound).doubleValue() : 0.0;
+        this.upperDouble = hasUpper ? number(upperBound).doubleValue() : 0.0;
+
+        long lowerLong = lowerBound == null || !integral ? Long.MIN_VALUE : number(lowerBound).longValue();
+        long upperLong = upperBound == null || !integral ? Long.MAX_VALUE : number(upperBound).longValue();
+        boolean empty = false;
+        if(lowerBound != null && integral && !lowerInclusive) {
+            empty = lowerLong == Long.MAX_VALUE;
+            lowerLong++;
+        }
+        if(upperBound != null && integral && !upperInclusive) {
+            empty |= upperLong == Long.MIN_VALUE;
+            upperLong--;
+        }
+        this.lower = empty ? 1L : lowerLong;
+        this.upper = empty ? 0L : upperLong;
+
+        if(values == null) {
+            this.longValues = null;
+            this.doubleValues = null;
+        } else {
+            this.longValues = integral ? values.stream().mapToLong(value -> number(value).longValue()).sorted().toArray() : null;
+            this.doubleValues = values.stream().mapToDouble(value -> number(value).doubleValue()).sorted().toArray();
+        }
+    }
+
+
+    boolean test(long value) {
+        if(!integral) {
+            return test((double) value);
+        }
+        if(longValues != null) {
+            return Arrays.binarySearch(longValues, value) >= 0;
+        }
+        return value >= lower && value <= upper;
+    }
+
+    boolean test(double value) {
+        if(doubleValues != null) {
+            return Arrays.binarySearch(doubleValues, value) >= 0;
+        }
+        if(hasLower) {
+            int comparison = Double.compare(value, lowerDouble);
+            if(comparison < 0 || comparison == 0 && !lowerInclusive) {
+                return false;
+            }
+        }
+        if(hasUpper) {
+            int comparison = Double.compare(value, upperDouble);
+            return comparison < 0 || comparison == 0 && upperInclusive;
+        }
+        return true;
+    }
+
+
+    private static boolean isIntegral(Object value) {
+        return value == null || value instanceof Long || value instanceof Integer ||
+                value instanceof Short || value instanceof Byte;
+    }
+
+    private static Number number(Object value) {
+        if(!(value instanceof Number)) {
+            throw new SpecificationException("Only numeric properties can be evaluated over columns, got: " + value);
+        }
+        return (Number) value;
+    }
+}
@@ -0,0 +1,307 @@
+package com.github.paniclab.specifications;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+
+/**
+ * Evaluates a property based specification over {@link Column}s block by block, objects are created only for
+ * matching rows. Immutable.
+ */
+public final class ColumnarSpecification<T> {
+    public static final int BLOCK_SIZE = 4096;
+    private static final int BLOCK_WORDS = BLOCK_SIZE / Long.SIZE;
+
+    private final Specification<T> specification;
+    private final Node root;
+    private final int rows;
+    private final int depth;
+
+
+    private ColumnarSpecification(Builder<T> builder) {
+        this.specification = builder.specification;
+
+        int rowCount = -1;
+        for(Column column : builder.columns.values()) {
+            if(rowCount >= 0 && column.rows() != rowCount) {
+                throw new SpecificationException("All columns must have the same row count, got: " +
+                        rowCount + " and " + column.rows());
+            }
+            rowCount = column.rows();
+        }
+        if(rowCount < 0) {
+            throw new SpecificationException("Columnar specification without columns: " + specification);
+        }
+        this.rows = rowCount;
+
+        int[] maxDepth = new int[1];
+        this.root = compile(specification.expression(), builder.columns, 0, maxDepth);
+        this.depth = maxDepth[0] + 1;
+    }
+
+    public static <U> Builder<U> builder(Specification<U> specification) {
+        return new Builder<>(specification);
+    }
+
+
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * Returns one bit per row, bit {@code i % 64} of word {@code i / 64} is set if row {@code i} matches.
+     */
+    public long[] evaluate() {
+        long[] result = new long[(rows + Long.SIZE - 1) / Long.SIZE];
+        scan((from, words, count) -> System.arraycopy(words, 0, result, from / Long.SIZE, (count + Long.SIZE - 1) / Long.SIZE));
+        return result;
+    }
+
+    public long count() {
+        long[] count = new long[1];
+        scan((from, words, blockRows) -> {
+            for(int i = 0; i < BLOCK_WORDS; i++) {
+                count[0] += Long.bitCount(words[i]);
+            }
+        });
+        return count[0];
+    }
+
+    public void forEachMatch(IntConsumer action) {
+        scan((from, words, count) -> {
+            for(int i = 0; i < BLOCK_WORDS; i++) {
+                long word = words[i];
+                while(word != 0) {
+                    action.accept(from + i * Long.SIZE + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        });
+    }
+
+    /**
+     * Creates objects for the matching rows only, in row order.
+     */
+    public <R> List<R> select(IntFunction<? extends R> rowFactory) {
+        List<R> result = new ArrayList<>();
+        forEachMatch(row -> result.add(rowFactory.apply(row)));
+        return result;
+    }
+
+    public Specification<T> specification() {
+        return specification;
+    }
+
+
+    private void scan(BlockConsumer consumer) {
+        long[][] scratch = new long[depth][BLOCK_WORDS];
+        for(int from = 0; from < rows; from += BLOCK_SIZE) {
+            int count = Math.min(BLOCK_SIZE, rows - from);
+            long[] words = scratch[0];
+            root.evaluate(from, count, words, scratch, 0);
+            consumer.accept(from, words, count);
+        }
+    }
+
+
+    private static <T> Node compile(Expression<T> expression, Map<Property<?, ?>, Column> columns, int level, int[] maxDepth) {
+        maxDepth[0] = Math.max(maxDepth[0], level);
+
+        switch (expression.kind()) {
+            case CONSTANT:
+                return new ConstantNode(((Expression.Constant<T>) expression).value());
+            case PROPERTY:
+                PropertyExpression<T, ?> comparison = (PropertyExpression<T, ?>) expression;
+                Column column = columns.get(comparison.property());
+                if(column == null) {
+                    throw new SpecificationException("No column bound to " + comparison.property());
+                }
+                return new ConditionNode(column, new ColumnCondition(comparison));
+            case NAMED:
+                return compile(((Expression.Named<T>) expression).body(), columns, level, maxDepth);
+            case COMPILED:
+                return compile(expression.plain(), columns, level, maxDepth);
+            case ADAPTIVE:
+                return compile(((AdaptiveExpression<T>) expression).junction(), columns, level, maxDepth);
+            case NOT:
+                return new NotNode(compile(((Expression.Not<T>) expression).operand(), columns, level, maxDepth));
+            case AND:
+            case OR:
+                Expression<T>[] operands = ((Expression.Junction<T>) expression).operands();
+                Node[] nodes = new Node[operands.length];
+                nodes[0] = compile(operands[0], columns, level, maxDepth);
+                for(int i = 1; i < operands.length; i++) {
+                    nodes[i] = compile(operands[i], columns, level + 1, maxDepth);
+                }
+                return new JunctionNode(expression.kind() == Expression.Kind.AND, nodes);
+            default:
+                throw new SpecificationException("Only property comparisons can be evaluated over columns, got: " +
+                        expression);
+        }
+    }
+
+    private static void clear(long[] words) {
+        for(int i = 0; i < BLOCK_WORDS; i++) {
+            words[i] = 0L;
+        }
+    }
+
+    /**
+     * Clears the bits of the rows beyond {@code count}.
+     */
+    private static void clearTail(long[] words, int count) {
+        int full = count / Long.SIZE;
+        if(full < BLOCK_WORDS) {
+            words[full] &= (1L << count) - 1;
+            for(int i = full + 1; i < BLOCK_WORDS; i++) {
+                words[i] = 0L;
+            }
+        }
+    }
+
+
+    @FunctionalInterface
+    private interface BlockConsumer {
+        void accept(int from, long[] words, int count);
+    }
+
+
+    /**
+     * Node of the compiled tree. {@code evaluate} writes the block into {@code words}, nested operands use
+     * {@code scratch[level + 1]} and deeper, so one scratch array per level serves the whole tree.
+     */
+    private abstract static class Node {
+        abstract void evaluate(int from, int count, long[] words, long[][] scratch, int level);
+    }
+
+
+    private static final class ConstantNode extends Node {
+        private final boolean value;
+
+        private ConstantNode(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        void evaluate(int from, int count, long[] words, long[][] scratch, int level) {
+            for(int i = 0; i < BLOCK_WORDS; i++) {
+                words[i] = value ? -1L : 0L;
+            }
+            clearTail(words, count);
+        }
+    }
+
+
+    private static final class ConditionNode extends Node {
+        private final Column column;
+        private final ColumnCondition condition;
+
+        private ConditionNode(Column column, ColumnCondition condition) {
+            this.column = column;
+            this.condition = condition;
+        }
+
+        @Override
+        void evaluate(int from, int count, long[] words, long[][] scratch, int level) {
+            clear(words);
+            column.evaluate(condition, from, count, words);
+        }
+    }
+
+
+    private static final class NotNode extends Node {
+        private final Node operand;
+
+        private NotNode(Node operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        void evaluate(int from, int count, long[] words, long[][] scratch, int level) {
+            operand.evaluate(from, count, words, scratch, level);
+            for(int i = 0; i < BLOCK_WORDS; i++) {
+                words[i] = ~words[i];
+            }
+            clearTail(words, count);
+        }
+    }
+
+
+    private static final class JunctionNode extends Node {
+        private final boolean and;
+        private final Node[] operands;
+
+        private JunctionNode(boolean and, Node[] operands) {
+            this.and = and;
+            this.operands = operands;
+        }
+
+        @Override
+        void evaluate(int from, int count, long[] words, long[][] scratch, int level) {
+            operands[0].evaluate(from, count, words, scratch, level);
+            long[] operandWords = scratch[level + 1];
+
+            for(int n = 1; n < operands.length; n++) {
+                if(isDecided(words, count)) {
+                    return;
+                }
+                operands[n].evaluate(from, count, operandWords, scratch, level + 1);
+                if(and) {
+                    for(int i = 0; i < BLOCK_WORDS; i++) {
+                        words[i] &= operandWords[i];
+                    }
+                } else {
+                    for(int i = 0; i < BLOCK_WORDS; i++) {
+                        words[i] |= operandWords[i];
+                    }
+                }
+            }
+        }
+
+        /**
+         * A block is decided when no row is left for a conjunction or every row already matches a disjunction.
+         */
+        private boolean isDecided(long[] words, int count) {
+            if(and) {
+                for(int i = 0; i < BLOCK_WORDS; i++) {
+                    if(words[i] != 0L) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            int full = count / Long.SIZE;
+            for(int i = 0; i < full; i++) {
+                if(words[i] != -1L) {
+                    return false;
+                }
+            }
+            int tail = count % Long.SIZE;
+            return tail == 0 || words[full] == (1L << tail) - 1;
+        }
+    }
+
+
+    public static final class Builder<T> {
+        private final Specification<T> specification;
+        private final Map<Property<?, ?>, Column> columns = new HashMap<>();
+
+        private Builder(Specification<T> specification) {
+            this.specification = specification;
+        }
+
+        public Builder<T> withColumn(Property<T, ?> property, Column column) {
+            columns.put(property, column);
+            return this;
+        }
+
+        public ColumnarSpecification<T> build() {
+            return new ColumnarSpecification<>(this);
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.github.paniclab.specifications;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+
+/**
+ * Matches a stream of events against the registered specifications of a subject, a full queue blocks
+ * {@link #submit(Object)}. Subscribers are called concurrently on the worker threads.
+ */
+public final class ContinuousQuery<T> implements AutoCloseable {
+    private static final long POLL_MILLIS = 50;
+
+    private final Class<T> subject;
+    private final SpecificationMatcher<T> matcher;
+    private final BlockingQueue<T> queue;
+    private final int batchSize;
+    private final Thread[] workers;
+    private final ConcurrentMap<SpecId<?>, List<Consumer<? super T>>> subscribers = new ConcurrentHashMap<>();
+    private final Consumer<Throwable> errorHandler;
+    private final LongAdder inFlight = new LongAdder();
+    private volatile boolean closed;
+
+    private final long startedAt = System.nanoTime();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder deliveries = new LongAdder();
+    private final LongAdder evaluationErrors = new LongAdder();
+    private final LongAdder subscriberErrors = new LongAdder();
+
+
+    private ContinuousQuery(Builder<T> builder) {
+        this.subject = builder.subject;
+        this.matcher = SpecificationMatcher.forSubject(subject);
+        this.queue = new ArrayBlockingQueue<>(builder.queueCapacity);
+        this.batchSize = builder.batchSize;
+        this.errorHandler = builder.errorHandler != null ? builder.errorHandler : ContinuousQuery::reportUncaught;
+
+        ThreadFactory threadFactory = builder.threadFactory != null ? builder.threadFactory : daemonThreads(subject);
+        this.workers = new Thread[builder.workers];
+        for(int i = 0; i < workers.length; i++) {
+            workers[i] = threadFactory.newThread(this::work);
+            workers[i].start();
+        }
+    }
+
+    public static <U> Builder<U> builder(Class<U> subject) {
+        return new Builder<>(subject);
+    }
+
+
+    /**
+     * Calls the consumer with every event satisfying the specification registered under the id.
+     */
+    public Subscription subscribe(SpecId<? extends T> id, Consumer<? super T> consumer) {
+        Objects.requireNonNull(id);
+        Objects.requireNonNull(consumer);
+        subscribers.computeIfAbsent(id, key -> new CopyOnWriteArrayList<>()).add(consumer);
+        return () -> {
+            List<Consumer<? super T>> consumers = subscribers.get(id);
+            if(consumers != null) {
+                consumers.remove(consumer);
+            }
+        };
+    }
+
+    /**
+     * Queues the event, waiting while the queue is full.
+     */
+    public void submit(T event) throws InterruptedException {
+        inFlight.increment();
+        try {
+            ensureOpen();
+            queue.put(event);
+            accepted.increment();
+        } finally {
+            inFlight.decrement();
+        }
+    }
+
+    /**
+     * Queues the event if there is room for it, returns {@code false} otherwise.
+     */
+    public boolean offer(T event) {
+        inFlight.increment();
+        try {
+            ensureOpen();
+            return accepted(queue.offer(event));
+        } finally {
+            inFlight.decrement();
+        }
+    }
+
+    public boolean offer(T event, long timeout, TimeUnit unit) throws InterruptedException {
+        inFlight.increment();
+        try {
+            ensureOpen();
+            return accepted(queue.offer(event, timeout, unit));
+        } finally {
+            inFlight.decrement();
+        }
+    }
+
+    public ContinuousQueryMetrics metrics() {
+        return new ContinuousQueryMetrics(accepted.sum(), rejected.sum(), processed.sum(), batches.sum(),
+                deliveries.sum(), evaluationErrors.sum(), subscriberErrors.sum(), queue.size(),
+                queue.size() + queue.remainingCapacity(), System.nanoTime() - startedAt);
+    }
+
+    public Class<T> subject() {
+        return subject;
+    }
+
+    /**
+     * Stops accepting events, processes the queued ones and waits for the workers to finish. Producers blocked in
+     * {@link #submit(Object)} are let through first, events accepted before the call are never lost.
+     */
+    @Override
+    public synchronized void close() {
+        if(closed) {
+            return;
+        }
+        closed = true;
+
+        boolean interrupted = false;
+        while(inFlight.sum() != 0) {
+            Thread.yield();
+        }
+        for(Thread worker : workers) {
+            while(worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+
+        List<T> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        process(remaining);
+        matcher.close();
+        if(interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    private boolean accepted(boolean queued) {
+        if(queued) {
+            accepted.increment();
+        } else {
+            rejected.increment();
+        }
+        return queued;
+    }
+
+    private void ensureOpen() {
+        if(closed) {
+            throw new IllegalStateException("Continuous query of " + subject.getName() + " is closed");
+        }
+    }
+
+    private void work() {
+        List<T> batch = new ArrayList<>(batchSize);
+        try {
+            while(true) {
+                T first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if(first == null) {
+                    if(closed) {
+                        return;
+                    }
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void process(List<T> batch) {
+        if(batch.isEmpty()) {
+            return;
+        }
+
+        long delivered = 0;
+        for(T event : batch) {
+            List<SpecId<?>> matches;
+            try {
+                matches = matcher.matchingIds(event);
+            } catch (Throwable e) {
+                evaluationErrors.increment();
+                errorHandler.accept(e);
+                continue;
+            }
+
+            for(SpecId<?> id : matches) {
+                List<Consumer<? super T>> consumers = subscribers.get(id);
+                if(consumers == null) {
+                    continue;
+                }
+                for(Consumer<? super T> consumer : consumers) {
+                    try {
+                        consumer.accept(event);
+                        delivered++;
+                    } catch (Throwable e) {
+                        subscriberErrors.increment();
+                        errorHandler.accept(e);
+                    }
+                }
+            }
+        }
+
+        processed.add(batch.size());
+        deliveries.add(delivered);
+        batches.increment();
+    }
+
+    private static void reportUncaught(Throwable error) {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, error);
+    }
+
+    private static ThreadFactory daemonThreads(Class<?> subject) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "continuous-query-" + subject.getSimpleName() + "-" +
+                    counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+
+    @FunctionalInterface
+    public interface Subscription {
+        void cancel();
+    }
+
+
+    public static final class Builder<T> {
+        private final Class<T> subject;
+        private int queueCapacity = 65_536;
+        private int batchSize = 256;
+        private int workers = Runtime.getRuntime().availableProcessors();
+        private ThreadFactory threadFactory;
+        private Consumer<Throwable> errorHandler;
+
+        private Builder(Class<T> subject) {
+            this.subject = Objects.requireNonNull(subject);
+        }
+
+        public Builder<T> withQueueCapacity(int queueCapacity) {
+            if(queueCapacity < 1) {
+                throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+            }
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public Builder<T> withBatchSize(int batchSize) {
+            if(batchSize < 1) {
+                throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public Builder<T> withWorkers(int workers) {
+            if(workers < 1) {
+                throw new IllegalArgumentException("Number of workers must be positive: " + workers);
+            }
+            this.workers = workers;
+            return this;
+        }
+
+        public Builder<T> withThreadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = Objects.requireNonNull(threadFactory);
+            return this;
+        }
+
+        /**
+         * Receives what evaluations and subscribers throw, on the worker thread. The worker goes on with the next
+         * event. By default errors go to the uncaught exception handler of the worker.
+         */
+        public Builder<T> withErrorHandler(Consumer<Throwable> errorHandler) {
+            this.errorHandler = Objects.requireNonNull(errorHandler);
+            return this;
+        }
+
+        /**
+         * Starts the workers.
+         */
+        public ContinuousQuery<T> build() {
+            return new ContinuousQuery<>(this);
+        }
+    }
+}
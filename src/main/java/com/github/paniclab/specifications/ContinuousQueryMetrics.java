@@ -0,0 +1,106 @@
+package com.github.paniclab.specifications;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Point in time counters of a {@link ContinuousQuery}.
+ */
+public final class ContinuousQueryMetrics {
+    private final long accepted;
+    private final long rejected;
+    private final long processed;
+    private final long batches;
+    private final long deliveries;
+    private final long evaluationErrors;
+    private final long subscriberErrors;
+    private final int queueDepth;
+    private final int queueCapacity;
+    private final long elapsedNanos;
+
+
+    ContinuousQueryMetrics(long accepted, long rejected, long processed, long batches, long deliveries,
+                           long evaluationErrors, long subscriberErrors, int queueDepth, int queueCapacity,
+                           long elapsedNanos) {
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.processed = processed;
+        this.batches = batches;
+        this.deliveries = deliveries;
+        this.evaluationErrors = evaluationErrors;
+        this.subscriberErrors = subscriberErrors;
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+
+    public long accepted() {
+        return accepted;
+    }
+
+    /**
+     * Events refused by {@link ContinuousQuery#offer(Object)} because the queue was full.
+     */
+    public long rejected() {
+        return rejected;
+    }
+
+    public long processed() {
+        return processed;
+    }
+
+    public long batches() {
+        return batches;
+    }
+
+    public double averageBatchSize() {
+        return batches == 0 ? 0.0 : (double) processed / batches;
+    }
+
+    /**
+     * Calls of subscribers, an event matching several subscribed ids counts once per subscriber.
+     */
+    public long deliveries() {
+        return deliveries;
+    }
+
+    public long evaluationErrors() {
+        return evaluationErrors;
+    }
+
+    public long subscriberErrors() {
+        return subscriberErrors;
+    }
+
+    public int queueDepth() {
+        return queueDepth;
+    }
+
+    public int queueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Processed events per second since the query was started.
+     */
+    public double throughput() {
+        return elapsedNanos == 0 ? 0.0 : processed * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+
+    @Override
+    public String toString() {
+        return "ContinuousQueryMetrics{" +
+                "accepted=" + accepted +
+                ", rejected=" + rejected +
+                ", processed=" + processed +
+                ", batches=" + batches +
+                ", deliveries=" + deliveries +
+                ", evaluationErrors=" + evaluationErrors +
+                ", subscriberErrors=" + subscriberErrors +
+                ", queueDepth=" + queueDepth + "/" + queueCapacity +
+                ", throughput=" + String.format("%.0f/s", throughput()) +
+                '}';
+    }
+}
@@ -0,0 +1,201 @@
+package com.github.paniclab.specifications;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.DoublePredicate;
+
+
+/**
+ * Specification over primitive {@code double} values. Evaluation goes through {@link DoublePredicate}, so neither the
+ * value nor the result is boxed.
+ */
+public class DoubleSpecification {
+    private static final Constant TRUE = new Constant(true);
+    private static final Constant FALSE = new Constant(false);
+    private static final DoubleSpecification ALWAYS = new DoubleSpecification(TRUE, null);
+    private static final DoubleSpecification NEVER = new DoubleSpecification(FALSE, null);
+    private static final PrimitiveAlgebra<DoublePredicate> ALGEBRA = new PrimitiveAlgebra<DoublePredicate>() {
+        @Override
+        DoublePredicate constant(boolean value) {
+            return value ? TRUE : FALSE;
+        }
+
+        @Override
+        DoublePredicate not(DoublePredicate operand) {
+            return new DoubleSpecification.Not(operand);
+        }
+
+        @Override
+        DoublePredicate junction(boolean conjunction, List<DoublePredicate> operands) {
+            return new DoubleSpecification.Junction(conjunction, operands.toArray(new DoublePredicate[0]));
+        }
+    };
+
+    private final DoublePredicate predicate;
+    private final Specification<Double> registered;
+
+
+    private DoubleSpecification(DoublePredicate predicate, Specification<Double> registered) {
+        this.predicate = predicate;
+        this.registered = registered;
+    }
+
+
+    public static DoubleSpecification of(DoublePredicate predicate) {
+        if(predicate == null) {
+            throw new SpecificationException("Predicate must not be null");
+        }
+        return new DoubleSpecification(predicate, null);
+    }
+
+    public static DoubleSpecification always() {
+        return ALWAYS;
+    }
+
+    public static DoubleSpecification never() {
+        return NEVER;
+    }
+
+    public static DoubleSpecification not(DoubleSpecification spec) {
+        return spec.not();
+    }
+
+
+    public boolean isSatisfiedBy(double value) {
+        return predicate.test(value);
+    }
+
+    public DoubleSpecification and(DoubleSpecification other) {
+        return new DoubleSpecification(ALGEBRA.combine(true, this.predicate, other.predicate), null);
+    }
+
+    public DoubleSpecification or(DoubleSpecification other) {
+        return new DoubleSpecification(ALGEBRA.combine(false, this.predicate, other.predicate), null);
+    }
+
+    public DoubleSpecification not() {
+        return new DoubleSpecification(ALGEBRA.negate(predicate), null);
+    }
+
+    /**
+     * Registers the boxed view of this specification under the id, see {@link Specification#withId(SpecId)}.
+     */
+    public DoubleSpecification withId(SpecId<Double> id) {
+        return new DoubleSpecification(predicate, boxed(predicate).withId(id));
+    }
+
+    @SuppressWarnings("unchecked")
+    public SpecId<Double> id() {
+        return registered == null ? null : (SpecId<Double>) registered.id();
+    }
+
+    public DoublePredicate asPredicate() {
+        return predicate;
+    }
+
+    /**
+     * Boxed view of this specification, to be combined with object specifications.
+     */
+    public Specification<Double> boxed() {
+        return registered != null ? registered : boxed(predicate);
+    }
+
+    /**
+     * Returns the set of indices of {@code values} satisfying this specification.
+     */
+    public BitSet selectSatisfying(double[] values) {
+        BitSet result = new BitSet(values.length);
+        DoublePredicate predicate = this.predicate;
+        for(int i = 0; i < values.length; i++) {
+            if(predicate.test(values[i])) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the indices of {@code values} satisfying this specification, in ascending order.
+     */
+    public int[] indicesSatisfying(double[] values) {
+        int[] indices = new int[values.length];
+        int count = 0;
+        DoublePredicate predicate = this.predicate;
+        for(int i = 0; i < values.length; i++) {
+            if(predicate.test(values[i])) {
+                indices[count++] = i;
+            }
+        }
+        return count == indices.length ? indices : Arrays.copyOf(indices, count);
+    }
+
+    public int countSatisfying(double[] values) {
+        int count = 0;
+        DoublePredicate predicate = this.predicate;
+        for(double value : values) {
+            if(predicate.test(value)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+
+    @Override
+    public String toString() {
+        SpecId<Double> id = id();
+        return "DoubleSpecification{" +
+                (id == null ? "" : "id=" + id) +
+                '}';
+    }
+
+
+    private static Specification<Double> boxed(DoublePredicate predicate) {
+        return Specification.of(Double.class, predicate::test);
+    }
+
+
+    private static final class Constant extends PrimitiveAlgebra.Constant implements DoublePredicate {
+        private Constant(boolean value) {
+            super(value);
+        }
+
+        @Override
+        public boolean test(double value) {
+            return this.value;
+        }
+    }
+
+
+    private static final class Not extends PrimitiveAlgebra.Not<DoublePredicate> implements DoublePredicate {
+        private Not(DoublePredicate operand) {
+            super(operand);
+        }
+
+        @Override
+        public boolean test(double value) {
+            return !operand.test(value);
+        }
+    }
+
+
+    private static final class Junction extends PrimitiveAlgebra.Junction<DoublePredicate> implements DoublePredicate {
+        private final DoublePredicate[] predicates;
+
+        private Junction(boolean conjunction, DoublePredicate[] operands) {
+            super(conjunction, operands);
+            this.predicates = operands;
+        }
+
+        @Override
+        public boolean test(double value) {
+            for(DoublePredicate operand : predicates) {
+                if(operand.test(value) != conjunction) {
+                    return !conjunction;
+                }
+            }
+            return conjunction;
+        }
+    }
+}
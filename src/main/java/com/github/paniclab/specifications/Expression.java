@@ -0,0 +1,366 @@
+package com.github.paniclab.specifications;
+
+import com.github.paniclab.invariants.Invariant;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.function.Function;
+
+
+/**
+ * Explicit tree of a (possibly composed) specification. Every node is an {@link Invariant} itself,
+ * so an evaluation is a plain walk over the nodes instead of a chain of capturing lambdas.
+ */
+abstract class Expression<T> implements Invariant<T> {
+    private static final Expression<?> TRUE = new Constant<>(true);
+    private static final Expression<?> FALSE = new Constant<>(false);
+
+
+    @Override
+    public abstract boolean check(T instance);
+
+    abstract Kind kind();
+
+    /**
+     * Returns the interpretable form of this node, compiled nodes override it to expose their source tree.
+     */
+    Expression<T> plain() {
+        return this;
+    }
+
+
+    @SuppressWarnings("unchecked")
+    static <U> Expression<U> constant(boolean value) {
+        return (Expression<U>) (value ? TRUE : FALSE);
+    }
+
+    static <U> Expression<U> leaf(@NotNull Invariant<U> invariant) {
+        if(invariant instanceof Expression) {
+            return (Expression<U>) invariant;
+        }
+        return new Leaf<>(invariant, invariant);
+    }
+
+    static <U> Expression<U> leaf(@NotNull Function<U, Boolean> predicate) {
+        return new Leaf<>(predicate::apply, predicate);
+    }
+
+    static <U> Expression<U> leaf(@NotNull Function<U, Boolean> predicate, Set<String> reads) {
+        return new Leaf<>(predicate::apply, predicate, reads);
+    }
+
+    /**
+     * Reference to a registered specification, keeps the id of an operand visible in composed trees.
+     */
+    static <U> Expression<U> named(SpecId<?> id, Expression<U> body) {
+        return new Named<>(id, body.plain());
+    }
+
+    static <U> Expression<U> and(Expression<U> left, Expression<U> right) {
+        return ExpressionOptimizer.normalize(new And<>(left.plain(), right.plain()));
+    }
+
+    static <U> Expression<U> or(Expression<U> left, Expression<U> right) {
+        return ExpressionOptimizer.normalize(new Or<>(left.plain(), right.plain()));
+    }
+
+    static <U> Expression<U> not(Expression<U> operand) {
+        return ExpressionOptimizer.normalize(new Not<>(operand.plain()));
+    }
+
+    @SafeVarargs
+    static <U> Expression<U> all(Expression<U>...operands) {
+        for(int i = 0; i < operands.length; i++) {
+            operands[i] = operands[i].plain();
+        }
+        return ExpressionOptimizer.normalize(new And<>(operands));
+    }
+
+
+    enum Kind {
+        CONSTANT,
+        LEAF,
+        NOT,
+        AND,
+        OR,
+        COMPILED,
+        MEMOIZED,
+        NAMED,
+        ADAPTIVE,
+        PROPERTY,
+        BATCHED
+    }
+
+
+    static final class Constant<T> extends Expression<T> {
+        private final boolean value;
+
+        private Constant(boolean value) {
+            this.value = value;
+        }
+
+        boolean value() {
+            return value;
+        }
+
+        @Override
+        public boolean check(T instance) {
+            return value;
+        }
+
+        @Override
+        Kind kind() {
+            return Kind.CONSTANT;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+
+
+    static final class Leaf<T> extends Expression<T> {
+        private final Invariant<T> invariant;
+        private final Object source;
+        private final Set<String> reads;
+
+        Leaf(Invariant<T> invariant, Object source) {
+            this(invariant, source, null);
+        }
+
+        Leaf(Invariant<T> invariant, Object source, Set<String> reads) {
+            this.invariant = invariant;
+            this.source = source;
+            this.reads = reads;
+        }
+
+        Invariant<T> invariant() {
+            return invariant;
+        }
+
+        /**
+         * Properties the predicate was declared to read, {@code null} if not declared.
+         */
+        Set<String> reads() {
+            return reads;
+        }
+
+        @Override
+        public boolean check(T instance) {
+            return invariant.check(instance);
+        }
+
+        @Override
+        Kind kind() {
+            return Kind.LEAF;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(source);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(this == obj) return true;
+            if(!(obj instanceof Leaf)) return false;
+
+            return this.source == ((Leaf<?>) obj).source;
+        }
+
+        @Override
+        public String toString() {
+            return "leaf@" + Integer.toHexString(hashCode());
+        }
+    }
+
+
+    static final class Named<T> extends Expression<T> {
+        private final SpecId<?> id;
+        private final Expression<T> body;
+
+        Named(SpecId<?> id, Expression<T> body) {
+            this.id = id;
+            this.body = body;
+        }
+
+        SpecId<?> id() {
+            return id;
+        }
+
+        Expression<T> body() {
+            return body;
+        }
+
+        @Override
+        public boolean check(T instance) {
+            return Instrumentation.enabled ? Instrumentation.check(id, body, instance) : body.check(instance);
+        }
+
+        @Override
+        Kind kind() {
+            return Kind.NAMED;
+        }
+
+        @Override
+        public int hashCode() {
+            return id.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(this == obj) return true;
+            if(!(obj instanceof Named)) return false;
+
+            return this.id.equals(((Named<?>) obj).id);
+        }
+
+        @Override
+        public String toString() {
+            return id.value().name();
+        }
+    }
+
+
+    static final class Not<T> extends Expression<T> {
+        private final Expression<T> operand;
+
+        Not(Expression<T> operand) {
+            this.operand = operand;
+        }
+
+        Expression<T> operand() {
+            return operand;
+        }
+
+        @Override
+        public boolean check(T instance) {
+            return !operand.check(instance);
+        }
+
+        @Override
+        Kind kind() {
+            return Kind.NOT;
+        }
+
+        @Override
+        public int hashCode() {
+            return ~operand.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(this == obj) return true;
+            if(!(obj instanceof Not)) return false;
+
+            return this.operand.equals(((Not<?>) obj).operand);
+        }
+
+        @Override
+        public String toString() {
+            return "not(" + operand + ")";
+        }
+    }
+
+
+    abstract static class Junction<T> extends Expression<T> {
+        final Expression<T>[] operands;
+        private final int hash;
+
+        @SafeVarargs
+        Junction(Expression<T>...operands) {
+            this.operands = operands;
+            this.hash = 31 * kind().ordinal() + Arrays.hashCode(operands);
+        }
+
+        Expression<T>[] operands() {
+            return operands;
+        }
+
+        abstract Junction<T> with(Expression<T>[] operands);
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(this == obj) return true;
+            if(obj == null || obj.getClass() != this.getClass()) return false;
+
+            Junction<?> other = (Junction<?>) obj;
+            return this.hash == other.hash && Arrays.equals(this.operands, other.operands);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(kind().name().toLowerCase()).append('(');
+            for(int i = 0; i < operands.length; i++) {
+                if(i > 0) sb.append(", ");
+                sb.append(operands[i]);
+            }
+            return sb.append(')').toString();
+        }
+    }
+
+
+    static final class And<T> extends Junction<T> {
+
+        @SafeVarargs
+        And(Expression<T>...operands) {
+            super(operands);
+        }
+
+        @Override
+        public boolean check(T instance) {
+            for(Expression<T> operand : operands) {
+                if(!operand.check(instance)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        Kind kind() {
+            return Kind.AND;
+        }
+
+        @Override
+        Junction<T> with(Expression<T>[] operands) {
+            return new And<>(operands);
+        }
+    }
+
+
+    static final class Or<T> extends Junction<T> {
+
+        @SafeVarargs
+        Or(Expression<T>...operands) {
+            super(operands);
+        }
+
+        @Override
+        public boolean check(T instance) {
+            for(Expression<T> operand : operands) {
+                if(operand.check(instance)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        Kind kind() {
+            return Kind.OR;
+        }
+
+        @Override
+        Junction<T> with(Expression<T>[] operands) {
+            return new Or<>(operands);
+        }
+    }
+}
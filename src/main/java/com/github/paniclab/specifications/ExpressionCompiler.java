@@ -0,0 +1,152 @@
+package com.github.paniclab.specifications;
+
+import com.github.paniclab.invariants.Invariant;
+import com.github.paniclab.specifications.Expression.Junction;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+
+/**
+ * Turns an expression tree into a single {@link MethodHandle} of type {@code (Object)boolean}.
+ */
+final class ExpressionCompiler {
+    private static final MethodType CHECK_TYPE = MethodType.methodType(boolean.class, Object.class);
+
+    private static final MethodHandle INVARIANT_CHECK;
+    private static final MethodHandle NEGATE;
+    private static final MethodHandle ALWAYS_TRUE;
+    private static final MethodHandle ALWAYS_FALSE;
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            INVARIANT_CHECK = lookup.findVirtual(Invariant.class, "check", CHECK_TYPE);
+            NEGATE = lookup.findStatic(ExpressionCompiler.class, "negate",
+                                       MethodType.methodType(boolean.class, boolean.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+        ALWAYS_TRUE = constant(true);
+        ALWAYS_FALSE = constant(false);
+    }
+
+    private ExpressionCompiler() {}
+
+
+    /**
+     * Returns a compiled equivalent of the given expression, or the expression itself when it cannot be compiled.
+     */
+    static <T> Expression<T> compile(Expression<T> expression) {
+        if(expression.kind() == Expression.Kind.COMPILED) {
+            return expression;
+        }
+
+        try {
+            return new Compiled<>(expression, toHandle(expression));
+        } catch (RuntimeException e) {
+            return expression;
+        }
+    }
+
+
+    private static MethodHandle toHandle(Expression<?> expression) {
+        switch (expression.kind()) {
+            case CONSTANT:
+                return ((Expression.Constant<?>) expression).value() ? ALWAYS_TRUE : ALWAYS_FALSE;
+            case LEAF:
+                return INVARIANT_CHECK.bindTo(((Expression.Leaf<?>) expression).invariant());
+            case NOT:
+                return MethodHandles.filterReturnValue(toHandle(((Expression.Not<?>) expression).operand()), NEGATE);
+            case AND:
+                return junction((Junction<?>) expression, true);
+            case OR:
+                return junction((Junction<?>) expression, false);
+            case NAMED:
+                return named((Expression.Named<?>) expression);
+            default:
+                return INVARIANT_CHECK.bindTo(expression);
+        }
+    }
+
+    private static MethodHandle junction(Junction<?> junction, boolean conjunction) {
+        Expression<?>[] operands = junction.operands();
+
+        MethodHandle result = toHandle(operands[operands.length - 1]);
+        for(int i = operands.length - 2; i >= 0; i--) {
+            MethodHandle test = toHandle(operands[i]);
+            result = conjunction
+                    ? MethodHandles.guardWithTest(test, result, ALWAYS_FALSE)
+                    : MethodHandles.guardWithTest(test, ALWAYS_TRUE, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Keeps the named node around its compiled body, so that evaluations are still recorded under its id.
+     */
+    private static <T> MethodHandle named(Expression.Named<T> named) {
+        Expression<T> body = compile(named.body());
+        return INVARIANT_CHECK.bindTo(body == named.body() ? named : new Expression.Named<>(named.id(), body));
+    }
+
+    private static MethodHandle constant(boolean value) {
+        return MethodHandles.dropArguments(MethodHandles.constant(boolean.class, value), 0, Object.class);
+    }
+
+    private static boolean negate(boolean value) {
+        return !value;
+    }
+
+
+    static final class Compiled<T> extends Expression<T> {
+        private final Expression<T> source;
+        private final MethodHandle handle;
+
+        private Compiled(Expression<T> source, MethodHandle handle) {
+            this.source = source;
+            this.handle = handle;
+        }
+
+        @Override
+        Expression<T> plain() {
+            return source;
+        }
+
+        @Override
+        public boolean check(T instance) {
+            try {
+                return (boolean) handle.invokeExact((Object) instance);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new SpecificationException("Compiled specification failed, instance: " + instance, e);
+            }
+        }
+
+        @Override
+        Kind kind() {
+            return Kind.COMPILED;
+        }
+
+        @Override
+        public int hashCode() {
+            return source.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(this == obj) return true;
+            if(!(obj instanceof Compiled)) return false;
+
+            return this.source.equals(((Compiled<?>) obj).source);
+        }
+
+        @Override
+        public String toString() {
+            return "compiled(" + source + ")";
+        }
+    }
+}
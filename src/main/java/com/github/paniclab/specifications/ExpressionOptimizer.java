@@ -0,0 +1,177 @@
+package com.github.paniclab.specifications;
+
+import com.github.paniclab.specifications.Expression.Junction;
+import com.github.paniclab.specifications.Expression.Kind;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Rewrites an expression into its normal form: flattened, constants folded, duplicate operands and comparisons
+ * of the same property merged.
+ */
+final class ExpressionOptimizer {
+
+    private ExpressionOptimizer() {}
+
+
+    /**
+     * Normalizes the root node only, operands are expected to be normalized already. This is the case for every
+     * expression built through {@link Specification} composition.
+     */
+    static <T> Expression<T> normalize(Expression<T> expression) {
+        switch (expression.kind()) {
+            case NOT:
+                return normalizeNot((Expression.Not<T>) expression);
+            case AND:
+            case OR:
+                return normalizeJunction((Junction<T>) expression);
+            case PROPERTY:
+                return normalizeProperty((PropertyExpression<T, ?>) expression);
+            default:
+                return expression;
+        }
+    }
+
+    /**
+     * Normalizes the whole tree, bottom-up.
+     */
+    static <T> Expression<T> normalizeDeep(Expression<T> expression) {
+        switch (expression.kind()) {
+            case NOT:
+                Expression<T> operand = normalizeDeep(((Expression.Not<T>) expression).operand());
+                return normalizeNot(new Expression.Not<>(operand));
+            case AND:
+            case OR:
+                Junction<T> junction = (Junction<T>) expression;
+                Expression<T>[] operands = junction.operands().clone();
+                for(int i = 0; i < operands.length; i++) {
+                    operands[i] = normalizeDeep(operands[i]);
+                }
+                return normalizeJunction(junction.with(operands));
+            case PROPERTY:
+                return normalizeProperty((PropertyExpression<T, ?>) expression);
+            default:
+                return expression;
+        }
+    }
+
+
+    private static <T> Expression<T> normalizeNot(Expression.Not<T> not) {
+        Expression<T> operand = not.operand();
+
+        switch (operand.kind()) {
+            case NOT:
+                return ((Expression.Not<T>) operand).operand();
+            case CONSTANT:
+                return Expression.constant(!((Expression.Constant<T>) operand).value());
+            default:
+                return not;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Expression<T> normalizeJunction(Junction<T> junction) {
+        Kind kind = junction.kind();
+        boolean absorbing = kind == Kind.OR;
+
+        List<Expression<T>> result = new ArrayList<>();
+        Set<Expression<T>> seen = new HashSet<>();
+
+        for(Expression<T> operand : junction.operands()) {
+            Expression<T>[] nested = operand.kind() == kind
+                    ? ((Junction<T>) operand).operands()
+                    : (Expression<T>[]) new Expression<?>[] {operand};
+
+            for(Expression<T> candidate : nested) {
+                if(candidate.kind() == Kind.CONSTANT) {
+                    if(((Expression.Constant<T>) candidate).value() == absorbing) {
+                        return Expression.constant(absorbing);
+                    }
+                    continue;
+                }
+
+                if(seen.add(candidate)) {
+                    result.add(candidate);
+                }
+            }
+        }
+
+        if(!mergeProperties(kind, result)) {
+            return Expression.constant(absorbing);
+        }
+
+        for(Expression<T> candidate : result) {
+            if(candidate.kind() == Kind.NOT && seen.contains(((Expression.Not<T>) candidate).operand())) {
+                return Expression.constant(absorbing);
+            }
+        }
+
+        if(result.isEmpty()) {
+            return Expression.constant(!absorbing);
+        }
+        if(result.size() == 1) {
+            return result.get(0);
+        }
+        if(result.size() == junction.operands().length && !hasNested(junction)) {
+            return junction;
+        }
+
+        return junction.with(result.toArray((Expression<T>[]) new Expression<?>[result.size()]));
+    }
+
+    private static <T> Expression<T> normalizeProperty(PropertyExpression<T, ?> expression) {
+        return expression.isSatisfiable() ? expression : Expression.constant(false);
+    }
+
+    /**
+     * Merges comparisons of the same property in place, returns {@code false} if a conjunction turned out to be
+     * unsatisfiable.
+     */
+    private static <T> boolean mergeProperties(Kind kind, List<Expression<T>> operands) {
+        Map<Property<T, ?>, Integer> positions = null;
+
+        for(int i = 0; i < operands.size(); i++) {
+            if(operands.get(i).kind() != Kind.PROPERTY) {
+                continue;
+            }
+            PropertyExpression<T, ?> comparison = (PropertyExpression<T, ?>) operands.get(i);
+            if(positions == null) {
+                positions = new HashMap<>();
+            }
+
+            Integer position = positions.get(comparison.property());
+            if(position == null) {
+                positions.put(comparison.property(), i);
+                continue;
+            }
+
+            PropertyExpression<T, ?> previous = (PropertyExpression<T, ?>) operands.get(position);
+            PropertyExpression<T, ?> merged = kind == Kind.AND ? previous.intersect(comparison) : previous.union(comparison);
+            if(merged == null) {
+                continue;
+            }
+            if(kind == Kind.AND && !merged.isSatisfiable()) {
+                return false;
+            }
+
+            operands.set(position, merged);
+            operands.remove(i--);
+        }
+        return true;
+    }
+
+    private static boolean hasNested(Junction<?> junction) {
+        for(Expression<?> operand : junction.operands()) {
+            if(operand.kind() == junction.kind()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
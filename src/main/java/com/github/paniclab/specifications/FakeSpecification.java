@@ -4,13 +4,21 @@ import java.util.function.Function;
 
 import static com.github.paniclab.specifications.Specification.not;
 
+@SpecificationType
 public class FakeSpecification extends Specification<String>{
     private String x;
 
+    private FakeSpecification() {
+    }
+
     public FakeSpecification(Function<String, Boolean> invariant) {
         super(String.class, invariant);
     }
 
+    protected FakeSpecification(SpecificationBuilder<String, ? extends Specification<String>> builder) {
+        super(builder);
+    }
+
 
     public static void main(String[] args) {
         Specification<String> toBe = Specification.of(String.class, instance -> true);
@@ -0,0 +1,169 @@
+package com.github.paniclab.specifications;
+
+import com.github.paniclab.invariants.Invariant;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/**
+ * Opt-in metrics of specifications with an id. While disabled an evaluation pays for one volatile read.
+ */
+public final class Instrumentation {
+    static volatile boolean enabled;
+    private static volatile int sampleMask;
+
+    private static final ConcurrentMap<SpecId<?>, SpecificationMetrics> METRICS = new ConcurrentHashMap<>();
+    private static final List<InstrumentationListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    static {
+        for(InstrumentationListener listener : ServiceLoader.load(InstrumentationListener.class)) {
+            LISTENERS.add(listener);
+        }
+    }
+
+
+    private Instrumentation() {}
+
+
+    /**
+     * Enables instrumentation timing every evaluation.
+     */
+    public static void enable() {
+        enable(1);
+    }
+
+    /**
+     * Enables instrumentation timing one of about {@code sampleEvery} evaluations, rounded up to a power of two.
+     * Counts are recorded for every evaluation regardless of sampling.
+     */
+    public static void enable(int sampleEvery) {
+        if(sampleEvery < 1) {
+            throw new SpecificationException("Sampling interval must be positive, got: " + sampleEvery);
+        }
+        int interval = Integer.highestOneBit(sampleEvery);
+        if(interval < sampleEvery) {
+            interval <<= 1;
+        }
+        sampleMask = interval - 1;
+        enabled = true;
+    }
+
+    public static void disable() {
+        enabled = false;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static Optional<MetricsSnapshot> metrics(SpecId<?> id) {
+        SpecificationMetrics metrics = METRICS.get(id);
+        return metrics == null ? Optional.empty() : Optional.of(metrics.snapshot());
+    }
+
+    public static List<MetricsSnapshot> snapshot() {
+        List<MetricsSnapshot> snapshots = new ArrayList<>(METRICS.size());
+        for(SpecificationMetrics metrics : METRICS.values()) {
+            snapshots.add(metrics.snapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * Takes a snapshot of all metrics and hands it to every listener.
+     */
+    public static void publish() {
+        List<MetricsSnapshot> snapshots = snapshot();
+        for(InstrumentationListener listener : LISTENERS) {
+            listener.onSnapshot(snapshots);
+        }
+    }
+
+    public static void reset() {
+        for(SpecificationMetrics metrics : METRICS.values()) {
+            metrics.reset();
+        }
+    }
+
+    public static void addListener(InstrumentationListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static boolean removeListener(InstrumentationListener listener) {
+        return LISTENERS.remove(listener);
+    }
+
+    /**
+     * Wraps the invariant so that its evaluations are recorded under the given id while instrumentation is enabled.
+     */
+    public static <T> Invariant<T> instrument(SpecId<? extends T> id, Invariant<T> invariant) {
+        if(id == null) {
+            throw new SpecificationException("Unable to instrument invariant " + invariant + " without an id");
+        }
+        return instance -> enabled ? check(id, invariant, instance) : invariant.check(instance);
+    }
+
+
+    static <T> boolean check(SpecId<?> id, Invariant<T> invariant, T instance) {
+        SpecificationMetrics metrics = metricsOf(id);
+        boolean timed = sampled();
+        long start = timed ? System.nanoTime() : 0L;
+
+        boolean result;
+        try {
+            result = invariant.check(instance);
+        } catch (RuntimeException e) {
+            metrics.recordException();
+            throw e;
+        }
+
+        record(metrics, timed, start, result);
+        return result;
+    }
+
+    /**
+     * Records the evaluation completing the future, the latency is measured from this call on.
+     */
+    static CompletableFuture<Boolean> record(SpecId<?> id, CompletableFuture<Boolean> evaluation) {
+        SpecificationMetrics metrics = metricsOf(id);
+        boolean timed = sampled();
+        long start = timed ? System.nanoTime() : 0L;
+
+        return evaluation.whenComplete((result, failure) -> {
+            if(failure != null) {
+                metrics.recordException();
+            } else {
+                record(metrics, timed, start, result);
+            }
+        });
+    }
+
+
+    private static SpecificationMetrics metricsOf(SpecId<?> id) {
+        SpecificationMetrics metrics = METRICS.get(id);
+        if(metrics == null) {
+            metrics = METRICS.computeIfAbsent(id, SpecificationMetrics::new);
+        }
+        return metrics;
+    }
+
+    private static boolean sampled() {
+        int mask = sampleMask;
+        return mask == 0 || (ThreadLocalRandom.current().nextInt() & mask) == 0;
+    }
+
+    private static void record(SpecificationMetrics metrics, boolean timed, long start, boolean result) {
+        if(timed) {
+            metrics.recordLatency(System.nanoTime() - start);
+        }
+        metrics.record(result);
+    }
+}
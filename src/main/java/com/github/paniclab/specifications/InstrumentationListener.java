@@ -0,0 +1,12 @@
+package com.github.paniclab.specifications;
+
+import java.util.List;
+
+
+/**
+ * Receives metrics snapshots on {@link Instrumentation#publish()}, service loaded or added explicitly.
+ */
+@FunctionalInterface
+public interface InstrumentationListener {
+    void onSnapshot(List<MetricsSnapshot> snapshots);
+}
@@ -0,0 +1,215 @@
+package com.github.paniclab.specifications;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+
+
+/**
+ * Specification over primitive {@code int} values. Evaluation goes through {@link IntPredicate}, so neither the
+ * value nor the result is boxed.
+ */
+public class IntSpecification {
+    private static final Constant TRUE = new Constant(true);
+    private static final Constant FALSE = new Constant(false);
+    private static final IntSpecification ALWAYS = new IntSpecification(TRUE, null);
+    private static final IntSpecification NEVER = new IntSpecification(FALSE, null);
+    private static final PrimitiveAlgebra<IntPredicate> ALGEBRA = new PrimitiveAlgebra<IntPredicate>() {
+        @Override
+        IntPredicate constant(boolean value) {
+            return value ? TRUE : FALSE;
+        }
+
+        @Override
+        IntPredicate not(IntPredicate operand) {
+            return new IntSpecification.Not(operand);
+        }
+
+        @Override
+        IntPredicate junction(boolean conjunction, List<IntPredicate> operands) {
+            return new IntSpecification.Junction(conjunction, operands.toArray(new IntPredicate[0]));
+        }
+    };
+
+    private final IntPredicate predicate;
+    private final Specification<Integer> registered;
+
+
+    private IntSpecification(IntPredicate predicate, Specification<Integer> registered) {
+        this.predicate = predicate;
+        this.registered = registered;
+    }
+
+
+    public static IntSpecification of(IntPredicate predicate) {
+        if(predicate == null) {
+            throw new SpecificationException("Predicate must not be null");
+        }
+        return new IntSpecification(predicate, null);
+    }
+
+    public static IntSpecification always() {
+        return ALWAYS;
+    }
+
+    public static IntSpecification never() {
+        return NEVER;
+    }
+
+    /**
+     * Specification satisfied by the given values only. The values are copied into a compact structure chosen by
+     * their shape, see {@link Membership.Backing}.
+     */
+    public static IntSpecification in(int[] values) {
+        return in(values, Membership.defaults());
+    }
+
+    public static IntSpecification in(int[] values, Membership membership) {
+        LongPredicate membershipPredicate = LongMembership.of(values, membership);
+        return new IntSpecification(value -> membershipPredicate.test(value), null);
+    }
+
+    public static IntSpecification not(IntSpecification spec) {
+        return spec.not();
+    }
+
+
+    public boolean isSatisfiedBy(int value) {
+        return predicate.test(value);
+    }
+
+    public IntSpecification and(IntSpecification other) {
+        return new IntSpecification(ALGEBRA.combine(true, this.predicate, other.predicate), null);
+    }
+
+    public IntSpecification or(IntSpecification other) {
+        return new IntSpecification(ALGEBRA.combine(false, this.predicate, other.predicate), null);
+    }
+
+    public IntSpecification not() {
+        return new IntSpecification(ALGEBRA.negate(predicate), null);
+    }
+
+    /**
+     * Registers the boxed view of this specification under the id, see {@link Specification#withId(SpecId)}.
+     */
+    public IntSpecification withId(SpecId<Integer> id) {
+        return new IntSpecification(predicate, boxed(predicate).withId(id));
+    }
+
+    @SuppressWarnings("unchecked")
+    public SpecId<Integer> id() {
+        return registered == null ? null : (SpecId<Integer>) registered.id();
+    }
+
+    public IntPredicate asPredicate() {
+        return predicate;
+    }
+
+    /**
+     * Boxed view of this specification, to be combined with object specifications.
+     */
+    public Specification<Integer> boxed() {
+        return registered != null ? registered : boxed(predicate);
+    }
+
+    /**
+     * Returns the set of indices of {@code values} satisfying this specification.
+     */
+    public BitSet selectSatisfying(int[] values) {
+        BitSet result = new BitSet(values.length);
+        IntPredicate predicate = this.predicate;
+        for(int i = 0; i < values.length; i++) {
+            if(predicate.test(values[i])) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the indices of {@code values} satisfying this specification, in ascending order.
+     */
+    public int[] indicesSatisfying(int[] values) {
+        int[] indices = new int[values.length];
+        int count = 0;
+        IntPredicate predicate = this.predicate;
+        for(int i = 0; i < values.length; i++) {
+            if(predicate.test(values[i])) {
+                indices[count++] = i;
+            }
+        }
+        return count == indices.length ? indices : Arrays.copyOf(indices, count);
+    }
+
+    public int countSatisfying(int[] values) {
+        int count = 0;
+        IntPredicate predicate = this.predicate;
+        for(int value : values) {
+            if(predicate.test(value)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+
+    @Override
+    public String toString() {
+        SpecId<Integer> id = id();
+        return "IntSpecification{" +
+                (id == null ? "" : "id=" + id) +
+                '}';
+    }
+
+
+    private static Specification<Integer> boxed(IntPredicate predicate) {
+        return Specification.of(Integer.class, predicate::test);
+    }
+
+
+    private static final class Constant extends PrimitiveAlgebra.Constant implements IntPredicate {
+        private Constant(boolean value) {
+            super(value);
+        }
+
+        @Override
+        public boolean test(int value) {
+            return this.value;
+        }
+    }
+
+
+    private static final class Not extends PrimitiveAlgebra.Not<IntPredicate> implements IntPredicate {
+        private Not(IntPredicate operand) {
+            super(operand);
+        }
+
+        @Override
+        public boolean test(int value) {
+            return !operand.test(value);
+        }
+    }
+
+
+    private static final class Junction extends PrimitiveAlgebra.Junction<IntPredicate> implements IntPredicate {
+        private final IntPredicate[] predicates;
+
+        private Junction(boolean conjunction, IntPredicate[] operands) {
+            super(conjunction, operands);
+            this.predicates = operands;
+        }
+
+        @Override
+        public boolean test(int value) {
+            for(IntPredicate operand : predicates) {
+                if(operand.test(value) != conjunction) {
+                    return !conjunction;
+                }
+            }
+            return conjunction;
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package com.github.paniclab.specifications;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+
+/**
+ * Membership predicates over a fixed list of {@code long} values, one class per backing structure.
+ */
+abstract class LongMembership implements LongPredicate {
+    private static final int SORTED_ARRAY_LIMIT = 64;
+    private static final long BITMAP_DENSITY = 64;
+
+    final int size;
+
+
+    LongMembership(int size) {
+        this.size = size;
+    }
+
+
+    static LongPredicate of(long[] values, Membership membership) {
+        return of(distinct(values.clone()), membership, false);
+    }
+
+    /**
+     * Same as {@link #of(long[], Membership)}, array and table backings keep the values as {@code int}s.
+     */
+    static LongPredicate of(int[] values, Membership membership) {
+        long[] widened = new long[values.length];
+        for(int i = 0; i < values.length; i++) {
+            widened[i] = values[i];
+        }
+        return of(distinct(widened), membership, true);
+    }
+
+    private static LongPredicate of(long[] sorted, Membership membership, boolean narrow) {
+        if(sorted.length == 0) {
+            return value -> false;
+        }
+
+        LongMembership backing = backing(sorted, membership.backing(), narrow);
+        if(membership.bloomFalsePositiveRate() > 0.0) {
+            return new Prefiltered(backing, membership.bloomFalsePositiveRate(), sorted);
+        }
+        return backing;
+    }
+
+    private static LongMembership backing(long[] sorted, Membership.Backing backing, boolean narrow) {
+        switch (backing) {
+            case SORTED_ARRAY:
+                return narrow ? new IntSortedArray(sorted) : new SortedArray(sorted);
+            case OPEN_ADDRESSING:
+                return narrow ? new IntOpenAddressing(sorted) : new OpenAddressing(sorted);
+            case BITMAP:
+                if(!Bitmap.fits(sorted)) {
+                    throw new SpecificationException("Values span too wide a range for a bitmap: [" +
+                            sorted[0] + ", " + sorted[sorted.length - 1] + "]");
+                }
+                return new Bitmap(sorted);
+            case PERFECT_HASH:
+                PerfectHash perfectHash = PerfectHash.build(sorted);
+                if(perfectHash == null) {
+                    return narrow ? new IntOpenAddressing(sorted) : new OpenAddressing(sorted);
+                }
+                return narrow ? new IntPerfectHash(perfectHash) : perfectHash;
+            default:
+                if(Bitmap.fits(sorted) && span(sorted) <= BITMAP_DENSITY * sorted.length) {
+                    return new Bitmap(sorted);
+                }
+                if(sorted.length <= SORTED_ARRAY_LIMIT) {
+                    return narrow ? new IntSortedArray(sorted) : new SortedArray(sorted);
+                }
+                return narrow ? new IntOpenAddressing(sorted) : new OpenAddressing(sorted);
+        }
+    }
+
+    /**
+     * Sorts the given array in place and returns its distinct values.
+     */
+    private static long[] distinct(long[] sorted) {
+        Arrays.sort(sorted);
+        int count = 0;
+        for(int i = 0; i < sorted.length; i++) {
+            if(i == 0 || sorted[i] != sorted[count - 1]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return count == sorted.length ? sorted : Arrays.copyOf(sorted, count);
+    }
+
+    /**
+     * Number of values from the minimum to the maximum, saturated at {@code Long.MAX_VALUE}.
+     */
+    private static long span(long[] sorted) {
+        long span = sorted[sorted.length - 1] - sorted[0];
+        return span < 0 || span == Long.MAX_VALUE ? Long.MAX_VALUE : span + 1;
+    }
+
+
+    private static int[] narrow(long[] values) {
+        int[] narrowed = new int[values.length];
+        for(int i = 0; i < values.length; i++) {
+            narrowed[i] = (int) values[i];
+        }
+        return narrowed;
+    }
+
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(" + size + " values)";
+    }
+
+
+    private static final class SortedArray extends LongMembership {
+        private final long[] values;
+
+        private SortedArray(long[] sorted) {
+            super(sorted.length);
+            this.values = sorted;
+        }
+
+        @Override
+        public boolean test(long value) {
+            return Arrays.binarySearch(values, value) >= 0;
+        }
+    }
+
+
+    /**
+     * Linear probing table, {@code 0} marks a free slot and is tracked separately.
+     */
+    private static final class OpenAddressing extends LongMembership {
+        private final long[] slots;
+        private final int mask;
+        private final boolean containsZero;
+
+        private OpenAddressing(long[] sorted) {
+            super(sorted.length);
+            int capacity = Integer.highestOneBit(Math.max(2, sorted.length) * 2 - 1) << 1;
+            this.slots = new long[capacity];
+            this.mask = capacity - 1;
+
+            boolean zero = false;
+            for(long value : sorted) {
+                if(value == 0L) {
+                    zero = true;
+                    continue;
+                }
+                int index = (int) BloomFilter.mix(value) & mask;
+                while(slots[index] != 0L) {
+                    index = (index + 1) & mask;
+                }
+                slots[index] = value;
+            }
+            this.containsZero = zero;
+        }
+
+        @Override
+        public boolean test(long value) {
+            if(value == 0L) {
+                return containsZero;
+            }
+            int index = (int) BloomFilter.mix(value) & mask;
+            long slot;
+            while((slot = slots[index]) != 0L) {
+                if(slot == value) {
+                    return true;
+                }
+                index = (index + 1) & mask;
+            }
+            return false;
+        }
+    }
+
+
+    private static final class IntSortedArray extends LongMembership {
+        private final int[] values;
+
+        private IntSortedArray(long[] sorted) {
+            super(sorted.length);
+            this.values = narrow(sorted);
+        }
+
+        @Override
+        public boolean test(long value) {
+            return value == (int) value && Arrays.binarySearch(values, (int) value) >= 0;
+        }
+    }
+
+
+    /**
+     * Same as {@link OpenAddressing} over {@code int} slots.
+     */
+    private static final class IntOpenAddressing extends LongMembership {
+        private final int[] slots;
+        private final int mask;
+        private final boolean containsZero;
+
+        private IntOpenAddressing(long[] sorted) {
+            super(sorted.length);
+            int capacity = Integer.highestOneBit(Math.max(2, sorted.length) * 2 - 1) << 1;
+            this.slots = new int[capacity];
+            this.mask = capacity - 1;
+
+            boolean zero = false;
+            for(long value : sorted) {
+                if(value == 0L) {
+                    zero = true;
+                    continue;
+                }
+                int index = (int) BloomFilter.mix(value) & mask;
+                while(slots[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                slots[index] = (int) value;
+            }
+            this.containsZero = zero;
+        }
+
+        @Override
+        public boolean test(long value) {
+            if(value == 0L) {
+                return containsZero;
+            }
+            if(value != (int) value) {
+                return false;
+            }
+            int index = (int) BloomFilter.mix(value) & mask;
+            int slot;
+            while((slot = slots[index]) != 0) {
+                if(slot == value) {
+                    return true;
+                }
+                index = (index + 1) & mask;
+            }
+            return false;
+        }
+    }
+
+
+    private static final class Bitmap extends LongMembership {
+        private final long min;
+        private final long span;
+        private final long[] words;
+
+        private Bitmap(long[] sorted) {
+            super(sorted.length);
+            this.min = sorted[0];
+            this.span = span(sorted);
+            this.words = new long[(int) ((span + Long.SIZE - 1) / Long.SIZE)];
+            for(long value : sorted) {
+                long offset = value - min;
+                words[(int) (offset >>> 6)] |= 1L << offset;
+            }
+        }
+
+        private static boolean fits(long[] sorted) {
+            return span(sorted) <= (long) Integer.MAX_VALUE * Long.SIZE;
+        }
+
+        @Override
+        public boolean test(long value) {
+            long offset = value - min;
+            return offset >= 0 && offset < span && (words[(int) (offset >>> 6)] & 1L << offset) != 0;
+        }
+    }
+
+
+    /**
+     * Hash and displace perfect hash, a lookup reads one displacement and one slot.
+     */
+    private static final class PerfectHash extends LongMembership {
+        private static final double LOAD_FACTOR = 0.8;
+        private static final int BUCKET_SIZE = 4;
+        private static final int MAX_DISPLACEMENT = 1 << 20;
+        private static final int ATTEMPTS = 4;
+        private static final long DISPLACEMENT_STEP = 0x9E3779B97F4A7C15L;
+
+        private final long seed;
+        private final int[] displacements;
+        private final long[] slots;
+
+        private PerfectHash(long[] sorted, long seed, int[] displacements, long[] slots) {
+            super(sorted.length);
+            this.seed = seed;
+            this.displacements = displacements;
+            this.slots = slots;
+        }
+
+        /**
+         * Returns {@code null} if no attempt found displacements for all buckets.
+         */
+        private static PerfectHash build(long[] sorted) {
+            int tableSize = (int) Math.min(Integer.MAX_VALUE - 8, (long) Math.ceil(sorted.length / LOAD_FACTOR));
+            int bucketCount = Math.max(1, (sorted.length + BUCKET_SIZE - 1) / BUCKET_SIZE);
+
+            for(long attempt = 0, seed = 0x5DEECE66DL; attempt < ATTEMPTS; attempt++, seed = BloomFilter.mix(seed + attempt)) {
+                int[] displacements = displace(sorted, seed, bucketCount, tableSize);
+                if(displacements != null) {
+                    long[] slots = new long[tableSize];
+                    Arrays.fill(slots, sorted[0]);
+                    for(long value : sorted) {
+                        slots[slot(value, seed, displacements[bucket(value, seed, bucketCount)], tableSize)] = value;
+                    }
+                    return new PerfectHash(sorted, seed, displacements, slots);
+                }
+            }
+            return null;
+        }
+
+        private static int[] displace(long[] sorted, long seed, int bucketCount, int tableSize) {
+            int[] starts = new int[bucketCount + 1];
+            for(long value : sorted) {
+                starts[bucket(value, seed, bucketCount) + 1]++;
+            }
+            for(int i = 0; i < bucketCount; i++) {
+                starts[i + 1] += starts[i];
+            }
+            long[] grouped = new long[sorted.length];
+            int[] fill = Arrays.copyOf(starts, bucketCount);
+            for(long value : sorted) {
+                grouped[fill[bucket(value, seed, bucketCount)]++] = value;
+            }
+
+            int[] order = bySizeDescending(starts, bucketCount);
+
+            long[] taken = new long[(tableSize + Long.SIZE - 1) / Long.SIZE];
+            int[] displacements = new int[bucketCount];
+            int[] positions = new int[BUCKET_SIZE * 8];
+            for(int bucket : order) {
+                int from = starts[bucket];
+                int count = starts[bucket + 1] - from;
+                if(count == 0) {
+                    break;
+                }
+                if(positions.length < count) {
+                    positions = new int[count];
+                }
+
+                int displacement = 0;
+                while(!place(grouped, from, count, seed, displacement, tableSize, taken, positions)) {
+                    if(++displacement == MAX_DISPLACEMENT) {
+                        return null;
+                    }
+                }
+                displacements[bucket] = displacement;
+            }
+            return displacements;
+        }
+
+        /**
+         * Counting sort of the bucket indices by bucket size, largest first.
+         */
+        private static int[] bySizeDescending(int[] starts, int bucketCount) {
+            int largest = 0;
+            for(int i = 0; i < bucketCount; i++) {
+                largest = Math.max(largest, starts[i + 1] - starts[i]);
+            }
+            int[] offsets = new int[largest + 2];
+            for(int i = 0; i < bucketCount; i++) {
+                offsets[largest - (starts[i + 1] - starts[i]) + 1]++;
+            }
+            for(int i = 0; i <= largest; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            int[] order = new int[bucketCount];
+            for(int i = 0; i < bucketCount; i++) {
+                order[offsets[largest - (starts[i + 1] - starts[i])]++] = i;
+            }
+            return order;
+        }
+
+        private static boolean place(long[] grouped, int from, int count, long seed, int displacement, int tableSize,
+                                     long[] taken, int[] positions) {
+            for(int i = 0; i < count; i++) {
+                int position = slot(grouped[from + i], seed, displacement, tableSize);
+                if((taken[position >>> 6] & 1L << position) != 0) {
+                    for(int j = 0; j < i; j++) {
+                        taken[positions[j] >>> 6] &= ~(1L << positions[j]);
+                    }
+                    return false;
+                }
+                taken[position >>> 6] |= 1L << position;
+                positions[i] = position;
+            }
+            return true;
+        }
+
+        private static int bucket(long value, long seed, int bucketCount) {
+            return reduce(BloomFilter.mix(value ^ seed), bucketCount);
+        }
+
+        private static int slot(long value, long seed, int displacement, int tableSize) {
+            return reduce(BloomFilter.mix(value + seed + displacement * DISPLACEMENT_STEP), tableSize);
+        }
+
+        /**
+         * Maps the upper half of the hash onto {@code [0, range)} by a multiplication instead of a division.
+         */
+        private static int reduce(long hash, int range) {
+            return (int) (((hash >>> 32) * range) >>> 32);
+        }
+
+        @Override
+        public boolean test(long value) {
+            int bucket = bucket(value, seed, displacements.length);
+            return slots[slot(value, seed, displacements[bucket], slots.length)] == value;
+        }
+    }
+
+
+    /**
+     * Same as {@link PerfectHash} over {@code int} slots.
+     */
+    private static final class IntPerfectHash extends LongMembership {
+        private final long seed;
+        private final int[] displacements;
+        private final int[] slots;
+
+        private IntPerfectHash(PerfectHash source) {
+            super(source.size);
+            this.seed = source.seed;
+            this.displacements = source.displacements;
+            this.slots = narrow(source.slots);
+        }
+
+        @Override
+        public boolean test(long value) {
+            int bucket = PerfectHash.bucket(value, seed, displacements.length);
+            return value == (int) value &&
+                    slots[PerfectHash.slot(value, seed, displacements[bucket], slots.length)] == value;
+        }
+    }
+
+
+    private static final class Prefiltered implements LongPredicate {
+        private final LongMembership backing;
+        private final BloomFilter filter;
+
+        private Prefiltered(LongMembership backing, double falsePositiveRate, long[] sorted) {
+            this.backing = backing;
+            this.filter = new BloomFilter(sorted.length, falsePositiveRate);
+            for(long value : sorted) {
+                filter.put(BloomFilter.mix(value));
+            }
+        }
+
+        @Override
+        public boolean test(long value) {
+            return filter.mightContain(BloomFilter.mix(value)) && backing.test(value);
+        }
+
+        @Override
+        public String toString() {
+            return "bloom(" + backing + ")";
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.github.paniclab.specifications;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.LongPredicate;
+
+
+/**
+ * Specification over primitive {@code long} values. Evaluation goes through {@link LongPredicate}, so neither the
+ * value nor the result is boxed.
+ */
+public class LongSpecification {
+    private static final Constant TRUE = new Constant(true);
+    private static final Constant FALSE = new Constant(false);
+    private static final LongSpecification ALWAYS = new LongSpecification(TRUE, null);
+    private static final LongSpecification NEVER = new LongSpecification(FALSE, null);
+    private static final PrimitiveAlgebra<LongPredicate> ALGEBRA = new PrimitiveAlgebra<LongPredicate>() {
+        @Override
+        LongPredicate constant(boolean value) {
+            return value ? TRUE : FALSE;
+        }
+
+        @Override
+        LongPredicate not(LongPredicate operand) {
+            return new LongSpecification.Not(operand);
+        }
+
+        @Override
+        LongPredicate junction(boolean conjunction, List<LongPredicate> operands) {
+            return new LongSpecification.Junction(conjunction, operands.toArray(new LongPredicate[0]));
+        }
+    };
+
+    private final LongPredicate predicate;
+    private final Specification<Long> registered;
+
+
+    private LongSpecification(LongPredicate predicate, Specification<Long> registered) {
+        this.predicate = predicate;
+        this.registered = registered;
+    }
+
+
+    public static LongSpecification of(LongPredicate predicate) {
+        if(predicate == null) {
+            throw new SpecificationException("Predicate must not be null");
+        }
+        return new LongSpecification(predicate, null);
+    }
+
+    public static LongSpecification always() {
+        return ALWAYS;
+    }
+
+    public static LongSpecification never() {
+        return NEVER;
+    }
+
+    /**
+     * Specification satisfied by the given values only. The values are copied into a compact structure chosen by
+     * their shape, see {@link Membership.Backing}.
+     */
+    public static LongSpecification in(long[] values) {
+        return in(values, Membership.defaults());
+    }
+
+    public static LongSpecification in(long[] values, Membership membership) {
+        return new LongSpecification(LongMembership.of(values, membership), null);
+    }
+
+    public static LongSpecification not(LongSpecification spec) {
+        return spec.not();
+    }
+
+
+    public boolean isSatisfiedBy(long value) {
+        return predicate.test(value);
+    }
+
+    public LongSpecification and(LongSpecification other) {
+        return new LongSpecification(ALGEBRA.combine(true, this.predicate, other.predicate), null);
+    }
+
+    public LongSpecification or(LongSpecification other) {
+        return new LongSpecification(ALGEBRA.combine(false, this.predicate, other.predicate), null);
+    }
+
+    public LongSpecification not() {
+        return new LongSpecification(ALGEBRA.negate(predicate), null);
+    }
+
+    /**
+     * Registers the boxed view of this specification under the id, see {@link Specification#withId(SpecId)}.
+     */
+    public LongSpecification withId(SpecId<Long> id) {
+        return new LongSpecification(predicate, boxed(predicate).withId(id));
+    }
+
+    @SuppressWarnings("unchecked")
+    public SpecId<Long> id() {
+        return registered == null ? null : (SpecId<Long>) registered.id();
+    }
+
+    public LongPredicate asPredicate() {
+        return predicate;
+    }
+
+    /**
+     * Boxed view of this specification, to be combined with object specifications.
+     */
+    public Specification<Long> boxed() {
+        return registered != null ? registered : boxed(predicate);
+    }
+
+    /**
+     * Returns the set of indices of {@code values} satisfying this specification.
+     */
+    public BitSet selectSatisfying(long[] values) {
+        BitSet result = new BitSet(values.length);
+        LongPredicate predicate = this.predicate;
+        for(int i = 0; i < values.length; i++) {
+            if(predicate.test(values[i])) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the indices of {@code values} satisfying this specification, in ascending order.
+     */
+    public int[] indicesSatisfying(long[] values) {
+        int[] indices = new int[values.length];
+        int count = 0;
+        LongPredicate predicate = this.predicate;
+        for(int i = 0; i < values.length; i++) {
+            if(predicate.test(values[i])) {
+                indices[count++] = i;
+            }
+        }
+        return count == indices.length ? indices : Arrays.copyOf(indices, count);
+    }
+
+    public int countSatisfying(long[] values) {
+        int count = 0;
+        LongPredicate predicate = this.predicate;
+        for(long value : values) {
+            if(predicate.test(value)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+
+    @Override
+    public String toString() {
+        SpecId<Long> id = id();
+        return "LongSpecification{" +
+                (id == null ? "" : "id=" + id) +
+                '}';
+    }
+
+
+    private static Specification<Long> boxed(LongPredicate predicate) {
+        return Specification.of(Long.class, predicate::test);
+    }
+
+
+    private static final class Constant extends PrimitiveAlgebra.Constant implements LongPredicate {
+        private Constant(boolean value) {
+            super(value);
+        }
+
+        @Override
+        public boolean test(long value) {
+            return this.value;
+        }
+    }
+
+
+    private static final class Not extends PrimitiveAlgebra.Not<LongPredicate> implements LongPredicate {
+        private Not(LongPredicate operand) {
+            super(operand);
+        }
+
+        @Override
+        public boolean test(long value) {
+            return !operand.test(value);
+        }
+    }
+
+
+    private static final class Junction extends PrimitiveAlgebra.Junction<LongPredicate> implements LongPredicate {
+        private final LongPredicate[] predicates;
+
+        private Junction(boolean conjunction, LongPredicate[] operands) {
+            super(conjunction, operands);
+            this.predicates = operands;
+        }
+
+        @Override
+        public boolean test(long value) {
+            for(LongPredicate operand : predicates) {
+                if(operand.test(value) != conjunction) {
+                    return !conjunction;
+                }
+            }
+            return conjunction;
+        }
+    }
+}
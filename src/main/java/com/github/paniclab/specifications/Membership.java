@@ -0,0 +1,101 @@
+package com.github.paniclab.specifications;
+
+
+/**
+ * Settings of a membership specification, see {@link LongSpecification#in(long[], Membership)},
+ * {@link IntSpecification#in(int[], Membership)} and {@link Specification#in(Class, java.util.Collection, Membership)}.
+ */
+public final class Membership {
+    private static final Membership DEFAULT = builder().build();
+
+    private final Backing backing;
+    private final double bloomFalsePositiveRate;
+
+
+    private Membership(Builder builder) {
+        this.backing = builder.backing;
+        this.bloomFalsePositiveRate = builder.bloomFalsePositiveRate;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    static Membership defaults() {
+        return DEFAULT;
+    }
+
+
+    public Backing backing() {
+        return backing;
+    }
+
+    /**
+     * False positive rate of the Bloom prefilter, {@code 0} if there is none.
+     */
+    public double bloomFalsePositiveRate() {
+        return bloomFalsePositiveRate;
+    }
+
+
+    @Override
+    public String toString() {
+        return "Membership{" +
+                "backing=" + backing +
+                ", bloomFalsePositiveRate=" + bloomFalsePositiveRate +
+                '}';
+    }
+
+
+    /**
+     * Structure holding the values of a primitive membership specification. Object membership specifications are
+     * always backed by an open addressing table.
+     */
+    public enum Backing {
+        /** Bitmap for dense values, a sorted array for short lists and open addressing otherwise. */
+        AUTO,
+        /** Sorted array searched by bisection, 8 bytes per value. */
+        SORTED_ARRAY,
+        /** Linear probing table at most half full, 16 to 32 bytes per value. */
+        OPEN_ADDRESSING,
+        /** One bit per value between the minimum and the maximum. */
+        BITMAP,
+        /**
+         * Hash and displace perfect hash, about 11 bytes per value. A lookup reads two random locations, so it is
+         * slower than open addressing on lists exceeding the CPU caches.
+         */
+        PERFECT_HASH
+    }
+
+
+    public static final class Builder {
+        private Backing backing = Backing.AUTO;
+        private double bloomFalsePositiveRate;
+
+        private Builder() {}
+
+        public Builder withBacking(Backing backing) {
+            if(backing == null) {
+                throw new SpecificationException("Backing must not be null");
+            }
+            this.backing = backing;
+            return this;
+        }
+
+        /**
+         * Puts a Bloom filter in front of the backing structure, so that most values not in the list are rejected
+         * without touching it. Pays off when most values looked up are absent.
+         */
+        public Builder withBloomFilter(double falsePositiveRate) {
+            if(!(falsePositiveRate > 0.0 && falsePositiveRate < 1.0)) {
+                throw new SpecificationException("False positive rate must be within (0, 1), got: " + falsePositiveRate);
+            }
+            this.bloomFalsePositiveRate = falsePositiveRate;
+            return this;
+        }
+
+        public Membership build() {
+            return new Membership(this);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.paniclab.specifications;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Settings of a memoized specification, see {@link Specification#memoized(Memoization)}.
+ */
+public final class Memoization {
+    private final KeyType keyType;
+    private final boolean weakKeys;
+    private final int maximumSize;
+    private final long expireAfterWriteNanos;
+    private final int concurrencyLevel;
+
+
+    private Memoization(Builder builder) {
+        this.keyType = builder.keyType;
+        this.weakKeys = builder.weakKeys;
+        this.maximumSize = builder.maximumSize;
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+        this.concurrencyLevel = builder.concurrencyLevel;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+
+    public KeyType keyType() {
+        return keyType;
+    }
+
+    public boolean weakKeys() {
+        return weakKeys;
+    }
+
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    public long expireAfterWriteNanos() {
+        return expireAfterWriteNanos;
+    }
+
+    public int concurrencyLevel() {
+        return concurrencyLevel;
+    }
+
+
+    @Override
+    public String toString() {
+        return "Memoization{" +
+                "keyType=" + keyType +
+                ", weakKeys=" + weakKeys +
+                ", maximumSize=" + maximumSize +
+                ", expireAfterWriteNanos=" + expireAfterWriteNanos +
+                ", concurrencyLevel=" + concurrencyLevel +
+                '}';
+    }
+
+
+    public enum KeyType {
+        IDENTITY,
+        EQUALITY
+    }
+
+
+    public static final class Builder {
+        private KeyType keyType = KeyType.EQUALITY;
+        private boolean weakKeys;
+        private int maximumSize = 10_000;
+        private long expireAfterWriteNanos;
+        private int concurrencyLevel = Runtime.getRuntime().availableProcessors();
+
+        private Builder() {}
+
+        public Builder withIdentityKeys() {
+            this.keyType = KeyType.IDENTITY;
+            return this;
+        }
+
+        public Builder withEqualityKeys() {
+            this.keyType = KeyType.EQUALITY;
+            return this;
+        }
+
+        /**
+         * Entries are dropped once their key is no longer strongly reachable. The maximum size still applies.
+         */
+        public Builder withWeakKeys() {
+            this.weakKeys = true;
+            return this;
+        }
+
+        /**
+         * Least recently used entries are evicted beyond this size. The bound is enforced per lock stripe, so the
+         * effective size may be a little smaller.
+         */
+        public Builder withMaximumSize(int maximumSize) {
+            if(maximumSize < 1) {
+                throw new SpecificationException("Maximum size must be positive, got: " + maximumSize);
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public Builder withExpireAfterWrite(long duration, TimeUnit unit) {
+            if(duration < 1) {
+                throw new SpecificationException("Expiration must be positive, got: " + duration);
+            }
+            this.expireAfterWriteNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        public Builder withConcurrencyLevel(int concurrencyLevel) {
+            if(concurrencyLevel < 1) {
+                throw new SpecificationException("Concurrency level must be positive, got: " + concurrencyLevel);
+            }
+            this.concurrencyLevel = concurrencyLevel;
+            return this;
+        }
+
+        public Memoization build() {
+            return new Memoization(this);
+        }
+    }
+}
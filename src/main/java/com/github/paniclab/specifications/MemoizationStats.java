@@ -0,0 +1,53 @@
+package com.github.paniclab.specifications;
+
+
+/**
+ * Point in time counters of a memoized specification.
+ */
+public final class MemoizationStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long size;
+
+
+    MemoizationStats(long hits, long misses, long evictions, long size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+
+    public long hits() {
+        return hits;
+    }
+
+    public long misses() {
+        return misses;
+    }
+
+    public long evictions() {
+        return evictions;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+
+
+    @Override
+    public String toString() {
+        return "MemoizationStats{" +
+                "hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", size=" + size +
+                '}';
+    }
+}
@@ -0,0 +1,266 @@
+package com.github.paniclab.specifications;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * Expression caching the results of its operand per instance in bounded LRU stripes.
+ */
+final class MemoizedExpression<T> extends Expression<T> {
+    private static final Result TRUE = new Result(true, 0L);
+    private static final Result FALSE = new Result(false, 0L);
+
+    private final Expression<T> operand;
+    private final Memoization memoization;
+    private final Segment[] segments;
+    private final boolean identity;
+    private final boolean wrapKeys;
+    private final long expireAfterWriteNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+
+    MemoizedExpression(Expression<T> operand, Memoization memoization) {
+        this.operand = operand;
+        this.memoization = memoization;
+        this.identity = memoization.keyType() == Memoization.KeyType.IDENTITY;
+        this.wrapKeys = identity || memoization.weakKeys();
+        this.expireAfterWriteNanos = memoization.expireAfterWriteNanos();
+
+        int stripes = 1;
+        while(stripes < memoization.concurrencyLevel() && stripes < memoization.maximumSize()) {
+            stripes <<= 1;
+        }
+        int capacity = Math.max(1, memoization.maximumSize() / stripes);
+
+        this.segments = new Segment[stripes];
+        for(int i = 0; i < stripes; i++) {
+            segments[i] = new Segment(capacity, evictions);
+        }
+    }
+
+
+    Expression<T> operand() {
+        return operand;
+    }
+
+    Memoization memoization() {
+        return memoization;
+    }
+
+    @Override
+    public boolean check(T instance) {
+        if(instance == null) {
+            return operand.check(null);
+        }
+
+        int hash = spread(identity ? System.identityHashCode(instance) : instance.hashCode());
+        Segment segment = segments[hash & (segments.length - 1)];
+        Object key = wrapKeys ? new StrongKey(instance, hash, identity) : instance;
+        long now = expireAfterWriteNanos > 0 ? System.nanoTime() : 0L;
+
+        segment.lock();
+        try {
+            segment.expungeStaleKeys();
+            Result result = segment.map.get(key);
+            if(result != null) {
+                if(expireAfterWriteNanos == 0 || now - result.writtenAt < expireAfterWriteNanos) {
+                    hits.increment();
+                    return result.value;
+                }
+                segment.map.remove(key);
+            }
+        } finally {
+            segment.unlock();
+        }
+
+        misses.increment();
+        boolean value = operand.check(instance);
+
+        Object storedKey = memoization.weakKeys() ? new WeakKey(instance, hash, identity, segment.queue) : key;
+        Result result = expireAfterWriteNanos > 0 ? new Result(value, now) : value ? TRUE : FALSE;
+
+        segment.lock();
+        try {
+            segment.expungeStaleKeys();
+            segment.map.put(storedKey, result);
+        } finally {
+            segment.unlock();
+        }
+
+        return value;
+    }
+
+    MemoizationStats stats() {
+        long size = 0;
+        for(Segment segment : segments) {
+            segment.lock();
+            try {
+                segment.expungeStaleKeys();
+                size += segment.map.size();
+            } finally {
+                segment.unlock();
+            }
+        }
+        return new MemoizationStats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    @Override
+    Kind kind() {
+        return Kind.MEMOIZED;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * operand.hashCode() + System.identityHashCode(this);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj;
+    }
+
+    @Override
+    public String toString() {
+        return "memoized(" + operand + ")";
+    }
+
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+
+    private static final class Segment extends ReentrantLock {
+        private static final long serialVersionUID = 1L;
+
+        private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+        private final LinkedHashMap<Object, Result> map;
+        private final LongAdder evictions;
+
+        private Segment(int capacity, LongAdder evictions) {
+            this.evictions = evictions;
+            this.map = new LinkedHashMap<Object, Result>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Object, Result> eldest) {
+                    if(size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        private void expungeStaleKeys() {
+            Reference<?> stale;
+            while((stale = queue.poll()) != null) {
+                if(map.remove(stale) != null) {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+
+    private static final class Result {
+        private final boolean value;
+        private final long writtenAt;
+
+        private Result(boolean value, long writtenAt) {
+            this.value = value;
+            this.writtenAt = writtenAt;
+        }
+    }
+
+
+    private interface Key {
+        Object referent();
+        boolean identity();
+    }
+
+    private static boolean keysEqual(Key key, Object obj) {
+        if(key == obj) return true;
+        if(!(obj instanceof Key)) return false;
+
+        Object referent = key.referent();
+        Object other = ((Key) obj).referent();
+        if(referent == null || other == null) return false;
+
+        return key.identity() ? referent == other : Objects.equals(referent, other);
+    }
+
+
+    private static final class StrongKey implements Key {
+        private final Object referent;
+        private final int hash;
+        private final boolean identity;
+
+        private StrongKey(Object referent, int hash, boolean identity) {
+            this.referent = referent;
+            this.hash = hash;
+            this.identity = identity;
+        }
+
+        @Override
+        public Object referent() {
+            return referent;
+        }
+
+        @Override
+        public boolean identity() {
+            return identity;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return keysEqual(this, obj);
+        }
+    }
+
+
+    private static final class WeakKey extends WeakReference<Object> implements Key {
+        private final int hash;
+        private final boolean identity;
+
+        private WeakKey(Object referent, int hash, boolean identity, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hash = hash;
+            this.identity = identity;
+        }
+
+        @Override
+        public Object referent() {
+            return get();
+        }
+
+        @Override
+        public boolean identity() {
+            return identity;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return keysEqual(this, obj);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.paniclab.specifications;
+
+import java.util.Arrays;
+
+
+/**
+ * Point in time metrics of one specification id, see {@link Instrumentation}. Pass and failure counts cover every
+ * evaluation, the latency histogram only the sampled ones.
+ */
+public final class MetricsSnapshot {
+    private final SpecId<?> id;
+    private final long passes;
+    private final long failures;
+    private final long exceptions;
+    private final long[] latencyHistogram;
+
+
+    MetricsSnapshot(SpecId<?> id, long passes, long failures, long exceptions, long[] latencyHistogram) {
+        this.id = id;
+        this.passes = passes;
+        this.failures = failures;
+        this.exceptions = exceptions;
+        this.latencyHistogram = latencyHistogram;
+    }
+
+
+    public SpecId<?> id() {
+        return id;
+    }
+
+    public long evaluations() {
+        return passes + failures + exceptions;
+    }
+
+    public long passes() {
+        return passes;
+    }
+
+    public long failures() {
+        return failures;
+    }
+
+    public long exceptions() {
+        return exceptions;
+    }
+
+    public double passRate() {
+        long completed = passes + failures;
+        return completed == 0 ? 0.0 : (double) passes / completed;
+    }
+
+    public long sampled() {
+        long sampled = 0;
+        for(long count : latencyHistogram) {
+            sampled += count;
+        }
+        return sampled;
+    }
+
+    /**
+     * Power of two latency buckets in nanoseconds, bucket {@code i} holds evaluations shorter than {@code 2^i} ns.
+     */
+    public long[] latencyHistogram() {
+        return latencyHistogram.clone();
+    }
+
+    /**
+     * Upper bound in nanoseconds of the bucket holding the given percentile of sampled latencies, {@code 0} if no
+     * evaluation was sampled.
+     */
+    public long latencyPercentile(double percentile) {
+        if(percentile < 0.0 || percentile > 100.0) {
+            throw new SpecificationException("Percentile must be within [0, 100], got: " + percentile);
+        }
+
+        long sampled = sampled();
+        if(sampled == 0) {
+            return 0L;
+        }
+
+        long rank = Math.max(1L, (long) Math.ceil(sampled * percentile / 100.0));
+        long seen = 0;
+        for(int i = 0; i < latencyHistogram.length; i++) {
+            seen += latencyHistogram[i];
+            if(seen >= rank) {
+                return i == 0 ? 0L : (1L << i) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+
+    @Override
+    public String toString() {
+        return "MetricsSnapshot{" +
+                "id=" + id +
+                ", passes=" + passes +
+                ", failures=" + failures +
+                ", exceptions=" + exceptions +
+                ", latencyHistogram=" + Arrays.toString(latencyHistogram) +
+                '}';
+    }
+}
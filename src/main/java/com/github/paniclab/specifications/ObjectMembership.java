@@ -0,0 +1,91 @@
+package com.github.paniclab.specifications;
+
+import com.github.paniclab.invariants.Invariant;
+
+import java.util.Collection;
+
+
+/**
+ * Membership invariant over a fixed collection of objects: a linear probing table at most half full holding the
+ * elements and their hashes next to each other, no entry objects as in {@link java.util.HashSet}.
+ */
+final class ObjectMembership<T> implements Invariant<T> {
+    private final Object[] elements;
+    private final int[] hashes;
+    private final int mask;
+    private final boolean containsNull;
+    private final int size;
+    private final BloomFilter filter;
+
+
+    ObjectMembership(Collection<? extends T> values, Membership membership) {
+        int capacity = Integer.highestOneBit(Math.max(2, values.size()) * 2 - 1) << 1;
+        this.elements = new Object[capacity];
+        this.hashes = new int[capacity];
+        this.mask = capacity - 1;
+        this.filter = membership.bloomFalsePositiveRate() > 0.0
+                ? new BloomFilter(values.size(), membership.bloomFalsePositiveRate())
+                : null;
+
+        boolean nullElement = false;
+        int count = 0;
+        for(T value : values) {
+            if(value == null) {
+                nullElement = true;
+                continue;
+            }
+            if(insert(value)) {
+                count++;
+            }
+        }
+        this.containsNull = nullElement;
+        this.size = count + (nullElement ? 1 : 0);
+    }
+
+
+    private boolean insert(Object value) {
+        int hash = value.hashCode();
+        int index = (int) BloomFilter.mix(hash) & mask;
+        Object element;
+        while((element = elements[index]) != null) {
+            if(hashes[index] == hash && element.equals(value)) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        elements[index] = value;
+        hashes[index] = hash;
+        if(filter != null) {
+            filter.put(BloomFilter.mix(hash));
+        }
+        return true;
+    }
+
+    @Override
+    public boolean check(T instance) {
+        if(instance == null) {
+            return containsNull;
+        }
+
+        int hash = instance.hashCode();
+        long mixed = BloomFilter.mix(hash);
+        if(filter != null && !filter.mightContain(mixed)) {
+            return false;
+        }
+
+        int index = (int) mixed & mask;
+        Object element;
+        while((element = elements[index]) != null) {
+            if(hashes[index] == hash && element.equals(instance)) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "in(" + size + " values)";
+    }
+}
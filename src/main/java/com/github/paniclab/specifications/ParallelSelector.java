@@ -0,0 +1,135 @@
+package com.github.paniclab.specifications;
+
+import com.github.paniclab.invariants.Invariant;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+
+/**
+ * Splits the source with its spliterator and filters the parts concurrently. Parts are filtered into plain lists,
+ * so nothing is hashed before the requested {@link Specification.Selection} is applied to the joined result.
+ */
+final class ParallelSelector<T> {
+    static final int DEFAULT_THRESHOLD = 1 << 13;
+
+    private final Invariant<T> invariant;
+    private final int threshold;
+
+
+    ParallelSelector(Invariant<T> invariant, int threshold) {
+        if(threshold < 1) {
+            throw new SpecificationException("Threshold must be positive, got: " + threshold);
+        }
+        this.invariant = invariant;
+        this.threshold = threshold;
+    }
+
+
+    Collection<T> select(Collection<? extends T> source, Specification.Selection selection, Executor executor) {
+        List<T> matches;
+        if(source.size() <= threshold) {
+            matches = new ArrayList<>();
+            filter(source.spliterator(), matches);
+        } else if(executor instanceof ForkJoinPool) {
+            matches = ((ForkJoinPool) executor).invoke(new SelectTask(source.spliterator()));
+        } else {
+            matches = selectChunked(source, executor);
+        }
+
+        return collect(matches, selection);
+    }
+
+    static <T> Collection<T> collect(List<T> matches, Specification.Selection selection) {
+        switch (selection) {
+            case ORDERED:
+                return matches;
+            case IDENTITY:
+                Collection<T> identitySet = Collections.newSetFromMap(new IdentityHashMap<>(matches.size()));
+                identitySet.addAll(matches);
+                return identitySet;
+            case HASHED:
+            default:
+                return new HashSet<>(matches);
+        }
+    }
+
+
+    private List<T> selectChunked(Collection<? extends T> source, Executor executor) {
+        List<Spliterator<? extends T>> chunks = new ArrayList<>();
+        split(source.spliterator(), chunks);
+
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>(chunks.size());
+        for(Spliterator<? extends T> chunk : chunks) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                List<T> part = new ArrayList<>();
+                filter(chunk, part);
+                return part;
+            }, executor));
+        }
+
+        List<T> matches = new ArrayList<>();
+        try {
+            for(CompletableFuture<List<T>> future : futures) {
+                matches.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        return matches;
+    }
+
+    private void split(Spliterator<? extends T> spliterator, List<Spliterator<? extends T>> chunks) {
+        Spliterator<? extends T> prefix;
+        while(spliterator.estimateSize() > threshold && (prefix = spliterator.trySplit()) != null) {
+            split(prefix, chunks);
+        }
+        chunks.add(spliterator);
+    }
+
+    private void filter(Spliterator<? extends T> spliterator, List<T> matches) {
+        spliterator.forEachRemaining(instance -> {
+            if(invariant.check(instance)) {
+                matches.add(instance);
+            }
+        });
+    }
+
+
+    private final class SelectTask extends RecursiveTask<List<T>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Spliterator<? extends T> spliterator;
+
+        private SelectTask(Spliterator<? extends T> spliterator) {
+            this.spliterator = spliterator;
+        }
+
+        @Override
+        protected List<T> compute() {
+            Spliterator<? extends T> prefix;
+            if(spliterator.estimateSize() <= threshold || (prefix = spliterator.trySplit()) == null) {
+                List<T> matches = new ArrayList<>();
+                filter(spliterator, matches);
+                return matches;
+            }
+
+            SelectTask left = new SelectTask(prefix);
+            left.fork();
+            List<T> right = new SelectTask(spliterator).compute();
+            List<T> matches = left.join();
+            matches.addAll(right);
+            return matches;
+        }
+    }
+}
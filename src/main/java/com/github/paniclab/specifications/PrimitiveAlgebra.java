@@ -0,0 +1,96 @@
+package com.github.paniclab.specifications;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Normal form shared by the primitive specifications, {@code P} is their predicate type. Every primitive type
+ * supplies its own nodes, which extend the ones below.
+ */
+abstract class PrimitiveAlgebra<P> {
+
+    abstract P constant(boolean value);
+
+    abstract P not(P operand);
+
+    abstract P junction(boolean conjunction, List<P> operands);
+
+
+    @SuppressWarnings("unchecked")
+    final P negate(P predicate) {
+        if(predicate instanceof Not) {
+            return ((Not<P>) predicate).operand;
+        }
+        if(predicate instanceof Constant) {
+            return constant(!((Constant) predicate).value);
+        }
+        return not(predicate);
+    }
+
+    /**
+     * Flattens nested junctions of the same kind, folds constants and drops duplicate operands.
+     */
+    @SuppressWarnings("unchecked")
+    final P combine(boolean conjunction, P left, P right) {
+        List<P> operands = new ArrayList<>();
+        for(P operand : Arrays.asList(left, right)) {
+            if(operand instanceof Junction && ((Junction<P>) operand).conjunction == conjunction) {
+                operands.addAll(Arrays.asList(((Junction<P>) operand).operands));
+            } else {
+                operands.add(operand);
+            }
+        }
+
+        List<P> result = new ArrayList<>(operands.size());
+        for(P operand : operands) {
+            if(operand instanceof Constant) {
+                if(((Constant) operand).value != conjunction) {
+                    return operand;
+                }
+                continue;
+            }
+            if(!result.contains(operand)) {
+                result.add(operand);
+            }
+        }
+
+        if(result.isEmpty()) {
+            return constant(conjunction);
+        }
+        if(result.size() == 1) {
+            return result.get(0);
+        }
+        return junction(conjunction, result);
+    }
+
+
+    abstract static class Constant {
+        final boolean value;
+
+        Constant(boolean value) {
+            this.value = value;
+        }
+    }
+
+
+    abstract static class Not<P> {
+        final P operand;
+
+        Not(P operand) {
+            this.operand = operand;
+        }
+    }
+
+
+    abstract static class Junction<P> {
+        final boolean conjunction;
+        final P[] operands;
+
+        Junction(boolean conjunction, P[] operands) {
+            this.conjunction = conjunction;
+            this.operands = operands;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.github.paniclab.specifications;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+
+/**
+ * Value extracted from a subject, see {@link Specification#property(Class, Function)}. Named properties are equal
+ * when they share the subject and the name, whatever their extractors, anonymous ones only to themselves. Conditions
+ * on equal properties are merged by the optimizer, a {@code null} value satisfies none of them.
+ */
+public final class Property<T, P extends Comparable<? super P>> {
+    private final Class<T> subject;
+    private final Function<? super T, ? extends P> extractor;
+    private final String name;
+
+
+    Property(Class<T> subject, Function<? super T, ? extends P> extractor) {
+        this(subject, null, extractor);
+    }
+
+    Property(Class<T> subject, String name, Function<? super T, ? extends P> extractor) {
+        this.subject = Objects.requireNonNull(subject);
+        this.name = name;
+        this.extractor = Objects.requireNonNull(extractor);
+    }
+
+
+    public Specification<T> equalTo(P value) {
+        return in(Arrays.asList(value));
+    }
+
+    @SafeVarargs
+    public final Specification<T> in(P...values) {
+        return in(Arrays.asList(values));
+    }
+
+    public Specification<T> in(Collection<? extends P> values) {
+        Set<P> allowed = new HashSet<>(values.size() * 2);
+        for(P value : values) {
+            allowed.add(bound(value));
+        }
+        return comparison(new PropertyExpression<>(this, null, false, null, false, allowed));
+    }
+
+    public Specification<T> greaterThan(P value) {
+        return comparison(new PropertyExpression<>(this, bound(value), false, null, false, null));
+    }
+
+    public Specification<T> greaterThanOrEqualTo(P value) {
+        return comparison(new PropertyExpression<>(this, bound(value), true, null, false, null));
+    }
+
+    public Specification<T> lessThan(P value) {
+        return comparison(new PropertyExpression<>(this, null, false, bound(value), false, null));
+    }
+
+    public Specification<T> lessThanOrEqualTo(P value) {
+        return comparison(new PropertyExpression<>(this, null, false, bound(value), true, null));
+    }
+
+    /**
+     * Both bounds are inclusive.
+     */
+    public Specification<T> between(P lower, P upper) {
+        return comparison(new PropertyExpression<>(this, bound(lower), true, bound(upper), true, null));
+    }
+
+    public Class<T> subject() {
+        return subject;
+    }
+
+    /**
+     * Name of the property, {@code null} for anonymous ones. Comparisons on a named property declare that they read
+     * only this property, see {@link Specification#invariants()}.
+     */
+    public String name() {
+        return name;
+    }
+
+    P extract(T instance) {
+        return extractor.apply(instance);
+    }
+
+
+    private P bound(P value) {
+        if(value == null) {
+            throw new SpecificationException("Unable to compare property of " + subject.getName() + " with null");
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Specification<T> comparison(PropertyExpression<T, P> expression) {
+        SpecificationBuilder<T, Specification<T>> builder =
+                new SpecificationBuilder<>(subject, (Class<Specification<T>>) (Class<?>) Specification.class);
+
+        return builder.withExpression(ExpressionOptimizer.normalize(expression))
+                      .withCompareApproach(Specification.CompareApproach.COMPARISON)
+                      .build();
+    }
+
+
+    @Override
+    public int hashCode() {
+        return name != null ? 31 * subject.hashCode() + name.hashCode() : System.identityHashCode(this);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(this == obj) return true;
+        if(!(obj instanceof Property)) return false;
+
+        Property<?, ?> other = (Property<?, ?>) obj;
+        return this.name != null && this.name.equals(other.name) && this.subject == other.subject;
+    }
+
+    @Override
+    public String toString() {
+        return name != null ? name : "property@" + Integer.toHexString(System.identityHashCode(this));
+    }
+}
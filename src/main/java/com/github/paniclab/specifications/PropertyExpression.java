@@ -0,0 +1,184 @@
+package com.github.paniclab.specifications;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+
+/**
+ * Comparison of an extracted property: an optional range plus an optional set of allowed values. Values of the
+ * set always lie within the range, so a node with values never needs the range check.
+ */
+final class PropertyExpression<T, P extends Comparable<? super P>> extends Expression<T> {
+    private final Property<T, P> property;
+    private final P lower;
+    private final boolean lowerInclusive;
+    private final P upper;
+    private final boolean upperInclusive;
+    private final Set<P> values;
+
+
+    PropertyExpression(Property<T, P> property, P lower, boolean lowerInclusive, P upper, boolean upperInclusive,
+                       Set<P> values) {
+        this.property = property;
+        this.lower = lower;
+        this.lowerInclusive = lowerInclusive;
+        this.upper = upper;
+        this.upperInclusive = upperInclusive;
+        this.values = values;
+    }
+
+
+    Property<T, P> property() {
+        return property;
+    }
+
+    P lower() {
+        return lower;
+    }
+
+    boolean lowerInclusive() {
+        return lowerInclusive;
+    }
+
+    P upper() {
+        return upper;
+    }
+
+    boolean upperInclusive() {
+        return upperInclusive;
+    }
+
+    Set<P> values() {
+        return values;
+    }
+
+    @Override
+    public boolean check(T instance) {
+        P value = property.extract(instance);
+        return value != null && accepts(value);
+    }
+
+    private boolean accepts(P value) {
+        if(values != null) {
+            return values.contains(value);
+        }
+        if(lower != null) {
+            int comparison = value.compareTo(lower);
+            if(comparison < 0 || comparison == 0 && !lowerInclusive) {
+                return false;
+            }
+        }
+        if(upper != null) {
+            int comparison = value.compareTo(upper);
+            return comparison < 0 || comparison == 0 && upperInclusive;
+        }
+        return true;
+    }
+
+    /**
+     * Returns {@code false} if no value can satisfy this comparison.
+     */
+    boolean isSatisfiable() {
+        if(values != null) {
+            return !values.isEmpty();
+        }
+        if(lower == null || upper == null) {
+            return true;
+        }
+        int comparison = lower.compareTo(upper);
+        return comparison < 0 || comparison == 0 && lowerInclusive && upperInclusive;
+    }
+
+    /**
+     * Comparison accepting the values accepted by both, the operands must compare equal properties.
+     */
+    @SuppressWarnings("unchecked")
+    PropertyExpression<T, P> intersect(PropertyExpression<T, ?> expression) {
+        PropertyExpression<T, P> other = (PropertyExpression<T, P>) expression;
+
+        P newLower = lower;
+        boolean newLowerInclusive = lowerInclusive;
+        if(other.lower != null) {
+            int comparison = newLower == null ? -1 : newLower.compareTo(other.lower);
+            if(comparison < 0 || comparison == 0 && !other.lowerInclusive) {
+                newLower = other.lower;
+                newLowerInclusive = other.lowerInclusive;
+            }
+        }
+
+        P newUpper = upper;
+        boolean newUpperInclusive = upperInclusive;
+        if(other.upper != null) {
+            int comparison = newUpper == null ? 1 : newUpper.compareTo(other.upper);
+            if(comparison > 0 || comparison == 0 && !other.upperInclusive) {
+                newUpper = other.upper;
+                newUpperInclusive = other.upperInclusive;
+            }
+        }
+
+        PropertyExpression<T, P> range =
+                new PropertyExpression<>(property, newLower, newLowerInclusive, newUpper, newUpperInclusive, null);
+        if(values == null && other.values == null) {
+            return range;
+        }
+
+        Set<P> newValues = new HashSet<>();
+        for(P value : values != null ? values : other.values) {
+            if(range.accepts(value) && (values == null || other.values == null || other.values.contains(value))) {
+                newValues.add(value);
+            }
+        }
+        return new PropertyExpression<>(property, null, false, null, false, newValues);
+    }
+
+    /**
+     * Comparison accepting the values accepted by either one, {@code null} if the union is not a single range or
+     * value set. The operands must compare equal properties.
+     */
+    @SuppressWarnings("unchecked")
+    PropertyExpression<T, P> union(PropertyExpression<T, ?> expression) {
+        PropertyExpression<T, P> other = (PropertyExpression<T, P>) expression;
+        if(values == null || other.values == null) {
+            return null;
+        }
+
+        Set<P> newValues = new HashSet<>(values);
+        newValues.addAll(other.values);
+        return new PropertyExpression<>(property, null, false, null, false, newValues);
+    }
+
+    @Override
+    Kind kind() {
+        return Kind.PROPERTY;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(property, lower, lowerInclusive, upper, upperInclusive, values);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(this == obj) return true;
+        if(!(obj instanceof PropertyExpression)) return false;
+
+        PropertyExpression<?, ?> other = (PropertyExpression<?, ?>) obj;
+        return this.property.equals(other.property) &&
+                this.lowerInclusive == other.lowerInclusive &&
+                this.upperInclusive == other.upperInclusive &&
+                Objects.equals(this.lower, other.lower) &&
+                Objects.equals(this.upper, other.upper) &&
+                Objects.equals(this.values, other.values);
+    }
+
+    @Override
+    public String toString() {
+        if(values != null) {
+            return property + " in " + values;
+        }
+        return property + " in " +
+                (lower == null ? "(-inf" : (lowerInclusive ? "[" : "(") + lower) + ", " +
+                (upper == null ? "+inf)" : upper + (upperInclusive ? "]" : ")"));
+    }
+}
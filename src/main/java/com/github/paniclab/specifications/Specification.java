@@ -1,42 +1,57 @@
 package com.github.paniclab.specifications;
 
 import com.github.paniclab.invariants.Invariant;
+import com.github.paniclab.invariants.InvariantSet;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 public class Specification<T> {
-    private final SpecificationProvider provider = new SpecificationProvider();
+    private final SpecificationProvider provider = SpecificationProvider.instance();
 
     private final Class<T> subject;
     private final Class<? extends Specification<T>> specType;
-    private final Function<T, Boolean> predicate;
-    private final Invariant<T> invariant;
-    private final Map<SpecId<? extends T>, Invariant<T>> invariantsChain;
+    private final Expression<T> expression;
+    private volatile InvariantSet<T> invariantsChain;
     private final CompareApproach compareApproach;
     private final SpecId<? extends T> specId;
 
 
 
+    protected Specification() {
+        this.subject = null;
+        this.specType = provider.getSpecType(this.getClass());
+        this.expression = null;
+        this.compareApproach = CompareApproach.IDENTITY;
+        this.specId = null;
+    }
+
     protected Specification(Class<T> subject, Function<T, Boolean> predicate) {
+        this(subject, Expression.leaf(predicate));
+    }
+
+    private Specification(Class<T> subject, Expression<T> expression) {
         this.subject = subject;
         this.specType = provider.getSpecType(this.getClass());
-        this.predicate = predicate;
-        this.invariant = predicate::apply;
-        this.invariantsChain = Collections.emptyMap();
+        this.expression = expression;
         this.compareApproach = CompareApproach.IDENTITY;
         this.specId = null;
     }
 
     protected Specification(Class<T> clazz, Function<T, Boolean> predicate, SpecId<T> specId) {
+        this(clazz, Expression.leaf(predicate), specId);
+    }
+
+    private Specification(Class<T> clazz, Expression<T> expression, SpecId<T> specId) {
         this.subject = clazz;
-        this.specType = new SpecificationProvider().getSpecType(this.getClass());
-        this.predicate = predicate;
-        this.invariant = predicate::apply;
-        this.invariantsChain = Collections.emptyMap();
+        this.specType = provider.getSpecType(this.getClass());
+        this.expression = expression;
         this.specId = specId;
         if (this.specId != null) {
             this.compareApproach = CompareApproach.EQUALITY;
@@ -48,17 +63,78 @@ public class Specification<T> {
     }
 
 
-/*    protected Specification(SpecificationBuilder<T> builder) {
-        this(builder.getSubject(), builder.getPredicate(), builder.getSpecId());
-        this.type = builder.getSpecType();
-        specIdValidness.check(this);
-    }*/
+    protected Specification(SpecificationBuilder<T, ? extends Specification<T>> builder) {
+        this.subject = builder.getSubject();
+        this.specType = builder.getSpecType() != null ? builder.getSpecType() : provider.getSpecType(this.getClass());
+        this.expression = builder.getExpression();
+        this.compareApproach = builder.getCompareApproach();
+        this.specId = builder.getSpecId();
+    }
 
 
     public static <U> Specification<U> of(Class<U> subject, Function<U, Boolean> invariant) {
         return new Specification<>(subject, invariant);
     }
 
+    /**
+     * Specification declaring the properties its predicate reads, so that {@link InvariantSet#stateOf(Object)}
+     * re-checks it only when one of them changes.
+     */
+    public static <U> Specification<U> of(Class<U> subject, Function<U, Boolean> invariant, String...reads) {
+        Set<String> properties = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(reads)));
+        return new Specification<>(subject, Expression.leaf(invariant, properties));
+    }
+
+    public static <U> Specification<U> always(Class<U> subject) {
+        return new Specification<>(subject, Expression.<U>constant(true));
+    }
+
+    public static <U> Specification<U> never(Class<U> subject) {
+        return new Specification<>(subject, Expression.<U>constant(false));
+    }
+
+
+    /**
+     * Specification backed by a predicate evaluated for many instances at once, see {@link BatchPredicate}.
+     */
+    public static <U> Specification<U> batched(Class<U> subject, BatchPredicate<U> predicate, Executor executor) {
+        return batched(subject, predicate, executor, 256);
+    }
+
+    public static <U> Specification<U> batched(Class<U> subject, BatchPredicate<U> predicate, Executor executor,
+                                               int maxBatchSize) {
+        return new Specification<>(subject, new BatchedExpression<>(predicate, executor, maxBatchSize));
+    }
+
+    /**
+     * Specification satisfied by the elements of the given collection, evaluated against a compact copy of it.
+     * Elements must not change their {@code hashCode} afterwards.
+     */
+    public static <U> Specification<U> in(Class<U> subject, Collection<? extends U> values) {
+        return in(subject, values, Membership.defaults());
+    }
+
+    public static <U> Specification<U> in(Class<U> subject, Collection<? extends U> values, Membership membership) {
+        return new Specification<>(subject, Expression.leaf(new ObjectMembership<U>(values, membership)));
+    }
+
+    /**
+     * Starts a comparison specification on a property of the subject, see {@link Property}.
+     */
+    public static <U, P extends Comparable<? super P>> Property<U, P> property(Class<U> subject,
+                                                                               Function<? super U, ? extends P> extractor) {
+        return new Property<>(subject, extractor);
+    }
+
+    /**
+     * Same as {@link #property(Class, Function)}, naming the property read by the extractor. Properties of a subject
+     * with the same name are equal, their conditions are merged whichever call created them.
+     */
+    public static <U, P extends Comparable<? super P>> Property<U, P> property(Class<U> subject, String name,
+                                                                               Function<? super U, ? extends P> extractor) {
+        return new Property<>(subject, name, extractor);
+    }
+
 
     protected static <U, R extends Specification<U>, B extends SpecificationBuilder<U, ? extends R>> R from(B builder) {
         SpecificationBuilder.readiness().check(builder);
@@ -70,10 +146,11 @@ public class Specification<T> {
         SpecificationBuilder<U, R> builder = spec.builder();
 
         R newSpec = builder.withSubject(spec.subject())
-                           .withInvariant(spec.invariant())
+                           .withExpression(spec.expression())
                            .withSpecType(spec.specType())
                            .withSpecId(specId)
                            .build();
+        newSpec.provider().register(newSpec);
 
         return newSpec;
     }
@@ -87,8 +164,11 @@ public class Specification<T> {
                                      .orElseThrow(() -> new SpecificationException("Unable combine specifications from array: "
                         + Arrays.toString(specifications)));
 
-        Invariant<U> invariant = instance -> Arrays.stream(specifications).allMatch(spec -> spec.isSatisfiedBy(instance));
-        return new Specification<>(subject, invariant::check);
+        @SuppressWarnings("unchecked")
+        Expression<U>[] operands = composites.stream()
+                                             .map(Specification::operand)
+                                             .toArray(Expression[]::new);
+        return new Specification<>(subject, Expression.all(operands));
     }
 
 /*    public static <U> Specification<U>  not(Specification<U> spec) {
@@ -103,16 +183,13 @@ public class Specification<T> {
     }*/
 
     public static <U> Specification<U> not(Specification<U> spec) {
-        Predicate<U> predicate = spec::isSatisfiedBy;
-
 /*        R newSpec = Specification.builder()
                 .withSubject(spec.subject())
                 .withPredicate(instance -> predicate.negate().test(instance))
                 .withSpecId(spec.id())
                 .build();*/
 
-        Specification<U> newSpec = new Specification<>(spec.subject(),
-                                                       instance -> predicate.negate().test(instance));
+        Specification<U> newSpec = new Specification<>(spec.subject(), Expression.not(spec.operand()));
 
         return newSpec;
     }
@@ -127,7 +204,190 @@ public class Specification<T> {
     }
 
     public <U extends T> boolean isSatisfiedBy(U instance) throws SpecificationException {
-        return this.predicate.apply(instance);
+        if(Instrumentation.enabled && specId != null) {
+            return Instrumentation.check(specId, expression, instance);
+        }
+        return this.expression.check(instance);
+    }
+
+    /**
+     * Evaluates this specification on the common fork-join pool, see {@link #isSatisfiedByAsync(Object, Executor)}.
+     */
+    public <U extends T> CompletableFuture<Boolean> isSatisfiedByAsync(U instance) {
+        return isSatisfiedByAsync(instance, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Evaluates this specification without blocking the calling thread, batched operands included.
+     */
+    public <U extends T> CompletableFuture<Boolean> isSatisfiedByAsync(U instance, Executor executor) {
+        if(!AsyncEvaluation.isAsync(expression)) {
+            return CompletableFuture.supplyAsync(() -> isSatisfiedBy(instance), executor);
+        }
+        CompletableFuture<Boolean> result = AsyncEvaluation.evaluate(expression, instance, executor);
+        return Instrumentation.enabled && specId != null ? Instrumentation.record(specId, result) : result;
+    }
+
+    /**
+     * Checks every rule of this specification without throwing, see {@link ValidationResult}. Unlike
+     * {@link #isSatisfiedBy(Object)} all rules are evaluated, so that every failure is reported.
+     */
+    public <U extends T> ValidationResult validate(U instance) {
+        return validate(instance, new ValidationResult());
+    }
+
+    /**
+     * Same as {@link #validate(Object)}, filling and returning the given result.
+     */
+    public <U extends T> ValidationResult validate(U instance, ValidationResult result) {
+        Expression<T>[] rules = rules();
+        result.reset(this, instance, rules);
+        if(Instrumentation.enabled && specId != null) {
+            Instrumentation.check(specId, value -> checkRules(rules, value, result), instance);
+        } else {
+            checkRules(rules, instance, result);
+        }
+        return result;
+    }
+
+    /**
+     * The rules of this specification, see {@link #validate(Object)}, as an {@link InvariantSet}. Built on first use.
+     */
+    public InvariantSet<T> invariants() {
+        InvariantSet<T> invariants = invariantsChain;
+        if(invariants == null) {
+            Expression<T>[] rules = rules();
+            InvariantSet.Builder<T> builder = InvariantSet.builder(subject);
+            for(int i = 0; i < rules.length; i++) {
+                Set<String> reads = readsOf(rules[i]);
+                if(reads == null) {
+                    builder.add(ruleName(rules[i], i, rules.length), rules[i]);
+                } else {
+                    builder.add(ruleName(rules[i], i, rules.length), rules[i], reads);
+                }
+            }
+            invariants = builder.build();
+            invariantsChain = invariants;
+        }
+        return invariants;
+    }
+
+    /**
+     * Lazily filters the stream, nothing is evaluated before a terminal operation.
+     */
+    public <U extends T> Stream<U> filter(Stream<U> stream) {
+        return stream.filter(this::isSatisfiedBy);
+    }
+
+    /**
+     * Lazy view of the satisfying elements, evaluated while iterating. Removal is not supported.
+     */
+    public <U extends T> Iterable<U> filter(Iterable<U> iterable) {
+        return () -> filter(iterable.iterator());
+    }
+
+    public <U extends T> Iterator<U> filter(Iterator<U> iterator) {
+        return new Iterator<U>() {
+            private U next;
+            private boolean ready;
+
+            @Override
+            public boolean hasNext() {
+                while(!ready && iterator.hasNext()) {
+                    U candidate = iterator.next();
+                    if(isSatisfiedBy(candidate)) {
+                        next = candidate;
+                        ready = true;
+                    }
+                }
+                return ready;
+            }
+
+            @Override
+            public U next() {
+                if(!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                U result = next;
+                next = null;
+                ready = false;
+                return result;
+            }
+        };
+    }
+
+    public long countSatisfying(Iterable<? extends T> iterable) {
+        long count = 0;
+        for(T instance : iterable) {
+            if(isSatisfiedBy(instance)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns {@code true} as soon as an element satisfies this specification, {@code false} for no elements.
+     */
+    public boolean anySatisfying(Iterable<? extends T> iterable) {
+        for(T instance : iterable) {
+            if(isSatisfiedBy(instance)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code false} as soon as an element does not satisfy this specification, {@code true} for no elements.
+     */
+    public boolean allSatisfying(Iterable<? extends T> iterable) {
+        for(T instance : iterable) {
+            if(!isSatisfiedBy(instance)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits the elements in one pass, satisfying ones under {@code true}, the others under {@code false}, both in
+     * encounter order.
+     */
+    public Map<Boolean, List<T>> partition(Iterable<? extends T> iterable) {
+        List<T> satisfying = new ArrayList<>();
+        List<T> others = new ArrayList<>();
+        for(T instance : iterable) {
+            (isSatisfiedBy(instance) ? satisfying : others).add(instance);
+        }
+
+        Map<Boolean, List<T>> result = new HashMap<>(4);
+        result.put(true, satisfying);
+        result.put(false, others);
+        return result;
+    }
+
+    /**
+     * Returns the set of indices of the list elements satisfying this specification.
+     */
+    public BitSet indicesSatisfying(List<? extends T> list) {
+        BitSet result = new BitSet(list.size());
+        if(list instanceof RandomAccess) {
+            for(int i = 0, size = list.size(); i < size; i++) {
+                if(isSatisfiedBy(list.get(i))) {
+                    result.set(i);
+                }
+            }
+        } else {
+            int index = 0;
+            for(T instance : list) {
+                if(isSatisfiedBy(instance)) {
+                    result.set(index);
+                }
+                index++;
+            }
+        }
+        return result;
     }
 
     public Set<T> selectSatisfying(Collection<? extends T> collection) {
@@ -136,6 +396,32 @@ public class Specification<T> {
                          .collect(Collectors.toSet());
     }
 
+    public Collection<T> selectSatisfying(Collection<? extends T> collection, Selection selection) {
+        List<T> matches = new ArrayList<>();
+        for(T instance : collection) {
+            if(isSatisfiedBy(instance)) {
+                matches.add(instance);
+            }
+        }
+        return ParallelSelector.collect(matches, selection);
+    }
+
+    /**
+     * Filters the collection concurrently on the given executor. A {@link java.util.concurrent.ForkJoinPool} gets
+     * fork-join tasks, any other executor gets one task per spliterator chunk.
+     */
+    public Collection<T> selectSatisfying(Collection<? extends T> collection, Selection selection, Executor executor) {
+        return selectSatisfying(collection, selection, executor, ParallelSelector.DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Same as {@link #selectSatisfying(Collection, Selection, Executor)}, collections not larger than
+     * {@code threshold} are filtered on the calling thread and no chunk gets split below this size.
+     */
+    public Collection<T> selectSatisfying(Collection<? extends T> collection, Selection selection, Executor executor, int threshold) {
+        return new ParallelSelector<T>(this::isSatisfiedBy, threshold).select(collection, selection, executor);
+    }
+
 /*    public Specification<T> and(Specification<T> other) {
         Specification<T> newSpec = new Specification<>(subject(),
                 instance -> this.isSatisfiedBy(instance) && other.isSatisfiedBy(instance));
@@ -145,11 +431,11 @@ public class Specification<T> {
 
     @SuppressWarnings("unchecked")
     public <U extends Specification<T>, R extends Specification<T>> R and(U other) {
-        Invariant<T> invariant = instance -> this.isSatisfiedBy(instance) && other.isSatisfiedBy(instance);
         SpecificationBuilder<T, R> builder = this.builder();
         R resultSpec = builder.withSubject(subject())
                               .withSpecType(specType())
-                              .withInvariant(invariant)
+                              .withExpression(Expression.and(this.operand(), other.operand()))
+                              .withCompareApproach(comparison(this, other))
                               .build();
 
         return resultSpec;
@@ -161,28 +447,86 @@ public class Specification<T> {
 
         newSpec = builder.withSubject(subject())
                          .withSpecType(specType())
-                         .withInvariant(instance -> this.isSatisfiedBy(instance) || other.isSatisfiedBy(instance))
+                         .withExpression(Expression.or(this.operand(), other.operand()))
+                         .withCompareApproach(comparison(this, other))
                          .build();
 
         return newSpec;
     }
 
     public <R extends Specification<T>> R not() {
-        Predicate<T> predicate = this::isSatisfiedBy;
-
         R newSpec;
         SpecificationBuilder<T, R> builder = this.builder();
 
         newSpec = builder.withSubject(subject())
                          .withSpecType(specType())
-                         .withInvariant(instance -> predicate.negate().test(instance))
+                         .withExpression(Expression.not(this.operand()))
+                         .withCompareApproach(comparison(this, this))
                          .build();
 
         return newSpec;
     }
 
+    /**
+     * Returns an equivalent specification evaluated through a single method handle chain instead of walking
+     * the expression tree. When the tree cannot be compiled the result is evaluated as before.
+     */
+    @SuppressWarnings("unchecked")
+    public <R extends Specification<T>> R compile() {
+        SpecificationBuilder<T, R> builder = this.builder();
+
+        return builder.withSubject(subject())
+                      .withSpecType(specType())
+                      .withSpecId((SpecId<T>) id())
+                      .withExpression(ExpressionCompiler.compile(this.expression()))
+                      .build();
+    }
+
+    /**
+     * Returns an equivalent specification remembering its result per instance.
+     */
+    @SuppressWarnings("unchecked")
+    public <R extends Specification<T>> R memoized(Memoization memoization) {
+        SpecificationBuilder<T, R> builder = this.builder();
+
+        return builder.withSubject(subject())
+                      .withSpecType(specType())
+                      .withSpecId((SpecId<T>) id())
+                      .withExpression(new MemoizedExpression<>(this.expression(), memoization))
+                      .build();
+    }
+
+    public <R extends Specification<T>> R memoized() {
+        return memoized(Memoization.builder().build());
+    }
+
+    /**
+     * Returns the cache counters if this specification was created by {@link #memoized(Memoization)}.
+     */
+    public Optional<MemoizationStats> memoizationStats() {
+        if(expression.kind() != Expression.Kind.MEMOIZED) {
+            return Optional.empty();
+        }
+        return Optional.of(((MemoizedExpression<T>) expression).stats());
+    }
+
+    /**
+     * Returns an equivalent specification reordering its AND/OR operands at runtime, operands must be free of side
+     * effects.
+     */
+    @SuppressWarnings("unchecked")
+    public <R extends Specification<T>> R adaptive() {
+        SpecificationBuilder<T, R> builder = this.builder();
+
+        return builder.withSubject(subject())
+                      .withSpecType(specType())
+                      .withSpecId((SpecId<T>) id())
+                      .withExpression(AdaptiveExpression.of(this.expression()))
+                      .build();
+    }
+
     public Specification<T> withId(SpecId<T> id) {
-        return new Specification<>(this.subject(), this.predicate, id);
+        return new Specification<>(this.subject(), this.expression, id);
     }
 
 
@@ -195,7 +539,87 @@ public class Specification<T> {
     }
 
     protected Invariant<T> invariant() {
-        return invariant;
+        return expression;
+    }
+
+    Expression<T> expression() {
+        return expression;
+    }
+
+    /**
+     * Top level conjuncts of the expression, or the expression itself when it is not a conjunction.
+     */
+    @SuppressWarnings("unchecked")
+    private Expression<T>[] rules() {
+        Expression<T> root = expression.kind() == Expression.Kind.ADAPTIVE
+                ? ((AdaptiveExpression<T>) expression).junction()
+                : expression.plain();
+        return root.kind() == Expression.Kind.AND
+                ? ((Expression.Junction<T>) root).operands()
+                : (Expression<T>[]) new Expression<?>[] {root};
+    }
+
+    private static <T> boolean checkRules(Expression<T>[] rules, T instance, ValidationResult result) {
+        for(int i = 0; i < rules.length; i++) {
+            if(!rules[i].check(instance)) {
+                result.fail(i);
+            }
+        }
+        return result.isValid();
+    }
+
+    /**
+     * Properties read by the expression, {@code null} if unknown.
+     */
+    private static Set<String> readsOf(Expression<?> expression) {
+        switch (expression.kind()) {
+            case CONSTANT:
+                return Collections.emptySet();
+            case LEAF:
+                return ((Expression.Leaf<?>) expression).reads();
+            case PROPERTY:
+                String name = ((PropertyExpression<?, ?>) expression).property().name();
+                return name == null ? null : Collections.singleton(name);
+            case NAMED:
+                return readsOf(((Expression.Named<?>) expression).body());
+            case NOT:
+                return readsOf(((Expression.Not<?>) expression).operand());
+            case MEMOIZED:
+                return readsOf(((MemoizedExpression<?>) expression).operand());
+            case ADAPTIVE:
+                return readsOf(((AdaptiveExpression<?>) expression).junction());
+            case COMPILED:
+                return readsOf(expression.plain());
+            case AND:
+            case OR:
+                Set<String> reads = new HashSet<>();
+                for(Expression<?> operand : ((Expression.Junction<?>) expression).operands()) {
+                    Set<String> operandReads = readsOf(operand);
+                    if(operandReads == null) {
+                        return null;
+                    }
+                    reads.addAll(operandReads);
+                }
+                return reads;
+            default:
+                return null;
+        }
+    }
+
+    private String ruleName(Expression<T> rule, int index, int count) {
+        SpecId<?> id = rule.kind() == Expression.Kind.NAMED ? ((Expression.Named<T>) rule).id()
+                : count == 1 ? specId : null;
+        if(id == null) {
+            return "#" + index;
+        }
+        return id.value().getDeclaringClass().getSimpleName() + "." + id.value().name();
+    }
+
+    /**
+     * Expression used when this specification becomes an operand, its id is kept as a named node.
+     */
+    Expression<T> operand() {
+        return specId == null ? expression : Expression.named(specId, expression);
     }
 
     protected SpecificationProvider provider() {
@@ -207,6 +631,41 @@ public class Specification<T> {
     }
 
 
+    /**
+     * Specifications with an id are equal when their ids are, comparison specifications without an id when their
+     * conditions are. Any other specification is equal only to itself.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if(this == obj) return true;
+        if(!(obj instanceof Specification)) return false;
+
+        Specification<?> other = (Specification<?>) obj;
+        if(this.compareApproach != other.compareApproach || this.subject != other.subject) {
+            return false;
+        }
+        switch (compareApproach) {
+            case EQUALITY:
+                return Objects.equals(this.specId, other.specId) && variant(this) == variant(other);
+            case COMPARISON:
+                return this.expression.equals(other.expression);
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        switch (compareApproach) {
+            case EQUALITY:
+                return Objects.hashCode(specId);
+            case COMPARISON:
+                return expression.hashCode();
+            default:
+                return System.identityHashCode(this);
+        }
+    }
+
     @Override
     public String toString() {
         return "Specification{" +
@@ -216,6 +675,16 @@ public class Specification<T> {
     }
 
 
+    public enum Selection {
+        /** Matches are collected into a hash set, duplicates by {@code equals} are removed. */
+        HASHED,
+        /** Matches are collected into a list in encounter order, nothing is hashed. */
+        ORDERED,
+        /** Matches are collected into an identity based set, {@code hashCode} of the matches is not called. */
+        IDENTITY
+    }
+
+
     enum CompareApproach {
         IDENTITY,
         EQUALITY,
@@ -223,6 +692,20 @@ public class Specification<T> {
     }
 
 
+    /**
+     * Compiled, memoized and adaptive copies keep the id of the original but are not equal to it.
+     */
+    private static Expression.Kind variant(Specification<?> spec) {
+        return spec.expression == null ? null : spec.expression.kind();
+    }
+
+    private static CompareApproach comparison(Specification<?> left, Specification<?> right) {
+        boolean comparison = left.compareApproach == CompareApproach.COMPARISON &&
+                right.compareApproach == CompareApproach.COMPARISON;
+        return comparison ? CompareApproach.COMPARISON : CompareApproach.IDENTITY;
+    }
+
+
     private Invariant<Specification<T>> specIdValidness = spec -> {
         if(spec.compareApproach == CompareApproach.IDENTITY) {
             return true;
@@ -0,0 +1,153 @@
+package com.github.paniclab.specifications;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.ByteBufferInput;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Versioned binary format of a rule set, written in dependency order. Referenced specifications missing from the
+ * archive must be registered before reading.
+ */
+public final class SpecificationArchive {
+    public static final int VERSION = 2;
+    static final int MAGIC = 0x444D5453;
+
+    private SpecificationArchive() {}
+
+
+    public static void write(Collection<? extends Specification<?>> specifications, OutputStream stream) {
+        Output output = new Output(stream);
+        Kryo kryo = kryo(SpecificationArchive.class.getClassLoader());
+        SpecificationSerializer serializer = new SpecificationSerializer(kryo.getClassLoader());
+
+        List<Specification<?>> ordered = dependencyOrder(specifications);
+        output.writeInt(MAGIC);
+        output.writeVarInt(VERSION, true);
+        output.writeVarInt(ordered.size(), true);
+        for(Specification<?> spec : ordered) {
+            kryo.writeObject(output, spec, serializer);
+        }
+        output.flush();
+    }
+
+    public static List<Specification<?>> read(InputStream stream) {
+        return read(new Input(stream), SpecificationArchive.class.getClassLoader());
+    }
+
+    public static List<Specification<?>> read(InputStream stream, ClassLoader classLoader) {
+        return read(new Input(stream), classLoader);
+    }
+
+    public static List<Specification<?>> read(ByteBuffer buffer) {
+        return read(new ByteBufferInput(buffer), SpecificationArchive.class.getClassLoader());
+    }
+
+    public static List<Specification<?>> read(ByteBuffer buffer, ClassLoader classLoader) {
+        return read(new ByteBufferInput(buffer), classLoader);
+    }
+
+
+    private static List<Specification<?>> read(Input input, ClassLoader classLoader) {
+        try {
+            int magic = input.readInt();
+            if(magic != MAGIC) {
+                throw new SpecificationException("Not a specification archive, magic: " + Integer.toHexString(magic));
+            }
+            int version = input.readVarInt(true);
+            if(version > VERSION) {
+                throw new SpecificationException("Unsupported specification archive version " + version +
+                        ", supported up to " + VERSION);
+            }
+
+            Kryo kryo = kryo(classLoader);
+            SpecificationSerializer serializer = new SpecificationSerializer(classLoader);
+            int count = input.readVarInt(true);
+            List<Specification<?>> result = new ArrayList<>(count);
+            for(int i = 0; i < count; i++) {
+                result.add(kryo.readObject(input, Specification.class, serializer));
+            }
+            return result;
+        } catch (KryoException e) {
+            throw new SpecificationException("Unable to read specification archive", e);
+        }
+    }
+
+    private static Kryo kryo(ClassLoader classLoader) {
+        Kryo kryo = new Kryo();
+        kryo.setClassLoader(classLoader);
+        kryo.setReferences(false);
+        return kryo;
+    }
+
+    private static List<Specification<?>> dependencyOrder(Collection<? extends Specification<?>> specifications) {
+        Map<SpecId<?>, Specification<?>> byId = new LinkedHashMap<>();
+        for(Specification<?> spec : specifications) {
+            if(spec.id() != null) {
+                byId.put(spec.id(), spec);
+            }
+        }
+
+        List<Specification<?>> ordered = new ArrayList<>(specifications.size());
+        Set<Specification<?>> visited = new HashSet<>();
+        for(Specification<?> spec : specifications) {
+            visit(spec, byId, visited, ordered);
+        }
+        return ordered;
+    }
+
+    private static void visit(Specification<?> spec, Map<SpecId<?>, Specification<?>> byId,
+                              Set<Specification<?>> visited, List<Specification<?>> ordered) {
+        if(!visited.add(spec)) {
+            return;
+        }
+
+        List<SpecId<?>> references = new ArrayList<>();
+        collectReferences(spec.expression(), references);
+        for(SpecId<?> reference : references) {
+            Specification<?> dependency = byId.get(reference);
+            if(dependency != null) {
+                visit(dependency, byId, visited, ordered);
+            }
+        }
+        ordered.add(spec);
+    }
+
+    private static void collectReferences(Expression<?> expression, List<SpecId<?>> references) {
+        switch (expression.kind()) {
+            case NAMED:
+                references.add(((Expression.Named<?>) expression).id());
+                break;
+            case NOT:
+                collectReferences(((Expression.Not<?>) expression).operand(), references);
+                break;
+            case AND:
+            case OR:
+                for(Expression<?> operand : ((Expression.Junction<?>) expression).operands()) {
+                    collectReferences(operand, references);
+                }
+                break;
+            case MEMOIZED:
+                collectReferences(((MemoizedExpression<?>) expression).operand(), references);
+                break;
+            case COMPILED:
+                collectReferences(expression.plain(), references);
+                break;
+            default:
+                break;
+        }
+    }
+}
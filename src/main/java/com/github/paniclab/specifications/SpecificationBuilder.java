@@ -13,6 +13,7 @@ public class SpecificationBuilder<T, R extends Specification<T>> {
     private Class<? extends R> specType;
     private Function<T, Boolean> predicate;
     private Invariant<T> invariant;
+    private Expression<T> expression;
     private Specification.CompareApproach compareApproach = Specification.CompareApproach.IDENTITY;
     private SpecId<T> specId;
 
@@ -44,6 +45,16 @@ public class SpecificationBuilder<T, R extends Specification<T>> {
         return this;
     }
 
+    SpecificationBuilder<T, R> withExpression(Expression<T> expression) {
+        this.expression = expression;
+        return this;
+    }
+
+    SpecificationBuilder<T, R> withCompareApproach(Specification.CompareApproach compareApproach) {
+        this.compareApproach = compareApproach;
+        return this;
+    }
+
     public SpecificationBuilder<T, R> withSpecId(SpecId<T> specId) {
         this.specId = specId;
         if(specId != null) {
@@ -79,13 +90,26 @@ public class SpecificationBuilder<T, R extends Specification<T>> {
         return invariant;
     }
 
+    Expression<T> getExpression() {
+        if(expression != null) {
+            return expression;
+        }
+        if(invariant != null) {
+            return Expression.leaf(invariant);
+        }
+        if(predicate != null) {
+            return Expression.leaf(predicate);
+        }
+        return null;
+    }
+
     public static Invariant<SpecificationBuilder<?, ?>> readiness() {
         return readiness;
     }
 
     public R build() {
         //return Specification.from(this);
-        return new SpecificationProvider().getInstance(specType, this);
+        return SpecificationProvider.instance().getInstance(specType, this);
     }
 
     @Override
@@ -111,17 +135,17 @@ public class SpecificationBuilder<T, R extends Specification<T>> {
         boolean isCheckSuccessful;
 
         switch (builder.compareApproach) {
-            case COMPARISON:
             case EQUALITY:
                 isCheckSuccessful =
                         builder.subject != null &&
-                                builder.predicate != null &&
+                                builder.getExpression() != null &&
                                 builder.specId != null;
                 break;
             case IDENTITY:
+            case COMPARISON:
                 isCheckSuccessful =
                         builder.subject != null &&
-                                builder.predicate != null;
+                                builder.getExpression() != null;
                 break;
             default:
                 throw new SpecificationException("Unknown spec compare approach.");
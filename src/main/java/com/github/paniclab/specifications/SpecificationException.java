@@ -1,9 +1,13 @@
 package com.github.paniclab.specifications;
 
+import java.util.function.Supplier;
+
 
 public class SpecificationException extends RuntimeException {
     private Specification<?> specification;
     private Object instance;
+    private transient Supplier<String> messageSupplier;
+    private String message;
 
 
     public SpecificationException() {
@@ -21,12 +25,47 @@ public class SpecificationException extends RuntimeException {
         super(cause);
     }
 
+    /**
+     * The message is built on first access, neither the instance nor the specification is formatted before.
+     */
     public SpecificationException(Object instance, Specification<?> specification) {
-        super("Instance is not satisfy specification. Instance: " + instance + ", specification: " + specification);
+        this(instance, specification, true);
+    }
+
+    protected SpecificationException(Object instance, Specification<?> specification, boolean writableStackTrace) {
+        super(null, null, writableStackTrace, writableStackTrace);
         this.instance = instance;
         this.specification = specification;
     }
 
+    SpecificationException(Object instance, Specification<?> specification, Supplier<String> messageSupplier) {
+        this(instance, specification, false);
+        this.messageSupplier = messageSupplier;
+    }
+
+    /**
+     * Exception without a stack trace, cheap enough for expected validation failures.
+     */
+    public static SpecificationException stackless(Object instance, Specification<?> specification) {
+        return new SpecificationException(instance, specification, false);
+    }
+
+
+    @Override
+    public String getMessage() {
+        String superMessage = super.getMessage();
+        if(superMessage != null || specification == null) {
+            return superMessage;
+        }
+
+        if(message == null) {
+            message = messageSupplier != null
+                    ? messageSupplier.get()
+                    : "Instance is not satisfy specification. Instance: " + instance + ", specification: " + specification;
+        }
+        return message;
+    }
+
     public Specification<?> getSpecification() {
         return specification;
     }
@@ -0,0 +1,12 @@
+package com.github.paniclab.specifications;
+
+
+/**
+ * Direct, reflection free way of creating specifications of a concrete type. Implementations are generated for
+ * classes annotated with {@link SpecificationType}.
+ */
+public interface SpecificationFactory<T, R extends Specification<T>> {
+    String SUFFIX = "_Factory";
+
+    R create(SpecificationBuilder<T, ? extends Specification<T>> builder);
+}
@@ -0,0 +1,417 @@
+package com.github.paniclab.specifications;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+
+/**
+ * Keeps a bitmap of the satisfying elements per indexed specification. Elements are tracked by identity, one
+ * changed in place must be passed to {@link #update(Object)}.
+ */
+public final class SpecificationIndex<T> {
+    private final Class<T> subject;
+    private final Specification<T>[] specs;
+    private final BitSet[] bitmaps;
+    private final Map<SpecId<?>, Integer> positions;
+
+    private final List<T> elements = new ArrayList<>();
+    private final Map<T, Integer> slots = new IdentityHashMap<>();
+    private final BitSet live = new BitSet();
+    private final BitSet free = new BitSet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+
+    private SpecificationIndex(Builder<T> builder) {
+        this.subject = builder.subject;
+        this.specs = builder.specs.values().toArray(newSpecifications(builder.specs.size()));
+        this.bitmaps = new BitSet[specs.length];
+        this.positions = new HashMap<>();
+        for(int i = 0; i < specs.length; i++) {
+            bitmaps[i] = new BitSet();
+            positions.put(specs[i].id(), i);
+        }
+        for(T element : builder.elements) {
+            add(element);
+        }
+    }
+
+    public static <U> Builder<U> builder(Class<U> subject) {
+        return new Builder<>(subject);
+    }
+
+
+    /**
+     * Adds the element and returns its slot. An element added before keeps its slot and is re-evaluated.
+     */
+    public int add(T element) {
+        Objects.requireNonNull(element);
+        lock.writeLock().lock();
+        try {
+            Integer existing = slots.get(element);
+            if(existing != null) {
+                evaluate(existing, element);
+                return existing;
+            }
+
+            int slot = free.nextSetBit(0);
+            if(slot < 0) {
+                slot = elements.size();
+                elements.add(element);
+            } else {
+                free.clear(slot);
+                elements.set(slot, element);
+            }
+            slots.put(element, slot);
+            live.set(slot);
+            evaluate(slot, element);
+            return slot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-evaluates an element changed in place, returns {@code false} if the element is not in the index.
+     */
+    public boolean update(T element) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.get(element);
+            if(slot == null) {
+                return false;
+            }
+            evaluate(slot, element);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Puts the replacement into the slot of the replaced element, returns {@code false} if the replaced element is
+     * not in the index.
+     */
+    public boolean replace(T replaced, T replacement) {
+        Objects.requireNonNull(replacement);
+        lock.writeLock().lock();
+        try {
+            if(slots.containsKey(replacement) && replaced != replacement) {
+                throw new IllegalArgumentException("Replacement is in the index already: " + replacement);
+            }
+            Integer slot = slots.remove(replaced);
+            if(slot == null) {
+                return false;
+            }
+            elements.set(slot, replacement);
+            slots.put(replacement, slot);
+            evaluate(slot, replacement);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(T element) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.remove(element);
+            if(slot == null) {
+                return false;
+            }
+            elements.set(slot, null);
+            live.clear(slot);
+            free.set(slot);
+            for(BitSet bitmap : bitmaps) {
+                bitmap.clear(slot);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(T element) {
+        lock.readLock().lock();
+        try {
+            return slots.containsKey(element);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Elements satisfying the indexed specification, in slot order.
+     */
+    public List<T> select(SpecId<? extends T> id) {
+        lock.readLock().lock();
+        try {
+            return elementsAt(bitmap(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int count(SpecId<? extends T> id) {
+        lock.readLock().lock();
+        try {
+            return bitmap(id).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Elements satisfying the specification. Indexed operands of a composition are answered by AND, OR and NOT of
+     * their bitmaps, the remaining operands are checked only against the elements those leave as candidates.
+     */
+    public List<T> select(Specification<T> spec) {
+        lock.readLock().lock();
+        try {
+            return elementsAt(matching(spec));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int count(Specification<T> spec) {
+        lock.readLock().lock();
+        try {
+            return matching(spec).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Slots of the elements satisfying the specification, a copy. Slots stay valid until their element is removed.
+     */
+    public BitSet slots(Specification<T> spec) {
+        lock.readLock().lock();
+        try {
+            return matching(spec);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public T get(int slot) {
+        lock.readLock().lock();
+        try {
+            return slot >= 0 && slot < elements.size() ? elements.get(slot) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Class<T> subject() {
+        return subject;
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private static <U> Specification<U>[] newSpecifications(int length) {
+        return (Specification<U>[]) new Specification<?>[length];
+    }
+
+    private void evaluate(int slot, T element) {
+        for(int i = 0; i < specs.length; i++) {
+            bitmaps[i].set(slot, specs[i].isSatisfiedBy(element));
+        }
+    }
+
+    private BitSet bitmap(SpecId<?> id) {
+        Integer position = positions.get(id);
+        if(position == null) {
+            throw new SpecificationException("Specification " + id + " is not indexed");
+        }
+        return bitmaps[position];
+    }
+
+    private List<T> elementsAt(BitSet matches) {
+        List<T> result = new ArrayList<>(matches.cardinality());
+        for(int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+            result.add(elements.get(slot));
+        }
+        return result;
+    }
+
+    private BitSet matching(Specification<T> spec) {
+        BitSet candidates = (BitSet) live.clone();
+        if(spec.id() != null && positions.containsKey(spec.id())) {
+            candidates.and(bitmap(spec.id()));
+            return candidates;
+        }
+        return narrow(spec.expression(), candidates);
+    }
+
+    /**
+     * Clears the candidates not satisfying the expression, in place, and returns them.
+     */
+    private BitSet narrow(Expression<T> expression, BitSet candidates) {
+        switch (expression.kind()) {
+            case CONSTANT:
+                if(!((Expression.Constant<T>) expression).value()) {
+                    candidates.clear();
+                }
+                return candidates;
+            case NAMED:
+                Expression.Named<T> named = (Expression.Named<T>) expression;
+                Integer position = positions.get(named.id());
+                if(position != null) {
+                    candidates.and(bitmaps[position]);
+                    return candidates;
+                }
+                return narrow(named.body(), candidates);
+            case NOT:
+                BitSet excluded = narrow(((Expression.Not<T>) expression).operand(), (BitSet) candidates.clone());
+                candidates.andNot(excluded);
+                return candidates;
+            case AND:
+                Expression<T>[] conjuncts = ((Expression.Junction<T>) expression).operands();
+                for(Expression<T> operand : conjuncts) {
+                    if(isIndexed(operand)) {
+                        candidates = narrow(operand, candidates);
+                    }
+                }
+                for(Expression<T> operand : conjuncts) {
+                    if(!isIndexed(operand)) {
+                        candidates = narrow(operand, candidates);
+                    }
+                }
+                return candidates;
+            case OR:
+                Expression<T>[] disjuncts = ((Expression.Junction<T>) expression).operands();
+                BitSet matched = new BitSet();
+                for(Expression<T> operand : disjuncts) {
+                    if(isIndexed(operand)) {
+                        matched.or(narrow(operand, (BitSet) candidates.clone()));
+                    }
+                }
+                BitSet remaining = (BitSet) candidates.clone();
+                remaining.andNot(matched);
+                for(Expression<T> operand : disjuncts) {
+                    if(!isIndexed(operand) && !remaining.isEmpty()) {
+                        BitSet operandMatches = narrow(operand, (BitSet) remaining.clone());
+                        matched.or(operandMatches);
+                        remaining.andNot(operandMatches);
+                    }
+                }
+                candidates.and(matched);
+                return candidates;
+            case ADAPTIVE:
+                return narrow(((AdaptiveExpression<T>) expression).junction(), candidates);
+            case COMPILED:
+                return narrow(expression.plain(), candidates);
+            default:
+                for(int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                    if(!expression.check(elements.get(slot))) {
+                        candidates.clear(slot);
+                    }
+                }
+                return candidates;
+        }
+    }
+
+    /**
+     * Returns {@code true} if the expression is answered from bitmaps alone.
+     */
+    private boolean isIndexed(Expression<T> expression) {
+        switch (expression.kind()) {
+            case CONSTANT:
+                return true;
+            case NAMED:
+                Expression.Named<T> named = (Expression.Named<T>) expression;
+                return positions.containsKey(named.id()) || isIndexed(named.body());
+            case NOT:
+                return isIndexed(((Expression.Not<T>) expression).operand());
+            case AND:
+            case OR:
+                for(Expression<T> operand : ((Expression.Junction<T>) expression).operands()) {
+                    if(!isIndexed(operand)) {
+                        return false;
+                    }
+                }
+                return true;
+            case ADAPTIVE:
+                return isIndexed(((AdaptiveExpression<T>) expression).junction());
+            case COMPILED:
+                return isIndexed(expression.plain());
+            default:
+                return false;
+        }
+    }
+
+
+    @Override
+    public String toString() {
+        return "SpecificationIndex{" +
+                "subject=" + subject.getSimpleName() +
+                ", specifications=" + positions.keySet() +
+                ", size=" + size() +
+                '}';
+    }
+
+
+    public static final class Builder<T> {
+        private final Class<T> subject;
+        private final Map<SpecId<?>, Specification<T>> specs = new LinkedHashMap<>();
+        private final List<T> elements = new ArrayList<>();
+
+        private Builder(Class<T> subject) {
+            this.subject = Objects.requireNonNull(subject);
+        }
+
+        /**
+         * Indexes the specification under its id.
+         */
+        public Builder<T> withSpecification(Specification<T> spec) {
+            if(spec.id() == null) {
+                throw new SpecificationException("Only specifications with an id can be indexed: " + spec);
+            }
+            specs.put(spec.id(), spec);
+            return this;
+        }
+
+        public Builder<T> withSpecifications(Collection<? extends Specification<T>> specs) {
+            for(Specification<T> spec : specs) {
+                withSpecification(spec);
+            }
+            return this;
+        }
+
+        /**
+         * Indexes every specification of the subject currently registered.
+         */
+        public Builder<T> withRegisteredSpecifications() {
+            return withSpecifications(SpecificationProvider.allFor(subject));
+        }
+
+        public Builder<T> withElements(Collection<? extends T> elements) {
+            this.elements.addAll(elements);
+            return this;
+        }
+
+        public SpecificationIndex<T> build() {
+            return new SpecificationIndex<>(this);
+        }
+    }
+}
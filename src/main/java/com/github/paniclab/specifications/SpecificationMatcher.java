@@ -0,0 +1,319 @@
+package com.github.paniclab.specifications;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Finds every registered specification of a subject satisfied by an instance, shared subtrees are evaluated
+ * once. Follows the registry until closed.
+ */
+public final class SpecificationMatcher<T> implements AutoCloseable {
+    private static final byte CONSTANT = 0;
+    private static final byte EVALUATE = 1;
+    private static final byte NOT = 2;
+    private static final byte AND = 3;
+    private static final byte OR = 4;
+
+    private final Class<T> subject;
+    private final SpecificationRegistry.Listener listener;
+    private Builder<T> builder = new Builder<>();
+    private volatile Network<T> network = builder.build();
+
+
+    private SpecificationMatcher(Class<T> subject) {
+        this.subject = subject;
+        this.listener = new SpecificationRegistry.Listener() {
+            @Override
+            public void registered(Specification<?> spec) {
+                if(spec.subject() == subject) {
+                    add(spec);
+                }
+            }
+
+            @Override
+            public void unregistered(Specification<?> spec) {
+                if(spec.subject() == subject) {
+                    remove(spec);
+                }
+            }
+        };
+    }
+
+    public static <U> SpecificationMatcher<U> forSubject(Class<U> subject) {
+        SpecificationMatcher<U> matcher = new SpecificationMatcher<>(subject);
+        SpecificationProvider.registry().addListener(matcher.listener);
+        matcher.addAll(SpecificationProvider.allFor(subject));
+        return matcher;
+    }
+
+
+    /**
+     * Returns the satisfied specifications as bits, bit {@code i} stands for {@code ids().get(i)} of the same
+     * network. Use {@link #matchingIds(Object)} when the registry may change between the two calls.
+     */
+    public BitSet match(T instance) {
+        return network.match(instance);
+    }
+
+    public List<SpecId<?>> matchingIds(T instance) {
+        Network<T> current = network;
+        BitSet matches = current.match(instance);
+
+        List<SpecId<?>> result = new ArrayList<>(matches.cardinality());
+        for(int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            result.add(current.specs[i].id());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the satisfied specifications whose id value is a constant of the given enum.
+     */
+    public <E extends Enum<E>> EnumSet<E> match(T instance, Class<E> idType) {
+        Network<T> current = network;
+        BitSet matches = current.match(instance);
+
+        EnumSet<E> result = EnumSet.noneOf(idType);
+        for(int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            Enum<?> value = current.specs[i].id().value();
+            if(value.getDeclaringClass() == idType) {
+                result.add(idType.cast(value));
+            }
+        }
+        return result;
+    }
+
+    public List<SpecId<?>> ids() {
+        Network<T> current = network;
+        List<SpecId<?>> ids = new ArrayList<>(current.size);
+        for(int i = 0; i < current.size; i++) {
+            ids.add(current.specs[i].id());
+        }
+        return Collections.unmodifiableList(ids);
+    }
+
+    public Class<T> subject() {
+        return subject;
+    }
+
+    int nodeCount() {
+        return network.nodes;
+    }
+
+    @Override
+    public void close() {
+        SpecificationProvider.registry().removeListener(listener);
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private void add(Specification<?> spec) {
+        addAll(Collections.singletonList((Specification<T>) spec));
+    }
+
+    private synchronized void addAll(List<Specification<T>> specs) {
+        boolean added = false;
+        for(Specification<T> spec : specs) {
+            added |= builder.add(spec);
+        }
+        if(added) {
+            network = builder.build();
+        }
+    }
+
+    private synchronized void remove(Specification<?> spec) {
+        if(builder.members.contains(spec)) {
+            Network<T> current = network;
+            builder = new Builder<>();
+            for(int i = 0; i < current.size; i++) {
+                if(current.specs[i] != spec) {
+                    builder.add(current.specs[i]);
+                }
+            }
+            network = builder.build();
+        }
+    }
+
+
+    /**
+     * Node arrays in topological order, operands always precede the nodes using them. Immutable, the arrays may be
+     * shared with the builder, which only appends beyond the lengths seen here.
+     */
+    private static final class Network<T> {
+        private final Specification<T>[] specs;
+        private final int[] roots;
+        private final int size;
+        private final byte[] kinds;
+        private final int[][] operands;
+        private final Expression<T>[] expressions;
+        private final int nodes;
+
+        private Network(Builder<T> builder) {
+            this.specs = builder.specs;
+            this.roots = builder.roots;
+            this.size = builder.size;
+            this.kinds = builder.kinds;
+            this.operands = builder.operands;
+            this.expressions = builder.expressions;
+            this.nodes = builder.nodes;
+        }
+
+        private BitSet match(T instance) {
+            int words = (nodes + 63) >>> 6;
+            long[] evaluated = new long[words];
+            long[] values = new long[words];
+
+            BitSet result = new BitSet(size);
+            for(int i = 0; i < size; i++) {
+                if(evaluate(roots[i], instance, evaluated, values)) {
+                    result.set(i);
+                }
+            }
+            return result;
+        }
+        private boolean evaluate(int node, T instance, long[] evaluated, long[] values) {
+            int word = node >>> 6;
+            long bit = 1L << node;
+            if((evaluated[word] & bit) != 0) {
+                return (values[word] & bit) != 0;
+            }
+
+            boolean value;
+            switch (kinds[node]) {
+                case CONSTANT:
+                case EVALUATE:
+                    value = expressions[node].check(instance);
+                    break;
+                case NOT:
+                    value = !evaluate(operands[node][0], instance, evaluated, values);
+                    break;
+                case AND:
+                    value = true;
+                    for(int operand : operands[node]) {
+                        if(!evaluate(operand, instance, evaluated, values)) {
+                            value = false;
+                            break;
+                        }
+                    }
+                    break;
+                default:
+                    value = false;
+                    for(int operand : operands[node]) {
+                        if(evaluate(operand, instance, evaluated, values)) {
+                            value = true;
+                            break;
+                        }
+                    }
+            }
+
+            evaluated[word] |= bit;
+            if(value) {
+                values[word] |= bit;
+            }
+            return value;
+        }
+    }
+
+
+    /**
+     * Grows the node arrays of a matcher, amortized constant time per node. Guarded by the matcher.
+     */
+    private static final class Builder<T> {
+        private final Map<Expression<T>, Integer> index = new HashMap<>();
+        private final Set<Specification<?>> members = Collections.newSetFromMap(new IdentityHashMap<>());
+        private Specification<T>[] specs = newSpecifications(8);
+        private int[] roots = new int[8];
+        private int size;
+        private byte[] kinds = new byte[16];
+        private int[][] operands = new int[16][];
+        private Expression<T>[] expressions = newExpressions(16);
+        private int nodes;
+
+        private boolean add(Specification<T> spec) {
+            if(!members.add(spec)) {
+                return false;
+            }
+
+            int root = intern(spec.expression());
+            if(size == specs.length) {
+                specs = Arrays.copyOf(specs, size * 2);
+                roots = Arrays.copyOf(roots, size * 2);
+            }
+            specs[size] = spec;
+            roots[size++] = root;
+            return true;
+        }
+
+        private int intern(Expression<T> expression) {
+            Integer existing = index.get(expression);
+            if(existing != null) {
+                return existing;
+            }
+
+            int node;
+            switch (expression.kind()) {
+                case NAMED:
+                    node = intern(((Expression.Named<T>) expression).body());
+                    break;
+                case COMPILED:
+                    node = intern(expression.plain());
+                    break;
+                case CONSTANT:
+                    node = append(CONSTANT, null, expression);
+                    break;
+                case NOT:
+                    node = append(NOT, new int[] {intern(((Expression.Not<T>) expression).operand())}, null);
+                    break;
+                case AND:
+                case OR:
+                    Expression<T>[] junctionOperands = ((Expression.Junction<T>) expression).operands();
+                    int[] children = new int[junctionOperands.length];
+                    for(int i = 0; i < children.length; i++) {
+                        children[i] = intern(junctionOperands[i]);
+                    }
+                    node = append(expression.kind() == Expression.Kind.AND ? AND : OR, children, null);
+                    break;
+                default:
+                    node = append(EVALUATE, null, expression);
+            }
+
+            index.put(expression, node);
+            return node;
+        }
+
+        private int append(byte kind, int[] children, Expression<T> expression) {
+            if(nodes == kinds.length) {
+                kinds = Arrays.copyOf(kinds, nodes * 2);
+                operands = Arrays.copyOf(operands, nodes * 2);
+                expressions = Arrays.copyOf(expressions, nodes * 2);
+            }
+            kinds[nodes] = kind;
+            operands[nodes] = children;
+            expressions[nodes] = expression;
+            return nodes++;
+        }
+
+        private Network<T> build() {
+            return new Network<>(this);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <U> Specification<U>[] newSpecifications(int length) {
+            return (Specification<U>[]) new Specification<?>[length];
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <U> Expression<U>[] newExpressions(int length) {
+            return (Expression<U>[]) new Expression<?>[length];
+        }
+    }
+}
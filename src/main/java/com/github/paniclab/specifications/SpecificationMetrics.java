@@ -0,0 +1,56 @@
+package com.github.paniclab.specifications;
+
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Counters of one specification id. Latency is kept in a histogram with power of two buckets in nanoseconds,
+ * bucket {@code i} counts evaluations that took from {@code 2^(i-1)} to {@code 2^i - 1} nanoseconds.
+ */
+final class SpecificationMetrics {
+    static final int BUCKETS = 40;
+
+    private final SpecId<?> id;
+    private final LongAdder passes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder exceptions = new LongAdder();
+    private final LongAdder[] latency = new LongAdder[BUCKETS];
+
+
+    SpecificationMetrics(SpecId<?> id) {
+        this.id = id;
+        for(int i = 0; i < BUCKETS; i++) {
+            latency[i] = new LongAdder();
+        }
+    }
+
+
+    void record(boolean result) {
+        (result ? passes : failures).increment();
+    }
+
+    void recordException() {
+        exceptions.increment();
+    }
+
+    void recordLatency(long nanos) {
+        latency[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0L, nanos)))].increment();
+    }
+
+    void reset() {
+        passes.reset();
+        failures.reset();
+        exceptions.reset();
+        for(LongAdder bucket : latency) {
+            bucket.reset();
+        }
+    }
+
+    MetricsSnapshot snapshot() {
+        long[] histogram = new long[BUCKETS];
+        for(int i = 0; i < BUCKETS; i++) {
+            histogram[i] = latency[i].sum();
+        }
+        return new MetricsSnapshot(id, passes.sum(), failures.sum(), exceptions.sum(), histogram);
+    }
+}
@@ -2,28 +2,77 @@ package com.github.paniclab.specifications;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 
 
 public class SpecificationProvider {
-    private static final ConcurrentMap<SpecId<?>, Specification<?>> SPEC_REGISTRY = new ConcurrentHashMap<>();
+    private static final SpecificationRegistry SPEC_REGISTRY = new SpecificationRegistry();
+    private static final SpecificationProvider INSTANCE = new SpecificationProvider();
+
+    private static final ClassValue<ClassMetadata> METADATA = new ClassValue<ClassMetadata>() {
+        @Override
+        protected ClassMetadata computeValue(Class<?> type) {
+            return new ClassMetadata(type);
+        }
+    };
+
+
+    static SpecificationProvider instance() {
+        return INSTANCE;
+    }
+
+    static SpecificationRegistry registry() {
+        return SPEC_REGISTRY;
+    }
+
+    public static <U> Optional<Specification<U>> byId(SpecId<U> id) {
+        return Optional.ofNullable(SPEC_REGISTRY.get(id));
+    }
+
+    public static <U> List<Specification<U>> allFor(Class<U> subject) {
+        return SPEC_REGISTRY.allFor(subject);
+    }
+
+    public static void forEach(Consumer<? super Specification<?>> action) {
+        SPEC_REGISTRY.forEach(action);
+    }
+
+    /**
+     * Test hook, removes the given specification from the registry and returns {@code false} if it was not
+     * registered. Registrations are otherwise permanent, tests and benchmarks use it to clean up after themselves.
+     */
+    public static boolean unregisterForTesting(Specification<?> spec) {
+        return spec.id() != null && SPEC_REGISTRY.remove(spec.id(), spec);
+    }
 
     <U extends Specification<?>> void register(U spec) {
-        ConcurrentMap<SpecId<?>, Specification<?>> registry = SPEC_REGISTRY;
-        if(registry.containsKey(spec.id())) {
-            throw new SecurityException("Specification with id=" + spec.id() + " is already exists");
+        if(spec.id() == null) {
+            throw new SpecificationException("Unable to register specification without id: " + spec);
         }
 
-        registry.put(spec.id(), spec);
+        if(SPEC_REGISTRY.putIfAbsent(spec.id(), spec) != null) {
+            throw new SecurityException("Specification with id=" + spec.id() + " is already exists");
+        }
     }
 
+    @SuppressWarnings("unchecked")
     protected <U, R extends Specification<U>, B extends SpecificationBuilder<U, ? extends Specification<U>>> R getInstance(Class<R> specClass, B builder) {
+        SpecificationFactory<U, R> factory = (SpecificationFactory<U, R>) METADATA.get(specClass).factory();
+        if(factory != null) {
+            return factory.create(builder);
+        }
+
         R spec = getBrandNewInstance(specClass);
 
         return injectFromBuilder(spec, builder);
@@ -32,68 +81,202 @@ public class SpecificationProvider {
     @SuppressWarnings("unchecked")
     @NotNull
     protected <U> U getBrandNewInstance(@NotNull Class<U> clazz) {
-        Constructor<U> constructor;
-
-        constructor = (Constructor<U>) Arrays.stream(clazz.getDeclaredConstructors())
-                                             .filter(c -> c.getGenericParameterTypes().length == 0)
-                                             .findFirst()
-                                             .orElseThrow(() -> new SpecificationException("Unable to create instance of" +
-                                                     " class " + clazz.getCanonicalName() + ". This class has no " +
-                                                     "appropriate constructor with no args."));
+        MethodHandle constructor = METADATA.get(clazz).constructor();
+        if(constructor == null) {
+            throw new SpecificationException("Unable to create instance of class " + clazz.getCanonicalName() +
+                    ". This class has no appropriate constructor with no args.");
+        }
 
-        U instance;
         try {
-            constructor.setAccessible(true);
-            instance = constructor.newInstance();
-
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            return (U) constructor.invokeExact();
+        } catch (Throwable e) {
             throw new SpecificationException("Unable to create instance of class " + clazz.getCanonicalName(), e);
         }
-
-        return instance;
     }
 
     private <U, R extends Specification<U>, B extends SpecificationBuilder<U, ? extends Specification<U>>> R injectFromBuilder(R spec, B builder) {
-        Arrays.stream(spec.getClass().getDeclaredFields()).forEach(field -> {
-            Optional<Field> builderField = Optional.ofNullable(getField(builder.getClass(), field.getName()));
-            Object valueToInject;
-            if(builderField.isPresent()) {
-                valueToInject = getValue(builderField.get(), builder);
-                populate(field, spec, valueToInject);
-            }
-        });
+        InjectionPlan plan = METADATA.get(spec.getClass()).planFor(builder.getClass());
+        plan.inject(builder, spec);
 
         return spec;
     }
 
-    private Field getField(Class<?> clazz, String fieldName) {
-        try {
-            return clazz.getDeclaredField(fieldName);
-        } catch (NoSuchFieldException | SecurityException e) {
-            throw new SpecificationException("Cannot create specification instance, specification class: " + clazz);
-        }
+    //@SuppressWarnings("unchecked")
+    <R extends Specification<?>> Class<R> getSpecType(Class<?> clazz) {
+        return (Class<R>) clazz;
     }
 
-    private Object getValue(Field field, Object holder) {
-        field.setAccessible(true);
-        try {
-            return field.get(holder);
-        } catch (IllegalAccessException e) {
-            throw new SpecificationException("Cannot create specification instance.");
+
+    /**
+     * Reflective data of a specification class, resolved once per class: the generated factory if there is one,
+     * the no-args constructor and one injection plan per builder class that was used to build an instance of it.
+     */
+    private static final class ClassMetadata {
+        private final Class<?> specClass;
+        private final SpecificationFactory<?, ?> factory;
+        private final MethodHandle constructor;
+        private final ClassValue<InjectionPlan> plans = new ClassValue<InjectionPlan>() {
+            @Override
+            protected InjectionPlan computeValue(Class<?> builderClass) {
+                return new InjectionPlan(specClass, builderClass);
+            }
+        };
+
+        private ClassMetadata(Class<?> specClass) {
+            this.specClass = specClass;
+            this.factory = resolveFactory(specClass);
+            this.constructor = factory == null ? resolveConstructor(specClass) : null;
         }
-    }
 
-    private <U, R extends Specification<U>> void populate(Field field, R spec, Object value) {
-        field.setAccessible(true);
-        try {
-            field.set(spec, value);
-        } catch (IllegalAccessException e) {
-            throw new SpecificationException("Cannot create specification instance, specification class: " + spec.getClass());
+        SpecificationFactory<?, ?> factory() {
+            return factory;
+        }
+
+        MethodHandle constructor() {
+            return constructor;
+        }
+
+        private static SpecificationFactory<?, ?> resolveFactory(Class<?> clazz) {
+            Package pkg = clazz.getPackage();
+            String packagePrefix = pkg == null || pkg.getName().isEmpty() ? "" : pkg.getName() + ".";
+            String simpleBinaryName = clazz.getName().substring(packagePrefix.length()).replace('$', '_');
+
+            Class<?> factoryClass;
+            try {
+                factoryClass = Class.forName(packagePrefix + simpleBinaryName + SpecificationFactory.SUFFIX,
+                                             true, clazz.getClassLoader());
+            } catch (ClassNotFoundException | LinkageError e) {
+                return null;
+            }
+
+            if(!SpecificationFactory.class.isAssignableFrom(factoryClass)) {
+                return null;
+            }
+
+            try {
+                return (SpecificationFactory<?, ?>) factoryClass.getConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new SpecificationException("Unable to create generated factory " + factoryClass.getName(), e);
+            }
+        }
+
+        InjectionPlan planFor(Class<?> builderClass) {
+            return plans.get(builderClass);
+        }
+
+        private static MethodHandle resolveConstructor(Class<?> clazz) {
+            Constructor<?> constructor = Arrays.stream(clazz.getDeclaredConstructors())
+                                               .filter(c -> c.getGenericParameterTypes().length == 0)
+                                               .findFirst()
+                                               .orElse(null);
+
+            if(constructor == null || Modifier.isAbstract(clazz.getModifiers())) {
+                return null;
+            }
+
+            try {
+                constructor.setAccessible(true);
+                return MethodHandles.lookup()
+                                    .unreflectConstructor(constructor)
+                                    .asType(MethodType.methodType(Object.class));
+            } catch (IllegalAccessException | SecurityException e) {
+                throw new SpecificationException("Unable to create instance of class " + clazz.getCanonicalName(), e);
+            }
         }
     }
 
-    //@SuppressWarnings("unchecked")
-    <R extends Specification<?>> Class<R> getSpecType(Class<?> clazz) {
-        return (Class<R>) clazz;
+
+    /**
+     * Pairs of builder getters and specification setters for every specification field that has a builder field
+     * with the same name. The getter is the builder's {@code getName()} method when there is one, the field otherwise.
+     */
+    private static final class InjectionPlan {
+        private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+        private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+        private final MethodHandle[] getters;
+        private final MethodHandle[] setters;
+
+        private InjectionPlan(Class<?> specClass, Class<?> builderClass) {
+            List<MethodHandle> getters = new ArrayList<>();
+            List<MethodHandle> setters = new ArrayList<>();
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+            for(Class<?> current = specClass; current != Object.class; current = current.getSuperclass()) {
+                for(Field field : current.getDeclaredFields()) {
+                    if(Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+
+                    Field builderField = getField(builderClass, field.getName());
+                    if(builderField == null) {
+                        continue;
+                    }
+
+                    try {
+                        Method builderGetter = getGetter(builderClass, field.getName());
+                        MethodHandle getter;
+                        if(builderGetter != null) {
+                            builderGetter.setAccessible(true);
+                            getter = lookup.unreflect(builderGetter);
+                        } else {
+                            builderField.setAccessible(true);
+                            getter = lookup.unreflectGetter(builderField);
+                        }
+                        field.setAccessible(true);
+                        getters.add(getter.asType(GETTER_TYPE));
+                        setters.add(lookup.unreflectSetter(field).asType(SETTER_TYPE));
+                    } catch (IllegalAccessException | SecurityException e) {
+                        throw new SpecificationException("Cannot create specification instance, specification class: "
+                                + specClass, e);
+                    }
+                }
+            }
+
+            this.getters = getters.toArray(new MethodHandle[0]);
+            this.setters = setters.toArray(new MethodHandle[0]);
+        }
+
+        void inject(Object builder, Object spec) {
+            try {
+                for(int i = 0; i < getters.length; i++) {
+                    setters[i].invokeExact(spec, getters[i].invokeExact(builder));
+                }
+            } catch (Throwable e) {
+                throw new SpecificationException("Cannot create specification instance, specification class: "
+                        + spec.getClass(), e);
+            }
+        }
+
+        /**
+         * Builder values may be derived, e.g. the expression of a builder given a predicate only, so a no-args
+         * getter of the field takes precedence over the field itself.
+         */
+        private static Method getGetter(Class<?> clazz, String fieldName) {
+            String name = "get" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+            for(Class<?> current = clazz; current != Object.class; current = current.getSuperclass()) {
+                try {
+                    return current.getDeclaredMethod(name);
+                } catch (NoSuchMethodException e) {
+                    //keep looking in superclass
+                } catch (SecurityException e) {
+                    throw new SpecificationException("Cannot create specification instance, specification class: " + clazz, e);
+                }
+            }
+            return null;
+        }
+
+        private static Field getField(Class<?> clazz, String fieldName) {
+            for(Class<?> current = clazz; current != Object.class; current = current.getSuperclass()) {
+                try {
+                    return current.getDeclaredField(fieldName);
+                } catch (NoSuchFieldException e) {
+                    //keep looking in superclass
+                } catch (SecurityException e) {
+                    throw new SpecificationException("Cannot create specification instance, specification class: " + clazz, e);
+                }
+            }
+            return null;
+        }
     }
 }
@@ -0,0 +1,131 @@
+package com.github.paniclab.specifications;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+
+/**
+ * Registered specifications, split by {@link SpecId#subject()} and then by the enum type of the id. Every enum type
+ * gets a dense array indexed by ordinal, so a lookup is two hash lookups and an array read, none of them locking.
+ */
+final class SpecificationRegistry {
+    private final ConcurrentMap<Class<?>, SubjectRegistry> subjects = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+
+    /**
+     * Registers the specification under its id, returns the specification registered before under the same id
+     * or {@code null} if the slot was free.
+     */
+    Specification<?> putIfAbsent(SpecId<?> id, Specification<?> spec) {
+        SubjectRegistry registry = subjects.computeIfAbsent(id.subject(), subject -> new SubjectRegistry());
+        AtomicReferenceArray<Specification<?>> slots = registry.slotsFor(id);
+        int ordinal = id.value().ordinal();
+
+        if(slots.compareAndSet(ordinal, null, spec)) {
+            registry.size.incrementAndGet();
+            for(Listener listener : listeners) {
+                listener.registered(spec);
+            }
+            return null;
+        }
+        return slots.get(ordinal);
+    }
+
+    boolean remove(SpecId<?> id, Specification<?> spec) {
+        SubjectRegistry registry = subjects.get(id.subject());
+        if(registry == null) {
+            return false;
+        }
+
+        AtomicReferenceArray<Specification<?>> slots = registry.byEnum.get(id.value().getDeclaringClass());
+        if(slots != null && slots.compareAndSet(id.value().ordinal(), spec, null)) {
+            registry.size.decrementAndGet();
+            for(Listener listener : listeners) {
+                listener.unregistered(spec);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    <U> Specification<U> get(SpecId<U> id) {
+        SubjectRegistry registry = subjects.get(id.subject());
+        if(registry == null) {
+            return null;
+        }
+
+        AtomicReferenceArray<Specification<?>> slots = registry.byEnum.get(id.value().getDeclaringClass());
+        return slots == null ? null : (Specification<U>) slots.get(id.value().ordinal());
+    }
+
+    @SuppressWarnings("unchecked")
+    <U> List<Specification<U>> allFor(Class<U> subject) {
+        SubjectRegistry registry = subjects.get(subject);
+        if(registry == null) {
+            return Collections.emptyList();
+        }
+
+        List<Specification<U>> result = new ArrayList<>(registry.size.get());
+        registry.forEach(spec -> result.add((Specification<U>) spec));
+        return result;
+    }
+
+    void forEach(Consumer<? super Specification<?>> action) {
+        for(SubjectRegistry registry : subjects.values()) {
+            registry.forEach(action);
+        }
+    }
+
+    void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+
+    /**
+     * Notified on the registering thread after a registration or removal took effect.
+     */
+    interface Listener {
+        void registered(Specification<?> spec);
+        void unregistered(Specification<?> spec);
+    }
+
+
+    private static final class SubjectRegistry {
+        private final ConcurrentMap<Class<?>, AtomicReferenceArray<Specification<?>>> byEnum = new ConcurrentHashMap<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        private AtomicReferenceArray<Specification<?>> slotsFor(SpecId<?> id) {
+            Class<?> enumType = id.value().getDeclaringClass();
+            AtomicReferenceArray<Specification<?>> slots = byEnum.get(enumType);
+            if(slots == null) {
+                slots = byEnum.computeIfAbsent(enumType,
+                        type -> new AtomicReferenceArray<>(type.getEnumConstants().length));
+            }
+            return slots;
+        }
+
+        private void forEach(Consumer<? super Specification<?>> action) {
+            for(AtomicReferenceArray<Specification<?>> slots : byEnum.values()) {
+                for(int i = 0; i < slots.length(); i++) {
+                    Specification<?> spec = slots.get(i);
+                    if(spec != null) {
+                        action.accept(spec);
+                    }
+                }
+            }
+        }
+    }
+}
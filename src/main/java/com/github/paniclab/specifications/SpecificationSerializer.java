@@ -0,0 +1,256 @@
+package com.github.paniclab.specifications;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Kryo serializer of a single specification. Registered specifications are written and read by reference, one
+ * instance must be used for a whole stream.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class SpecificationSerializer extends Serializer<Specification> {
+    private static final int FALSE = 0;
+    private static final int TRUE = 1;
+    private static final int NOT = 2;
+    private static final int AND = 3;
+    private static final int OR = 4;
+    private static final int NAMED = 5;
+    private static final int MEMOIZED = 6;
+    private static final int REFERENCE = 7;
+
+    private final ClassLoader classLoader;
+    private final Map<Class<?>, Integer> classIndex = new HashMap<>();
+    private final List<Class<?>> classes = new ArrayList<>();
+
+
+    public SpecificationSerializer(ClassLoader classLoader) {
+        super(false, true);
+        this.classLoader = classLoader;
+    }
+
+
+    @Override
+    public void write(Kryo kryo, Output output, Specification spec) {
+        writeClass(output, spec.subject());
+        writeClass(output, spec.specType());
+
+        SpecId<?> id = spec.id();
+        output.writeBoolean(id != null);
+        if(id != null) {
+            writeId(output, id);
+        }
+
+        if(id != null && !isSerializable(spec.expression()) && registered(id) == spec) {
+            output.writeVarInt(REFERENCE, true);
+            writeId(output, id);
+        } else {
+            writeNode(output, spec.expression(), spec);
+        }
+    }
+
+    @Override
+    public Specification read(Kryo kryo, Input input, Class<? extends Specification> type) {
+        Class subject = readClass(input);
+        Class specType = readClass(input);
+        SpecId id = input.readBoolean() ? readId(input) : null;
+        Expression expression = readNode(input);
+        if(id != null) {
+            Specification registered = registered(id);
+            if(registered != null) {
+                return registered;
+            }
+        }
+
+        Specification spec = new SpecificationBuilder<>(subject, specType)
+                .withSpecId(id)
+                .withExpression(expression)
+                .build();
+        if(id != null) {
+            spec.provider().register(spec);
+        }
+        return spec;
+    }
+
+
+    private void writeNode(Output output, Expression<?> expression, Specification<?> owner) {
+        switch (expression.kind()) {
+            case CONSTANT:
+                output.writeVarInt(((Expression.Constant<?>) expression).value() ? TRUE : FALSE, true);
+                break;
+            case NOT:
+                output.writeVarInt(NOT, true);
+                writeNode(output, ((Expression.Not<?>) expression).operand(), owner);
+                break;
+            case AND:
+            case OR:
+                Expression<?>[] operands = ((Expression.Junction<?>) expression).operands();
+                output.writeVarInt(expression.kind() == Expression.Kind.AND ? AND : OR, true);
+                output.writeVarInt(operands.length, true);
+                for(Expression<?> operand : operands) {
+                    writeNode(output, operand, owner);
+                }
+                break;
+            case NAMED:
+                output.writeVarInt(NAMED, true);
+                writeId(output, ((Expression.Named<?>) expression).id());
+                break;
+            case MEMOIZED:
+                MemoizedExpression<?> memoized = (MemoizedExpression<?>) expression;
+                Memoization memoization = memoized.memoization();
+                output.writeVarInt(MEMOIZED, true);
+                output.writeBoolean(memoization.keyType() == Memoization.KeyType.IDENTITY);
+                output.writeBoolean(memoization.weakKeys());
+                output.writeVarInt(memoization.maximumSize(), true);
+                output.writeVarLong(memoization.expireAfterWriteNanos(), true);
+                output.writeVarInt(memoization.concurrencyLevel(), true);
+                writeNode(output, memoized.operand(), owner);
+                break;
+            case COMPILED:
+                writeNode(output, expression.plain(), owner);
+                break;
+            case ADAPTIVE:
+                writeNode(output, ((AdaptiveExpression<?>) expression).junction(), owner);
+                break;
+            default:
+                throw new SpecificationException("Unable to serialize specification " + owner + ", it contains " +
+                        "an anonymous predicate. Register the predicate with an id and compose by reference.");
+        }
+    }
+
+    private Expression readNode(Input input) {
+        int tag = input.readVarInt(true);
+        switch (tag) {
+            case FALSE:
+            case TRUE:
+                return Expression.constant(tag == TRUE);
+            case NOT:
+                return Expression.not(readNode(input));
+            case AND:
+            case OR:
+                int length = input.readVarInt(true);
+                Expression[] operands = new Expression[length];
+                for(int i = 0; i < length; i++) {
+                    operands[i] = readNode(input);
+                }
+                Expression.Junction junction = tag == AND ? new Expression.And(operands) : new Expression.Or(operands);
+                return ExpressionOptimizer.normalize(junction);
+            case NAMED:
+                SpecId id = readId(input);
+                return Expression.named(id, resolve(id).expression());
+            case REFERENCE:
+                return resolve(readId(input)).expression();
+            case MEMOIZED:
+                Memoization.Builder builder = Memoization.builder();
+                if(input.readBoolean()) {
+                    builder.withIdentityKeys();
+                }
+                if(input.readBoolean()) {
+                    builder.withWeakKeys();
+                }
+                builder.withMaximumSize(input.readVarInt(true));
+                long expireAfterWriteNanos = input.readVarLong(true);
+                if(expireAfterWriteNanos > 0) {
+                    builder.withExpireAfterWrite(expireAfterWriteNanos, TimeUnit.NANOSECONDS);
+                }
+                builder.withConcurrencyLevel(input.readVarInt(true));
+                return new MemoizedExpression<>(readNode(input), builder.build());
+            default:
+                throw new SpecificationException("Unknown expression tag: " + tag);
+        }
+    }
+
+    private static Specification registered(SpecId id) {
+        return (Specification) SpecificationProvider.byId(id).orElse(null);
+    }
+
+    private static Specification<?> resolve(SpecId id) {
+        Specification<?> referenced = registered(id);
+        if(referenced == null) {
+            throw new SpecificationException("Unresolved specification reference: " + id +
+                    ". Referenced specifications must be registered before loading.");
+        }
+        return referenced;
+    }
+
+    private static boolean isSerializable(Expression<?> expression) {
+        switch (expression.kind()) {
+            case CONSTANT:
+            case NAMED:
+                return true;
+            case NOT:
+                return isSerializable(((Expression.Not<?>) expression).operand());
+            case AND:
+            case OR:
+                for(Expression<?> operand : ((Expression.Junction<?>) expression).operands()) {
+                    if(!isSerializable(operand)) {
+                        return false;
+                    }
+                }
+                return true;
+            case MEMOIZED:
+                return isSerializable(((MemoizedExpression<?>) expression).operand());
+            case COMPILED:
+                return isSerializable(expression.plain());
+            case ADAPTIVE:
+                return isSerializable(((AdaptiveExpression<?>) expression).junction());
+            default:
+                return false;
+        }
+    }
+
+    private void writeId(Output output, SpecId<?> id) {
+        if(!(id instanceof Enum)) {
+            throw new SpecificationException("Only enum based specification ids can be serialized, id: " + id);
+        }
+        writeClass(output, ((Enum<?>) id).getDeclaringClass());
+        output.writeString(((Enum<?>) id).name());
+    }
+
+    private SpecId readId(Input input) {
+        Class enumType = readClass(input);
+        String name = input.readString();
+        try {
+            return (SpecId) Enum.valueOf(enumType, name);
+        } catch (IllegalArgumentException | ClassCastException e) {
+            throw new SpecificationException("Unknown specification id " + enumType.getName() + "." + name, e);
+        }
+    }
+
+    private void writeClass(Output output, Class<?> clazz) {
+        Integer index = classIndex.get(clazz);
+        if(index != null) {
+            output.writeVarInt(index + 1, true);
+            return;
+        }
+
+        classIndex.put(clazz, classes.size());
+        classes.add(clazz);
+        output.writeVarInt(0, true);
+        output.writeString(clazz.getName());
+    }
+
+    private Class<?> readClass(Input input) {
+        int index = input.readVarInt(true);
+        if(index > 0) {
+            return classes.get(index - 1);
+        }
+
+        String name = input.readString();
+        try {
+            Class<?> clazz = Class.forName(name, false, classLoader);
+            classes.add(clazz);
+            return clazz;
+        } catch (ClassNotFoundException e) {
+            throw new SpecificationException("Unable to load class " + name, e);
+        }
+    }
+}
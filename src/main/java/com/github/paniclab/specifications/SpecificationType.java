@@ -0,0 +1,18 @@
+package com.github.paniclab.specifications;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Marks a {@link Specification} subclass for the specification annotation processor. The class must declare a
+ * non-private constructor taking a single {@link SpecificationBuilder}.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface SpecificationType {
+}
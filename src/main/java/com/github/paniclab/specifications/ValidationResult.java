@@ -0,0 +1,199 @@
+package com.github.paniclab.specifications;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Outcome of {@link Specification#validate(Object, ValidationResult)}, one bit per top level rule. Reusable.
+ */
+public final class ValidationResult {
+    private Specification<?> specification;
+    private Object instance;
+    private Expression<?>[] rules;
+    private long[] failed = new long[1];
+    private int failures;
+
+    private List<SpecId<?>> failedIds;
+    private String message;
+
+
+    public ValidationResult() {
+    }
+
+
+    <T> void reset(Specification<T> specification, Object instance, Expression<?>[] rules) {
+        this.specification = specification;
+        this.instance = instance;
+        this.rules = rules;
+        this.failures = 0;
+        this.failedIds = null;
+        this.message = null;
+
+        int words = (rules.length + Long.SIZE - 1) / Long.SIZE;
+        if(failed.length < words) {
+            failed = new long[words];
+        } else {
+            for(int i = 0; i < words; i++) {
+                failed[i] = 0L;
+            }
+        }
+    }
+
+    void fail(int rule) {
+        failed[rule >>> 6] |= 1L << rule;
+        failures++;
+    }
+
+
+    public boolean isValid() {
+        return failures == 0;
+    }
+
+    public int failureCount() {
+        return failures;
+    }
+
+    public int ruleCount() {
+        return rules == null ? 0 : rules.length;
+    }
+
+    public boolean hasFailed(int rule) {
+        return rule >= 0 && rule < ruleCount() && (failed[rule >>> 6] & 1L << rule) != 0;
+    }
+
+    public boolean hasFailed(SpecId<?> id) {
+        for(int rule = nextFailed(0); rule >= 0; rule = nextFailed(rule + 1)) {
+            if(id.equals(idOf(rules[rule]))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indices of the failed rules, a copy.
+     */
+    public BitSet failedRules() {
+        BitSet result = new BitSet(ruleCount());
+        for(int rule = nextFailed(0); rule >= 0; rule = nextFailed(rule + 1)) {
+            result.set(rule);
+        }
+        return result;
+    }
+
+    /**
+     * Ids of the failed rules, rules without an id are left out.
+     */
+    public List<SpecId<?>> failedIds() {
+        if(failedIds == null) {
+            List<SpecId<?>> ids = new ArrayList<>(failures);
+            for(int rule = nextFailed(0); rule >= 0; rule = nextFailed(rule + 1)) {
+                SpecId<?> id = idOf(rules[rule]);
+                if(id != null) {
+                    ids.add(id);
+                }
+            }
+            failedIds = Collections.unmodifiableList(ids);
+        }
+        return failedIds;
+    }
+
+    public String message() {
+        if(message == null) {
+            message = buildMessage();
+        }
+        return message;
+    }
+
+    public Object instance() {
+        return instance;
+    }
+
+    public Specification<?> specification() {
+        return specification;
+    }
+
+    /**
+     * Throws a stackless {@link SpecificationException}. The exception keeps a copy of the failed rules and formats
+     * its message only when read, this result may be reused right away.
+     */
+    public void throwIfInvalid() throws SpecificationException {
+        if(!isValid()) {
+            Specification<?> spec = specification;
+            Object failedInstance = instance;
+            Expression<?>[] failedRules = rules;
+            long[] failedBits = Arrays.copyOf(failed, (rules.length + Long.SIZE - 1) / Long.SIZE);
+            throw new SpecificationException(failedInstance, spec,
+                    () -> format(spec, failedInstance, failedRules, failedBits));
+        }
+    }
+
+
+    private int nextFailed(int from) {
+        return rules == null ? -1 : nextFailed(rules, failed, from);
+    }
+
+    private SpecId<?> idOf(Expression<?> rule) {
+        return idOf(specification, rules, rule);
+    }
+
+    private String buildMessage() {
+        if(isValid()) {
+            return "Instance satisfies specification " + specification;
+        }
+        return format(specification, instance, rules, failed);
+    }
+
+    private static int nextFailed(Expression<?>[] rules, long[] failed, int from) {
+        for(int rule = from; rule < rules.length; rule++) {
+            long word = failed[rule >>> 6] >>> rule;
+            if(word == 0) {
+                rule = (rule | (Long.SIZE - 1));
+                continue;
+            }
+            return rule + Long.numberOfTrailingZeros(word);
+        }
+        return -1;
+    }
+
+    private static SpecId<?> idOf(Specification<?> specification, Expression<?>[] rules, Expression<?> rule) {
+        if(rule.kind() == Expression.Kind.NAMED) {
+            return ((Expression.Named<?>) rule).id();
+        }
+        return rules.length == 1 ? specification.id() : null;
+    }
+
+    /**
+     * Failed rules without an id of their own are shown as their expression, which names the ids inside them.
+     */
+    private static String format(Specification<?> specification, Object instance, Expression<?>[] rules,
+                                 long[] failed) {
+        StringBuilder sb = new StringBuilder("Instance ").append(instance)
+                                                          .append(" does not satisfy ")
+                                                          .append(specification)
+                                                          .append(", failed rules: ");
+        boolean first = true;
+        for(int rule = nextFailed(rules, failed, 0); rule >= 0; rule = nextFailed(rules, failed, rule + 1)) {
+            if(!first) {
+                sb.append(", ");
+            }
+            SpecId<?> id = idOf(specification, rules, rules[rule]);
+            sb.append(id != null ? id : "#" + rule + " " + rules[rule]);
+            first = false;
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "ValidationResult{" +
+                "valid=" + isValid() +
+                ", failures=" + failures +
+                ", rules=" + ruleCount() +
+                '}';
+    }
+}
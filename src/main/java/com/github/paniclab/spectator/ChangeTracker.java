@@ -0,0 +1,44 @@
+package com.github.paniclab.spectator;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+
+/**
+ * Names of the properties changed since the last {@link #drain()}. Not thread safe.
+ */
+public final class ChangeTracker {
+    private Set<String> changed = new LinkedHashSet<>();
+
+
+    public void changed(String property) {
+        changed.add(property);
+    }
+
+    public boolean hasChanges() {
+        return !changed.isEmpty();
+    }
+
+    public Set<String> changes() {
+        return Collections.unmodifiableSet(changed);
+    }
+
+    /**
+     * Returns the changed properties and starts tracking anew.
+     */
+    public Set<String> drain() {
+        if(changed.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> drained = changed;
+        changed = new LinkedHashSet<>();
+        return drained;
+    }
+
+
+    @Override
+    public String toString() {
+        return "ChangeTracker" + changed;
+    }
+}
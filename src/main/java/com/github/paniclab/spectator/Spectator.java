@@ -15,16 +15,11 @@ public interface Spectator {
         return predicate.test(this);
     }
 
+    /**
+     * Evaluates the specification against this spectator or the object it unwraps to.
+     */
     default <U> boolean satisfy(Specification<U> spec) {
-        U subject;
-
-        try {
-            subject = this.unwrap(spec.subject());
-        } catch (ClassCastException | UnsupportedOperationException e) {
-            return false;
-        }
-
-        return spec.isSatisfiedBy(subject);
+        return SpectatorDispatch.of(getClass(), spec.subject()).satisfy(this, spec);
     }
 
     default <U> U unwrap(Class<? extends U> clazz) throws UnsupportedOperationException {
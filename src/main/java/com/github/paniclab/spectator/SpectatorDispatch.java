@@ -0,0 +1,80 @@
+package com.github.paniclab.spectator;
+
+import com.github.paniclab.specifications.Specification;
+
+import java.lang.ref.WeakReference;
+
+
+/**
+ * How instances of a runtime class reach a specification subject, decided once per pair of classes.
+ */
+enum SpectatorDispatch {
+    DIRECT,
+    UNWRAP,
+    MISS;
+
+    private static final ClassValue<BySubject> BY_SUBJECT = new ClassValue<BySubject>() {
+        @Override
+        protected BySubject computeValue(Class<?> subject) {
+            return new BySubject(subject);
+        }
+    };
+
+
+    static SpectatorDispatch of(Class<?> type, Class<?> subject) {
+        return BY_SUBJECT.get(subject).get(type);
+    }
+
+    <U> boolean satisfy(Spectator spectator, Specification<U> spec) {
+        switch (this) {
+            case DIRECT:
+                return spec.isSatisfiedBy(spec.subject().cast(spectator));
+            case UNWRAP:
+                U subject;
+                try {
+                    subject = spectator.unwrap(spec.subject());
+                } catch (ClassCastException | UnsupportedOperationException e) {
+                    return false;
+                }
+                return spec.isSatisfiedBy(subject);
+            default:
+                return false;
+        }
+    }
+
+
+    /**
+     * An overridden {@code unwrap} wins even over an instance of the subject.
+     */
+    private static SpectatorDispatch decide(Class<?> type, Class<?> subject) {
+        if(overridesUnwrap(type)) {
+            return UNWRAP;
+        }
+        return subject.isAssignableFrom(type) ? DIRECT : MISS;
+    }
+
+    private static boolean overridesUnwrap(Class<?> type) {
+        try {
+            return type.getMethod("unwrap", Class.class).getDeclaringClass() != Spectator.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+
+    /**
+     * Dispatches of one subject by type. Refers to the subject weakly, the types it is cached on must not retain it.
+     */
+    private static final class BySubject extends ClassValue<SpectatorDispatch> {
+        private final WeakReference<Class<?>> subject;
+
+        private BySubject(Class<?> subject) {
+            this.subject = new WeakReference<>(subject);
+        }
+
+        @Override
+        protected SpectatorDispatch computeValue(Class<?> type) {
+            return decide(type, subject.get());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.paniclab.spectator;
+
+import com.github.paniclab.specifications.Specification;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Evaluation of one specification against many spectators, grouped by runtime class.
+ */
+public final class Spectators {
+
+    private Spectators() {}
+
+
+    /**
+     * Returns the set of indices of the spectators satisfying the specification.
+     */
+    public static <U> BitSet satisfying(List<? extends Spectator> spectators, Specification<U> spec) {
+        BitSet result = new BitSet(spectators.size());
+        for(Map.Entry<Class<?>, Group> entry : group(spectators).entrySet()) {
+            SpectatorDispatch dispatch = SpectatorDispatch.of(entry.getKey(), spec.subject());
+            if(dispatch == SpectatorDispatch.MISS) {
+                continue;
+            }
+
+            Group group = entry.getValue();
+            for(int i = 0; i < group.size; i++) {
+                if(dispatch.satisfy(group.members[i], spec)) {
+                    result.set(group.indices[i]);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the spectators satisfying the specification, in encounter order.
+     */
+    public static <S extends Spectator, U> List<S> select(List<S> spectators, Specification<U> spec) {
+        BitSet matches = satisfying(spectators, spec);
+        List<S> result = new ArrayList<>(matches.cardinality());
+        int index = 0;
+        for(S spectator : spectators) {
+            if(matches.get(index++)) {
+                result.add(spectator);
+            }
+        }
+        return result;
+    }
+
+    public static <U> int count(List<? extends Spectator> spectators, Specification<U> spec) {
+        return satisfying(spectators, spec).cardinality();
+    }
+
+
+    private static Map<Class<?>, Group> group(List<? extends Spectator> spectators) {
+        Map<Class<?>, Group> groups = new IdentityHashMap<>();
+        Class<?> lastType = null;
+        Group lastGroup = null;
+
+        int index = 0;
+        for(Spectator spectator : spectators) {
+            Class<?> type = spectator.getClass();
+            if(type != lastType) {
+                lastType = type;
+                lastGroup = groups.computeIfAbsent(type, key -> new Group());
+            }
+            lastGroup.add(index++, spectator);
+        }
+        return groups;
+    }
+
+
+    private static final class Group {
+        private int[] indices = new int[8];
+        private Spectator[] members = new Spectator[8];
+        private int size;
+
+        private void add(int index, Spectator member) {
+            if(size == indices.length) {
+                indices = Arrays.copyOf(indices, size * 2);
+                members = Arrays.copyOf(members, size * 2);
+            }
+            indices[size] = index;
+            members[size++] = member;
+        }
+    }
+}
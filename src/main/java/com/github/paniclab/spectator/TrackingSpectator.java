@@ -0,0 +1,19 @@
+package com.github.paniclab.spectator;
+
+import com.github.paniclab.invariants.InvariantState;
+
+
+/**
+ * Spectator recording which of its properties changed, so that invariants can be re-checked incrementally.
+ */
+public interface TrackingSpectator extends Spectator {
+    ChangeTracker changes();
+
+    /**
+     * Re-checks the invariants reading the properties changed since the last recheck, returns {@code true} if every
+     * invariant of the state holds.
+     */
+    default boolean recheck(InvariantState<?> state) {
+        return state.update(changes().drain());
+    }
+}
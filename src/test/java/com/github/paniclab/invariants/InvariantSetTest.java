@@ -0,0 +1,184 @@
+package com.github.paniclab.invariants;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+
+public class InvariantSetTest {
+
+    @Test
+    public void verify_stopsAtTheFirstViolation() {
+        AtomicInteger lastChecked = new AtomicInteger();
+        InvariantSet<String> invariants = InvariantSet.builder(String.class)
+                .add("notEmpty", s -> !s.isEmpty())
+                .add("short", s -> s.length() < 3)
+                .add("counted", s -> lastChecked.incrementAndGet() > 0)
+                .build();
+
+        try {
+            invariants.verify("abcd");
+            fail();
+        } catch (InvariantCheckException e) {
+            assertEquals("short", String.valueOf(e.getInvariant()));
+            assertEquals("abcd", e.getInstance());
+            assertEquals(0, e.getStackTrace().length);
+        }
+        assertEquals(0, lastChecked.get());
+        assertTrue(invariants.check("ab"));
+    }
+
+    @Test
+    public void check_movesCheapViolationsFirst() {
+        InvariantSet<Integer> invariants = InvariantSet.builder(Integer.class)
+                .add("slow", InvariantSetTest::slowlyTrue)
+                .add("positive", i -> i > 0)
+                .build();
+        assertEquals(Arrays.asList("slow", "positive"), invariants.order());
+
+        for(int i = 0; i < 20_000; i++) {
+            invariants.check(-i);
+        }
+
+        assertEquals(Arrays.asList("positive", "slow"), invariants.order());
+        assertEquals(Arrays.asList("slow", "positive"), invariants.names());
+    }
+
+    @Test
+    public void checkAll_reportsEveryViolation() {
+        InvariantSet<String> invariants = InvariantSet.builder(String.class)
+                .add("notEmpty", s -> !s.isEmpty())
+                .add("short", s -> s.length() < 3)
+                .add("lowerCase", s -> s.equals(s.toLowerCase()))
+                .add("throwing", s -> { throw new InvariantCheckException("broken"); })
+                .build();
+
+        InvariantReport report = invariants.checkAll("ABCD");
+
+        assertFalse(report.isValid());
+        assertTrue(report.isComplete());
+        assertEquals(Arrays.asList("short", "lowerCase", "throwing"), report.violations());
+        try {
+            report.throwIfInvalid();
+            fail();
+        } catch (InvariantCheckException e) {
+            assertEquals(0, e.getStackTrace().length);
+            assertEquals("ABCD", e.getInstance());
+            assertEquals(report.toString(), e.getMessage());
+        }
+        InvariantSet.builder(String.class).add("notEmpty", s -> !s.isEmpty()).build().checkAll("ab").throwIfInvalid();
+    }
+
+    @Test
+    public void checkAll_runsExpensiveInvariantsInParallelUntilTheDeadline() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            InvariantSet<String> invariants = InvariantSet.builder(String.class)
+                    .add("notEmpty", s -> !s.isEmpty())
+                    .addExpensive("remote", s -> s.startsWith("b"))
+                    .addExpensive("hanging", s -> {
+                        try {
+                            return release.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            return false;
+                        }
+                    })
+                    .build();
+
+            InvariantReport report = invariants.checkAll("abc", executor, 50, TimeUnit.MILLISECONDS);
+
+            assertFalse(report.isComplete());
+            assertEquals(Collections.singletonList("remote"), report.violations());
+            assertEquals(Collections.singletonList("hanging"), report.timedOut());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void checkAll_cancelsPendingInvariantsWhenOneThrows() {
+        AtomicInteger submitted = new AtomicInteger();
+        AtomicInteger pendingRuns = new AtomicInteger();
+        List<Runnable> queued = new ArrayList<>();
+        Executor firstInline = task -> {
+            if(submitted.getAndIncrement() == 0) {
+                task.run();
+            } else {
+                queued.add(task);
+            }
+        };
+        InvariantSet<String> invariants = InvariantSet.builder(String.class)
+                .addExpensive("broken", s -> { throw new IllegalStateException("broken"); })
+                .addExpensive("pending", s -> pendingRuns.incrementAndGet() > 0)
+                .build();
+
+        try {
+            invariants.checkAll("abc", firstInline, 1, TimeUnit.SECONDS);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("broken", e.getMessage());
+        }
+        queued.forEach(Runnable::run);
+        assertEquals(0, pendingRuns.get());
+    }
+
+    @Test
+    public void stateOf_rechecksOnlyReadersOfChangedProperties() {
+        AtomicInteger undeclaredChecks = new AtomicInteger();
+        InvariantSet<int[]> invariants = InvariantSet.builder(int[].class)
+                .add("firstPositive", a -> a[0] > 0, Collections.singleton("first"))
+                .add("secondPositive", a -> a[1] > 0, Collections.singleton("second"))
+                .add("sumSmall", a -> a[0] + a[1] < 10, Arrays.asList("first", "second"))
+                .add("undeclared", a -> undeclaredChecks.incrementAndGet() > 0)
+                .build();
+        int[] pair = {1, 1};
+
+        InvariantState<int[]> state = invariants.stateOf(pair);
+        assertTrue(state.isValid());
+        assertEquals(4, state.lastChecked());
+
+        pair[0] = -1;
+        assertFalse(state.update(Collections.singleton("first")));
+        assertEquals(3, state.lastChecked());
+        assertEquals(Collections.singletonList("firstPositive"), state.violations());
+
+        pair[1] = 20;
+        state.update(Collections.singleton("second"));
+        assertEquals(Arrays.asList("firstPositive", "sumSmall"), state.violations());
+
+        pair[0] = 1;
+        pair[1] = 1;
+        assertTrue(state.update(Arrays.asList("first", "second", "unknown")));
+        assertEquals(4, state.lastChecked());
+        assertEquals(4, undeclaredChecks.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void builder_rejectsDuplicateNames() {
+        InvariantSet.builder(String.class)
+                .add("notEmpty", s -> !s.isEmpty())
+                .add("notEmpty", s -> s.length() > 0);
+    }
+
+
+    private static boolean slowlyTrue(Integer value) {
+        long sum = value;
+        for(int i = 0; i < 2_000; i++) {
+            sum += sum * 31 + i;
+        }
+        return sum != 42 || value != null;
+    }
+}
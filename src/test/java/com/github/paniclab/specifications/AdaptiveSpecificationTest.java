@@ -0,0 +1,49 @@
+package com.github.paniclab.specifications;
+
+import org.junit.Test;
+
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+
+public class AdaptiveSpecificationTest {
+
+    @Test
+    public void adaptive_movesCheapSelectiveOperandFirst() {
+        Function<Integer, Boolean> expensive = value -> {
+            long sum = 0;
+            for(int i = 0; i < 2_000; i++) {
+                sum += (value ^ i) & 1;
+            }
+            return sum >= 0;
+        };
+        Function<Integer, Boolean> selective = value -> value % 100 == 0;
+        Specification<Integer> spec = Specification.of(Integer.class, expensive)
+                                                   .and(Specification.of(Integer.class, selective));
+
+        Specification<Integer> adaptive = spec.adaptive();
+        AdaptiveExpression<Integer> root = (AdaptiveExpression<Integer>) adaptive.expression();
+        Expression<Integer> selectiveLeaf = root.order()[1];
+        for(int i = 0; i < 200_000; i++) {
+            assertEquals(spec.isSatisfiedBy(i), adaptive.isSatisfiedBy(i));
+        }
+
+        assertSame(selectiveLeaf, root.order()[0]);
+    }
+
+    @Test
+    public void adaptive_keepsResultsOfNestedJunctions() {
+        Specification<Integer> even = Specification.of(Integer.class, value -> value % 2 == 0);
+        Specification<Integer> positive = Specification.of(Integer.class, value -> value > 0);
+        Specification<Integer> small = Specification.of(Integer.class, value -> value < 10);
+        Specification<Integer> spec = even.or(positive.and(small.not()));
+
+        Specification<Integer> adaptive = spec.adaptive();
+
+        for(int i = -20_000; i < 20_000; i++) {
+            assertEquals(spec.isSatisfiedBy(i), adaptive.isSatisfiedBy(i));
+        }
+        assertEquals(spec.subject(), adaptive.subject());
+    }
+}
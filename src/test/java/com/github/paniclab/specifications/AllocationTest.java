@@ -0,0 +1,154 @@
+package com.github.paniclab.specifications;
+
+import com.github.paniclab.invariants.Invariant;
+import com.github.paniclab.spectator.Spectator;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntPredicate;
+
+import static com.github.paniclab.specifications.Specification.not;
+import static org.junit.Assert.*;
+
+
+/**
+ * Steady state evaluation must not allocate. Every case is warmed up first, then the bytes allocated by the
+ * current thread over many evaluations are compared against a small, size independent tolerance.
+ */
+public class AllocationTest {
+    private static final int WARM_UP_ROUNDS = 3;
+    private static final int ITERATIONS = 1_000_000;
+    private static final long TOLERANCE = 512;
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    private final Integer[] values = new Integer[1024];
+    private int sink;
+
+
+    @BeforeClass
+    public static void checkSupport() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    public AllocationTest() {
+        for(int i = 0; i < values.length; i++) {
+            values[i] = i * 7 - 100;
+        }
+    }
+
+
+    @Test
+    public void leaf() {
+        assertNoAllocation(positive());
+    }
+
+    @Test
+    public void composition() {
+        Specification<Integer> spec = positive().and(even().not()).or(small());
+        assertNoAllocation(spec);
+    }
+
+    @Test
+    public void staticNotAndCompose() {
+        Specification<Integer> spec = Specification.compose(not(even()), small(), not(positive()));
+        assertNoAllocation(spec);
+    }
+
+    @Test
+    public void compiled() {
+        Specification<Integer> spec = positive().and(even().not()).or(small());
+        assertNoAllocation(spec.compile());
+    }
+
+    @Test
+    public void spectator() {
+        Specification<Subject> spec = Specification.of(Subject.class, subject -> subject.value > 0)
+                                                   .and(Specification.of(Subject.class, subject -> subject.value < 100));
+        Invariant<Spectator> invariant = spectator -> spectator instanceof Subject;
+        Subject[] subjects = new Subject[values.length];
+        for(int i = 0; i < subjects.length; i++) {
+            subjects[i] = new Subject(values[i]);
+        }
+
+        measure(() -> {
+            for(int i = 0; i < ITERATIONS; i++) {
+                Subject subject = subjects[i & (subjects.length - 1)];
+                if(subject.satisfy(spec) && subject.satisfy(invariant)) {
+                    sink++;
+                }
+            }
+        });
+    }
+
+    @Test
+    public void primitive() {
+        IntPredicate positive = value -> value > 0;
+        IntSpecification spec = IntSpecification.of(positive).and(IntSpecification.of(value -> value % 2 == 0).not());
+        int[] primitives = new int[values.length];
+        for(int i = 0; i < primitives.length; i++) {
+            primitives[i] = values[i];
+        }
+
+        measure(() -> {
+            for(int i = 0; i < ITERATIONS; i++) {
+                if(spec.isSatisfiedBy(primitives[i & (primitives.length - 1)])) {
+                    sink++;
+                }
+            }
+        });
+    }
+
+
+    private void assertNoAllocation(Specification<Integer> spec) {
+        measure(() -> {
+            for(int i = 0; i < ITERATIONS; i++) {
+                if(spec.isSatisfiedBy(values[i & (values.length - 1)])) {
+                    sink++;
+                }
+            }
+        });
+    }
+
+    private void measure(Runnable evaluation) {
+        for(int i = 0; i < WARM_UP_ROUNDS; i++) {
+            evaluation.run();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long overhead = -threads.getThreadAllocatedBytes(threadId) + threads.getThreadAllocatedBytes(threadId);
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        evaluation.run();
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before - overhead;
+
+        assertTrue("Evaluation allocated " + allocated + " bytes in " + ITERATIONS + " iterations",
+                   allocated <= TOLERANCE);
+    }
+
+    private static Specification<Integer> positive() {
+        return Specification.of(Integer.class, value -> value > 0);
+    }
+
+    private static Specification<Integer> even() {
+        return Specification.of(Integer.class, value -> value % 2 == 0);
+    }
+
+    private static Specification<Integer> small() {
+        return Specification.of(Integer.class, value -> value < 50);
+    }
+
+
+    private static final class Subject implements Spectator {
+        private final int value;
+
+        private Subject(int value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.github.paniclab.specifications;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+
+public class AsyncSpecificationTest {
+
+    @Test
+    public void batchedLeaf_collectsConcurrentEvaluations() throws Exception {
+        ManualExecutor executor = new ManualExecutor();
+        Blacklist blacklist = new Blacklist("mallory", "trudy");
+        Specification<String> allowed = Specification.batched(String.class, blacklist, executor).not();
+
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for(String name : Arrays.asList("alice", "mallory", "bob", "trudy", "alice")) {
+            results.add(allowed.isSatisfiedByAsync(name, executor));
+        }
+        executor.drain();
+
+        assertEquals(Arrays.asList(true, false, true, false, true),
+                     results.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+        assertEquals(1, blacklist.batches.size());
+        assertEquals(Arrays.asList("alice", "mallory", "bob", "trudy"), blacklist.batches.get(0));
+    }
+
+    @Test
+    public void batchedLeaf_splitsFullBatches() {
+        ManualExecutor executor = new ManualExecutor();
+        Blacklist blacklist = new Blacklist("c");
+        Specification<String> listed = Specification.batched(String.class, blacklist, executor, 2);
+
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for(String name : Arrays.asList("a", "b", "c")) {
+            results.add(listed.isSatisfiedByAsync(name, executor));
+        }
+        executor.drain();
+
+        assertTrue(results.get(2).join());
+        assertEquals(2, blacklist.batches.size());
+    }
+
+    @Test
+    public void junction_doesNotWaitForUndecidingBranches() {
+        ManualExecutor executor = new ManualExecutor();
+        Blacklist blacklist = new Blacklist("mallory");
+        Specification<String> listed = Specification.batched(String.class, blacklist, executor);
+        Specification<String> failing = Specification.of(String.class, name -> {
+            throw new AssertionError("must not be evaluated");
+        });
+        Specification<String> empty = Specification.of(String.class, String::isEmpty);
+
+        CompletableFuture<Boolean> conjunction = empty.and(listed).isSatisfiedByAsync("mallory", executor);
+        CompletableFuture<Boolean> disjunction = listed.or(failing).isSatisfiedByAsync("mallory", executor);
+        executor.drain();
+
+        assertFalse(conjunction.join());
+        assertTrue(disjunction.join());
+        assertEquals(1, blacklist.batches.size());
+        assertEquals(Arrays.asList("mallory"), blacklist.batches.get(0));
+    }
+
+    @Test
+    public void failedBatch_failsEvaluations() {
+        ManualExecutor executor = new ManualExecutor();
+        BatchPredicate<String> broken = instances -> {
+            CompletableFuture<List<Boolean>> result = new CompletableFuture<>();
+            result.completeExceptionally(new IllegalStateException("backend down"));
+            return result;
+        };
+        CompletableFuture<Boolean> result =
+                Specification.batched(String.class, broken, executor).isSatisfiedByAsync("alice", executor);
+        executor.drain();
+
+        try {
+            result.get();
+            fail();
+        } catch (ExecutionException | InterruptedException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void isSatisfiedBy_blocksOnBatch() {
+        Blacklist blacklist = new Blacklist("mallory");
+        Specification<String> listed = Specification.batched(String.class, blacklist, Runnable::run);
+
+        assertTrue(listed.isSatisfiedBy("mallory"));
+        assertFalse(listed.isSatisfiedBy("alice"));
+        assertTrue(listed.isSatisfiedByAsync("mallory").join());
+    }
+
+    @Test
+    public void wrappedBatchedLeaf_doesNotBlockTheExecutor() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Specification<String> listed = Specification.batched(String.class, new Blacklist("mallory"), executor)
+                                                        .and(Specification.of(String.class, s -> !s.isEmpty()));
+            List<Specification<String>> wrapped = Arrays.asList(listed.compile(), listed.memoized(), listed.adaptive());
+
+            for(Specification<String> spec : wrapped) {
+                assertTrue(spec.isSatisfiedByAsync("mallory", executor).get(5, TimeUnit.SECONDS));
+                assertFalse(spec.isSatisfiedByAsync("alice", executor).get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Runs submitted tasks only when drained, so that everything submitted before lands in one batch.
+     */
+    private static final class ManualExecutor implements Executor {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        private void drain() {
+            Runnable task;
+            while((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+
+
+    /**
+     * In-memory stand-in for a remote blacklist, records every batch it receives.
+     */
+    private static final class Blacklist implements BatchPredicate<String> {
+        private final Set<String> names;
+        private final List<List<String>> batches = new ArrayList<>();
+
+        private Blacklist(String...names) {
+            this.names = new HashSet<>(Arrays.asList(names));
+        }
+
+        @Override
+        public CompletableFuture<List<Boolean>> test(List<String> instances) {
+            batches.add(new ArrayList<>(instances));
+            return CompletableFuture.completedFuture(instances.stream()
+                                                              .map(names::contains)
+                                                              .collect(Collectors.toList()));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.github.paniclab.specifications;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class ColumnarSpecificationTest {
+    private static final Property<Employee, Integer> AGE = Specification.property(Employee.class, e -> e.age);
+    private static final Property<Employee, Double> SALARY = Specification.property(Employee.class, e -> e.salary);
+
+    private static final int ROWS = 10_000;
+
+
+    @Test
+    public void evaluate_overArrays_matchesObjectEvaluation() {
+        int[] ages = new int[ROWS];
+        double[] salaries = new double[ROWS];
+        List<Employee> employees = generate(ages, salaries);
+        Specification<Employee> spec = spec();
+
+        ColumnarSpecification<Employee> columnar = ColumnarSpecification.builder(spec)
+                                                                        .withColumn(AGE, Column.ints(ages))
+                                                                        .withColumn(SALARY, Column.doubles(salaries))
+                                                                        .build();
+
+        long[] mask = columnar.evaluate();
+        long expected = 0;
+        for(int row = 0; row < ROWS; row++) {
+            boolean satisfied = spec.isSatisfiedBy(employees.get(row));
+            assertEquals("row " + row, satisfied, (mask[row >>> 6] & 1L << row) != 0);
+            expected += satisfied ? 1 : 0;
+        }
+        assertEquals(expected, columnar.count());
+    }
+
+    @Test
+    public void evaluate_overRecordBuffer_readsInPlace() {
+        int[] ages = new int[ROWS];
+        double[] salaries = new double[ROWS];
+        List<Employee> employees = generate(ages, salaries);
+        int recordSize = Integer.BYTES + Double.BYTES;
+        ByteBuffer records = ByteBuffer.allocateDirect(ROWS * recordSize);
+        for(int row = 0; row < ROWS; row++) {
+            records.putInt(row * recordSize, ages[row]);
+            records.putDouble(row * recordSize + Integer.BYTES, salaries[row]);
+        }
+        Specification<Employee> spec = spec();
+
+        ColumnarSpecification<Employee> columnar =
+                ColumnarSpecification.builder(spec)
+                                     .withColumn(AGE, Column.ints(records, 0, recordSize, ROWS))
+                                     .withColumn(SALARY, Column.doubles(records, Integer.BYTES, recordSize, ROWS))
+                                     .build();
+
+        List<Employee> selected = columnar.select(employees::get);
+        List<Employee> expected = new ArrayList<>();
+        for(Employee employee : employees) {
+            if(spec.isSatisfiedBy(employee)) {
+                expected.add(employee);
+            }
+        }
+        assertEquals(expected, selected);
+    }
+
+    @Test
+    public void evaluate_comparesDoublesLikeCompareTo() {
+        double[] salaries = {Double.NaN, -0.0, 0.0, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 1.0};
+        int[] ages = new int[salaries.length];
+        List<Employee> employees = new ArrayList<>();
+        for(double salary : salaries) {
+            employees.add(new Employee(0, salary));
+        }
+        List<Specification<Employee>> specs = Arrays.asList(SALARY.greaterThan(0.0),
+                                                            SALARY.lessThan(0.0),
+                                                            SALARY.greaterThanOrEqualTo(Double.NEGATIVE_INFINITY),
+                                                            SALARY.lessThanOrEqualTo(Double.POSITIVE_INFINITY),
+                                                            SALARY.between(-0.0, 0.0).not());
+
+        for(Specification<Employee> spec : specs) {
+            ColumnarSpecification<Employee> columnar = ColumnarSpecification.builder(spec)
+                                                                            .withColumn(AGE, Column.ints(ages))
+                                                                            .withColumn(SALARY, Column.doubles(salaries))
+                                                                            .build();
+            long[] mask = columnar.evaluate();
+            for(int row = 0; row < salaries.length; row++) {
+                assertEquals(spec + ", salary " + salaries[row], spec.isSatisfiedBy(employees.get(row)),
+                             (mask[row >>> 6] & 1L << row) != 0);
+            }
+        }
+    }
+
+    @Test(expected = SpecificationException.class)
+    public void build_rejectsOpaquePredicates() {
+        Specification<Employee> spec = AGE.greaterThan(30).and(Specification.of(Employee.class, e -> e.age % 2 == 0));
+
+        ColumnarSpecification.builder(spec).withColumn(AGE, Column.ints(new int[1])).build();
+    }
+
+    @Test(expected = SpecificationException.class)
+    public void build_rejectsUnboundProperty() {
+        ColumnarSpecification.builder(SALARY.lessThan(1.0)).withColumn(AGE, Column.ints(new int[1])).build();
+    }
+
+
+    private static Specification<Employee> spec() {
+        Specification<Employee> middleAged = AGE.between(30, 40).and(SALARY.greaterThan(5_000.0));
+        Specification<Employee> edges = AGE.in(18, 65).and(SALARY.lessThanOrEqualTo(2_000.0).not());
+        return middleAged.or(edges);
+    }
+
+    private static List<Employee> generate(int[] ages, double[] salaries) {
+        Random random = new Random(7);
+        List<Employee> employees = new ArrayList<>(ages.length);
+        for(int row = 0; row < ages.length; row++) {
+            ages[row] = 18 + random.nextInt(48);
+            salaries[row] = random.nextInt(10_000);
+            employees.add(new Employee(ages[row], salaries[row]));
+        }
+        return employees;
+    }
+
+
+    private static final class Employee {
+        private final int age;
+        private final double salary;
+
+        private Employee(int age, double salary) {
+            this.age = age;
+            this.salary = salary;
+        }
+    }
+}
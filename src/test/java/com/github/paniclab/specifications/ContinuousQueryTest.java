@@ -0,0 +1,193 @@
+package com.github.paniclab.specifications;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+
+public class ContinuousQueryTest {
+
+    @Test
+    public void query_deliversGeneratedEventsToSubscribersOfMatchingIds() throws Exception {
+        Specification<Event> large = Specification.of(Event.class, e -> e.amount >= 900).withId(Route.LARGE);
+        Specification<Event> even = Specification.of(Event.class, e -> e.sequence % 2 == 0).withId(Route.EVEN);
+        AtomicLong largeCount = new AtomicLong();
+        AtomicLong evenCount = new AtomicLong();
+        int events = 200_000;
+
+        try {
+            ContinuousQuery<Event> query = ContinuousQuery.builder(Event.class)
+                                                          .withQueueCapacity(1024)
+                                                          .withBatchSize(64)
+                                                          .withWorkers(4)
+                                                          .build();
+            query.subscribe(Route.LARGE, e -> largeCount.incrementAndGet());
+            query.subscribe(Route.EVEN, e -> evenCount.incrementAndGet());
+
+            Thread generator = new Thread(() -> {
+                try {
+                    for(int i = 0; i < events; i++) {
+                        query.submit(new Event(i, i % 1000));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            generator.start();
+            generator.join();
+            query.close();
+
+            ContinuousQueryMetrics metrics = query.metrics();
+            assertEquals(events / 10, largeCount.get());
+            assertEquals(events / 2, evenCount.get());
+            assertEquals(events, metrics.accepted());
+            assertEquals(events, metrics.processed());
+            assertEquals(events / 10 + events / 2, metrics.deliveries());
+            assertEquals(0, metrics.queueDepth());
+            assertTrue(metrics.throughput() > 0);
+        } finally {
+            SpecificationProvider.unregisterForTesting(large);
+            SpecificationProvider.unregisterForTesting(even);
+        }
+    }
+
+    @Test
+    public void slowSubscriber_fillsTheQueueAndRefusesOffers() throws Exception {
+        Specification<Event> any = Specification.of(Event.class, e -> true).withId(Route.ANY);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try {
+            ContinuousQuery<Event> query = ContinuousQuery.builder(Event.class)
+                                                          .withQueueCapacity(4)
+                                                          .withBatchSize(1)
+                                                          .withWorkers(1)
+                                                          .build();
+            query.subscribe(Route.ANY, e -> {
+                entered.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            query.submit(new Event(0, 0));
+            assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+            int offered = 1;
+            while(query.offer(new Event(offered, 0))) {
+                offered++;
+            }
+            assertEquals(5, offered);
+            assertEquals(4, query.metrics().queueDepth());
+            assertEquals(1, query.metrics().rejected());
+
+            release.countDown();
+            query.close();
+            assertEquals(offered, query.metrics().processed());
+            try {
+                query.offer(new Event(0, 0));
+                fail();
+            } catch (IllegalStateException expected) {
+            }
+        } finally {
+            SpecificationProvider.unregisterForTesting(any);
+        }
+    }
+
+    @Test
+    public void failingSubscriber_doesNotStopTheWorker() throws Exception {
+        Specification<Event> any = Specification.of(Event.class, e -> true).withId(Route.ANY);
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        AtomicLong delivered = new AtomicLong();
+
+        try {
+            ContinuousQuery<Event> query = ContinuousQuery.builder(Event.class)
+                                                          .withWorkers(1)
+                                                          .withErrorHandler(errors::add)
+                                                          .build();
+            query.subscribe(Route.ANY, e -> {
+                if(e.sequence % 2 == 0) {
+                    throw new AssertionError("subscriber bug");
+                }
+                delivered.incrementAndGet();
+            });
+
+            for(int i = 0; i < 100; i++) {
+                query.submit(new Event(i, 0));
+            }
+            query.close();
+
+            assertEquals(50, delivered.get());
+            assertEquals(50, errors.size());
+            assertEquals(50, query.metrics().subscriberErrors());
+            assertEquals(100, query.metrics().processed());
+        } finally {
+            SpecificationProvider.unregisterForTesting(any);
+        }
+    }
+
+    @Test
+    public void close_processesEveryAcceptedEvent() throws Exception {
+        for(int round = 0; round < 20; round++) {
+            ContinuousQuery<Event> query = ContinuousQuery.builder(Event.class)
+                                                          .withQueueCapacity(16)
+                                                          .withWorkers(2)
+                                                          .build();
+            List<Thread> producers = new ArrayList<>();
+            for(int p = 0; p < 4; p++) {
+                Thread producer = new Thread(() -> {
+                    try {
+                        for(int i = 0; ; i++) {
+                            query.submit(new Event(i, 0));
+                        }
+                    } catch (IllegalStateException | InterruptedException closed) {
+                    }
+                });
+                producer.start();
+                producers.add(producer);
+            }
+
+            Thread.sleep(2);
+            query.close();
+            for(Thread producer : producers) {
+                producer.join();
+            }
+
+            ContinuousQueryMetrics metrics = query.metrics();
+            assertEquals(metrics.accepted(), metrics.processed());
+            assertEquals(0, metrics.queueDepth());
+        }
+    }
+
+
+    private static final class Event {
+        private final int sequence;
+        private final int amount;
+
+        private Event(int sequence, int amount) {
+            this.sequence = sequence;
+            this.amount = amount;
+        }
+    }
+
+
+    private enum Route implements SpecId<Event> {
+        LARGE,
+        EVEN,
+        ANY;
+
+        @Override
+        public Class<Event> subject() {
+            return Event.class;
+        }
+    }
+}
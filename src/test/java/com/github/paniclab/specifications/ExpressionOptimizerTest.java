@@ -0,0 +1,63 @@
+package com.github.paniclab.specifications;
+
+import org.junit.Test;
+
+import static com.github.paniclab.specifications.Expression.Kind;
+import static org.junit.Assert.*;
+
+
+public class ExpressionOptimizerTest {
+    private final Expression<String> a = Expression.leaf(String::isEmpty);
+    private final Expression<String> b = Expression.leaf((String s) -> s.length() > 2);
+    private final Expression<String> c = Expression.leaf((String s) -> s.startsWith("x"));
+
+
+    @Test
+    public void nestedJunctions_areFlattened() {
+        Expression<String> expression = Expression.and(Expression.and(a, b), Expression.and(b, c));
+
+        assertEquals(Kind.AND, expression.kind());
+        assertArrayEquals(new Expression<?>[] {a, b, c}, ((Expression.Junction<String>) expression).operands());
+    }
+
+    @Test
+    public void doubleNegation_isRemoved() {
+        assertSame(a, Expression.not(Expression.not(a)));
+    }
+
+    @Test
+    public void constants_areFolded() {
+        Expression<String> yes = Expression.constant(true);
+        Expression<String> no = Expression.constant(false);
+
+        assertSame(a, Expression.and(yes, a));
+        assertSame(no, Expression.and(a, no));
+        assertSame(yes, Expression.or(a, yes));
+        assertSame(a, Expression.or(no, a));
+        assertSame(no, Expression.not(yes));
+    }
+
+    @Test
+    public void duplicates_areRemoved() {
+        assertSame(a, Expression.or(a, a));
+        assertEquals(Expression.and(a, b), Expression.and(Expression.and(a, b), Expression.and(a, b)));
+    }
+
+    @Test
+    public void complementaryOperands_areFolded() {
+        assertSame(Expression.constant(false), Expression.and(a, Expression.not(a)));
+        assertSame(Expression.constant(true), Expression.or(Expression.not(a), a));
+    }
+
+    @Test
+    public void normalizeDeep_rewritesWholeTree() {
+        Expression<String> raw = new Expression.Or<>(new Expression.Not<>(new Expression.Not<>(a)),
+                                                     new Expression.Or<>(b, Expression.constant(false)));
+
+        Expression<String> normalized = ExpressionOptimizer.normalizeDeep(raw);
+
+        assertEquals(new Expression.Or<>(a, b), normalized);
+        assertTrue(normalized.check(""));
+        assertFalse(normalized.check("x"));
+    }
+}
@@ -0,0 +1,195 @@
+package com.github.paniclab.specifications;
+
+import com.github.paniclab.invariants.Invariant;
+import com.github.paniclab.invariants.InvariantCheckException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+
+public class InstrumentationTest {
+
+    @After
+    public void tearDown() {
+        Instrumentation.disable();
+    }
+
+    @Test
+    public void isSatisfiedBy_recordsPassesAndFailuresPerId() {
+        Specification<String> empty = Specification.of(String.class, String::isEmpty).withId(Metric.EMPTY);
+        Instrumentation.enable();
+
+        empty.isSatisfiedBy("");
+        empty.isSatisfiedBy("a");
+        empty.isSatisfiedBy("b");
+
+        MetricsSnapshot snapshot = Instrumentation.metrics(Metric.EMPTY).get();
+        assertEquals(3, snapshot.evaluations());
+        assertEquals(1, snapshot.passes());
+        assertEquals(2, snapshot.failures());
+        assertEquals(3, snapshot.sampled());
+    }
+
+    @Test
+    public void composedSpecification_recordsNamedOperands() {
+        Specification<String> shortText = Specification.of(String.class, s -> s.length() < 3).withId(Metric.SHORT);
+        Specification<String> composed = shortText.and(Specification.of(String.class, s -> s.startsWith("a")));
+        Instrumentation.enable();
+
+        composed.isSatisfiedBy("ab");
+        composed.isSatisfiedBy("abcd");
+
+        MetricsSnapshot snapshot = Instrumentation.metrics(Metric.SHORT).get();
+        assertEquals(2, snapshot.evaluations());
+        assertEquals(1, snapshot.passes());
+    }
+
+    @Test
+    public void compiledSpecification_recordsNamedOperands() {
+        Specification<String> shortText = Specification.of(String.class, s -> s.length() < 3).withId(Metric.COMPILED);
+        Specification<String> composed = shortText.and(Specification.of(String.class, s -> s.startsWith("a")))
+                                                  .compile();
+        Instrumentation.enable();
+
+        assertTrue(composed.isSatisfiedBy("ab"));
+        assertFalse(composed.isSatisfiedBy("abcd"));
+
+        MetricsSnapshot snapshot = Instrumentation.metrics(Metric.COMPILED).get();
+        assertEquals(2, snapshot.evaluations());
+        assertEquals(1, snapshot.passes());
+    }
+
+    @Test
+    public void disabled_recordsNothing() {
+        Specification<String> idle = Specification.of(String.class, String::isEmpty).withId(Metric.IDLE);
+
+        idle.isSatisfiedBy("");
+
+        assertFalse(Instrumentation.metrics(Metric.IDLE).isPresent());
+    }
+
+    @Test
+    public void instrumentedInvariant_countsExceptions() {
+        Invariant<String> failing = Instrumentation.instrument(Metric.THROWING, instance -> {
+            throw new InvariantCheckException("Broken: " + instance);
+        });
+        Instrumentation.enable(16);
+
+        try {
+            failing.check("x");
+            fail();
+        } catch (InvariantCheckException expected) {
+            // counted below
+        }
+
+        assertEquals(1, Instrumentation.metrics(Metric.THROWING).get().exceptions());
+    }
+
+    @Test
+    public void publish_handsSnapshotsToListeners() {
+        Specification<String> published = Specification.of(String.class, String::isEmpty).withId(Metric.PUBLISHED);
+        List<MetricsSnapshot> received = new ArrayList<>();
+        InstrumentationListener listener = received::addAll;
+        Instrumentation.addListener(listener);
+        Instrumentation.enable();
+        try {
+            published.isSatisfiedBy("");
+            Instrumentation.publish();
+        } finally {
+            Instrumentation.removeListener(listener);
+        }
+
+        assertTrue(received.stream().anyMatch(snapshot -> snapshot.id() == Metric.PUBLISHED && snapshot.passes() == 1));
+    }
+
+    @Test
+    public void parallelSelection_isRecorded() {
+        Specification<String> selected = Specification.of(String.class, String::isEmpty).withId(Metric.SELECTED);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Instrumentation.enable();
+        try {
+            selected.selectSatisfying(Arrays.asList("", "a", "b"), Specification.Selection.ORDERED, executor, 1);
+        } finally {
+            executor.shutdown();
+        }
+
+        MetricsSnapshot snapshot = Instrumentation.metrics(Metric.SELECTED).get();
+        assertEquals(3, snapshot.evaluations());
+        assertEquals(1, snapshot.passes());
+    }
+
+    @Test
+    public void asyncEvaluation_isRecorded() throws Exception {
+        Specification<String> async = Specification.of(String.class, String::isEmpty).withId(Metric.ASYNC);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Instrumentation.enable();
+        try {
+            assertTrue(async.isSatisfiedByAsync("", executor).get(5, TimeUnit.SECONDS));
+            assertFalse(async.isSatisfiedByAsync("a", executor).get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+
+        MetricsSnapshot snapshot = Instrumentation.metrics(Metric.ASYNC).get();
+        assertEquals(2, snapshot.evaluations());
+        assertEquals(1, snapshot.passes());
+    }
+
+    @Test
+    public void batchedEvaluation_isRecordedOnCompletion() throws Exception {
+        BatchPredicate<String> empties = instances -> CompletableFuture.completedFuture(
+                instances.stream().map(String::isEmpty).collect(Collectors.toList()));
+        Specification<String> batched = Specification.batched(String.class, empties, Runnable::run)
+                                                     .withId(Metric.BATCHED);
+        Instrumentation.enable();
+
+        assertTrue(batched.isSatisfiedByAsync("", Runnable::run).get(5, TimeUnit.SECONDS));
+        assertFalse(batched.isSatisfiedByAsync("a", Runnable::run).get(5, TimeUnit.SECONDS));
+
+        MetricsSnapshot snapshot = Instrumentation.metrics(Metric.BATCHED).get();
+        assertEquals(2, snapshot.evaluations());
+        assertEquals(1, snapshot.passes());
+    }
+
+    @Test
+    public void validation_isRecorded() {
+        Specification<String> validated = Specification.of(String.class, String::isEmpty).withId(Metric.VALIDATED);
+        Instrumentation.enable();
+
+        validated.validate("");
+        validated.validate("a");
+
+        MetricsSnapshot snapshot = Instrumentation.metrics(Metric.VALIDATED).get();
+        assertEquals(2, snapshot.evaluations());
+        assertEquals(1, snapshot.failures());
+    }
+
+
+    private enum Metric implements SpecId<String> {
+        EMPTY,
+        SHORT,
+        COMPILED,
+        IDLE,
+        THROWING,
+        PUBLISHED,
+        SELECTED,
+        ASYNC,
+        BATCHED,
+        VALIDATED;
+
+        @Override
+        public Class<String> subject() {
+            return String.class;
+        }
+    }
+}
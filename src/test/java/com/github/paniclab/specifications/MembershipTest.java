@@ -0,0 +1,115 @@
+package com.github.paniclab.specifications;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+
+public class MembershipTest {
+
+    @Test
+    public void everyBacking_agreesWithHashSet() {
+        Random random = new Random(11);
+        long[] sparse = random.longs(20_000).toArray();
+        long[] dense = random.longs(20_000, -50_000, 50_000).toArray();
+
+        for(long[] values : Arrays.asList(sparse, dense, new long[] {0L, Long.MIN_VALUE, Long.MAX_VALUE, -1L})) {
+            Set<Long> expected = new HashSet<>();
+            for(long value : values) {
+                expected.add(value);
+            }
+
+            for(Membership.Backing backing : Membership.Backing.values()) {
+                if(backing == Membership.Backing.BITMAP && values != dense) {
+                    continue;
+                }
+                for(boolean bloom : new boolean[] {false, true}) {
+                    Membership.Builder builder = Membership.builder().withBacking(backing);
+                    if(bloom) {
+                        builder.withBloomFilter(0.01);
+                    }
+                    LongSpecification spec = LongSpecification.in(values, builder.build());
+
+                    for(long value : values) {
+                        assertTrue(backing + ": " + value, spec.isSatisfiedBy(value));
+                    }
+                    for(int i = 0; i < 20_000; i++) {
+                        long probe = i % 2 == 0 ? random.nextLong() : random.nextInt(200_000) - 100_000;
+                        assertEquals(backing + ": " + probe, expected.contains(probe), spec.isSatisfiedBy(probe));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void auto_picksBitmapForDenseValues() {
+        LongSpecification dense = LongSpecification.in(new long[] {10, 11, 12, 14, 15});
+        LongSpecification sparse = LongSpecification.in(new Random(3).longs(1_000).toArray());
+
+        assertTrue(dense.asPredicate().toString().startsWith("Bitmap"));
+        assertTrue(sparse.asPredicate().toString().startsWith("OpenAddressing"));
+    }
+
+    @Test(expected = SpecificationException.class)
+    public void bitmap_rejectsWideRange() {
+        LongSpecification.in(new long[] {Long.MIN_VALUE, Long.MAX_VALUE},
+                             Membership.builder().withBacking(Membership.Backing.BITMAP).build());
+    }
+
+    @Test
+    public void intMembership_composes() {
+        IntSpecification allowed = IntSpecification.in(new int[] {1, 5, 9, 13});
+        IntSpecification odd = IntSpecification.of(value -> value % 2 != 0);
+
+        assertTrue(allowed.and(odd).isSatisfiedBy(5));
+        assertFalse(allowed.isSatisfiedBy(3));
+        assertEquals(4, allowed.countSatisfying(new int[] {0, 1, 5, 9, 13, 14}));
+    }
+
+    @Test
+    public void intBackings_agreeWithHashSet() {
+        Random random = new Random(17);
+        int[] values = random.ints(20_000).toArray();
+        values[0] = 0;
+        values[1] = Integer.MIN_VALUE;
+        values[2] = Integer.MAX_VALUE;
+        Set<Integer> expected = new HashSet<>();
+        for(int value : values) {
+            expected.add(value);
+        }
+
+        for(Membership.Backing backing : Membership.Backing.values()) {
+            if(backing == Membership.Backing.BITMAP) {
+                continue;
+            }
+            IntSpecification spec = IntSpecification.in(values, Membership.builder().withBacking(backing).build());
+
+            for(int value : values) {
+                assertTrue(backing + ": " + value, spec.isSatisfiedBy(value));
+            }
+            for(int i = 0; i < 20_000; i++) {
+                int probe = random.nextInt();
+                assertEquals(backing + ": " + probe, expected.contains(probe), spec.isSatisfiedBy(probe));
+            }
+        }
+    }
+
+    @Test
+    public void objectMembership_composesWithAlgebra() {
+        Specification<String> denied = Specification.in(String.class, Arrays.asList("root", "admin", null),
+                                                        Membership.builder().withBloomFilter(0.01).build());
+        Specification<String> allowed = Specification.of(String.class, name -> !name.isEmpty()).and(denied.not());
+
+        assertTrue(denied.isSatisfiedBy("admin"));
+        assertTrue(denied.isSatisfiedBy(null));
+        assertFalse(denied.isSatisfiedBy("guest"));
+        assertTrue(allowed.isSatisfiedBy("guest"));
+        assertFalse(allowed.isSatisfiedBy("root"));
+    }
+}
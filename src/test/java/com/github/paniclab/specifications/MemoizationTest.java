@@ -0,0 +1,134 @@
+package com.github.paniclab.specifications;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+
+public class MemoizationTest {
+    private final AtomicInteger evaluations = new AtomicInteger();
+    private final Specification<String> expensive = Specification.of(String.class, value -> {
+        evaluations.incrementAndGet();
+        return value.matches("a+b*");
+    });
+
+
+    @Test
+    public void equalityKeys_shareResultsBetweenEqualInstances() {
+        Specification<String> memoized = expensive.memoized();
+
+        assertTrue(memoized.isSatisfiedBy(new String("aab")));
+        assertTrue(memoized.isSatisfiedBy(new String("aab")));
+        assertFalse(memoized.isSatisfiedBy("ba"));
+
+        assertEquals(2, evaluations.get());
+        MemoizationStats stats = memoized.memoizationStats().get();
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(2, stats.size());
+    }
+
+    @Test
+    public void identityKeys_distinguishEqualInstances() {
+        Specification<String> memoized = expensive.memoized(Memoization.builder().withIdentityKeys().build());
+        String value = new String("ab");
+
+        memoized.isSatisfiedBy(value);
+        memoized.isSatisfiedBy(value);
+        memoized.isSatisfiedBy(new String("ab"));
+
+        assertEquals(2, evaluations.get());
+    }
+
+    @Test
+    public void maximumSize_evictsLeastRecentlyUsed() {
+        Specification<String> memoized = expensive.memoized(Memoization.builder()
+                                                                       .withMaximumSize(2)
+                                                                       .withConcurrencyLevel(1)
+                                                                       .build());
+        memoized.isSatisfiedBy("a");
+        memoized.isSatisfiedBy("b");
+        memoized.isSatisfiedBy("a");
+        memoized.isSatisfiedBy("c");
+        memoized.isSatisfiedBy("a");
+        memoized.isSatisfiedBy("b");
+
+        assertEquals(4, evaluations.get());
+        assertEquals(2, memoized.memoizationStats().get().evictions());
+    }
+
+    @Test
+    public void expireAfterWrite_recomputesStaleResults() throws InterruptedException {
+        Specification<String> memoized = expensive.memoized(Memoization.builder()
+                                                                       .withExpireAfterWrite(20, TimeUnit.MILLISECONDS)
+                                                                       .build());
+        memoized.isSatisfiedBy("a");
+        memoized.isSatisfiedBy("a");
+        Thread.sleep(40);
+        memoized.isSatisfiedBy("a");
+
+        assertEquals(2, evaluations.get());
+    }
+
+    @Test
+    public void weakKeys_keepResultsForReachableKeys() {
+        Specification<String> memoized = expensive.memoized(Memoization.builder().withWeakKeys().build());
+        String value = new String("aa");
+
+        assertTrue(memoized.isSatisfiedBy(value));
+        assertTrue(memoized.isSatisfiedBy(new String("aa")));
+
+        assertEquals(1, evaluations.get());
+    }
+
+    @Test
+    public void registeredSpecification_keepsItsId() {
+        Specification<String> registered = expensive.withId(Ids.MEMOIZED);
+        Specification<String> memoized = registered.memoized();
+
+        assertEquals(Ids.MEMOIZED, memoized.id());
+    }
+
+    @Test
+    public void concurrentEvaluation_isConsistent() throws Exception {
+        Specification<String> memoized = expensive.memoized(Memoization.builder().withMaximumSize(64).build());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for(int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    int satisfied = 0;
+                    for(int i = 0; i < 10_000; i++) {
+                        if(memoized.isSatisfiedBy(i % 2 == 0 ? "a" + (i % 50) : "ab")) {
+                            satisfied++;
+                        }
+                    }
+                    return satisfied;
+                }));
+            }
+            for(Future<Integer> future : futures) {
+                assertEquals(5_000, (int) future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+
+    enum Ids implements SpecId<String> {
+        MEMOIZED;
+
+        @Override
+        public Class<String> subject() {
+            return String.class;
+        }
+    }
+}
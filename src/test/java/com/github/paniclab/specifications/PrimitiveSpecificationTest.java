@@ -0,0 +1,78 @@
+package com.github.paniclab.specifications;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+
+public class PrimitiveSpecificationTest {
+
+    @Test
+    public void intSpecification_composesAndEvaluatesArrays() {
+        IntSpecification positive = IntSpecification.of(value -> value > 0);
+        IntSpecification even = IntSpecification.of(value -> value % 2 == 0);
+        IntSpecification positiveOdd = positive.and(even.not());
+
+        int[] values = {-3, -2, 1, 2, 3, 4, 5};
+
+        assertTrue(positiveOdd.isSatisfiedBy(3));
+        assertFalse(positiveOdd.isSatisfiedBy(-3));
+        assertArrayEquals(new int[] {2, 4, 6}, positiveOdd.indicesSatisfying(values));
+        assertEquals(3, positiveOdd.countSatisfying(values));
+
+        BitSet expected = new BitSet();
+        expected.set(1);
+        expected.set(3);
+        expected.set(5);
+        assertEquals(expected, even.selectSatisfying(values));
+    }
+
+    @Test
+    public void constants_areFolded() {
+        IntSpecification positive = IntSpecification.of(value -> value > 0);
+
+        assertSame(positive.asPredicate(), positive.and(IntSpecification.always()).asPredicate());
+        assertSame(IntSpecification.always().asPredicate(), positive.or(IntSpecification.never().not()).asPredicate());
+        assertSame(positive.asPredicate(), IntSpecification.not(positive.not()).asPredicate());
+    }
+
+    @Test
+    public void longAndDoubleSpecifications_followSameAlgebra() {
+        LongSpecification large = LongSpecification.of(value -> value > Integer.MAX_VALUE);
+        LongSpecification negative = LongSpecification.of(value -> value < 0);
+        DoubleSpecification unit = DoubleSpecification.of(value -> value >= 0 && value <= 1);
+        DoubleSpecification nan = DoubleSpecification.of(Double::isNaN);
+
+        assertArrayEquals(new int[] {0, 2}, large.or(negative).indicesSatisfying(new long[] {-1L, 5L, 1L << 40}));
+        assertArrayEquals(new int[] {1}, unit.or(nan).not().indicesSatisfying(new double[] {0.5, 2.0, Double.NaN}));
+        assertTrue(large.boxed().isSatisfiedBy(1L << 33));
+    }
+
+    @Test
+    public void withId_registersBoxedView() {
+        IntSpecification positive = IntSpecification.of(value -> value > 0).withId(Rule.POSITIVE);
+
+        assertEquals(Rule.POSITIVE, positive.id());
+        assertSame(positive.boxed(), SpecificationProvider.byId(Rule.POSITIVE).get());
+        assertTrue(positive.boxed().isSatisfiedBy(1));
+    }
+
+    @Test(expected = SecurityException.class)
+    public void withId_rejectsDuplicateId() {
+        IntSpecification.of(value -> value > 0).withId(Rule.DUPLICATE);
+        IntSpecification.of(value -> value < 0).withId(Rule.DUPLICATE);
+    }
+
+
+    enum Rule implements SpecId<Integer> {
+        POSITIVE,
+        DUPLICATE;
+
+        @Override
+        public Class<Integer> subject() {
+            return Integer.class;
+        }
+    }
+}
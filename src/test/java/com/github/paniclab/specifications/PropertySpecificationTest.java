@@ -0,0 +1,101 @@
+package com.github.paniclab.specifications;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+
+public class PropertySpecificationTest {
+    private static final AtomicInteger EXTRACTIONS = new AtomicInteger();
+    private static final Property<Employee, Integer> AGE = Specification.property(Employee.class, employee -> {
+        EXTRACTIONS.incrementAndGet();
+        return employee.age;
+    });
+    private static final Property<Employee, String> NAME = Specification.property(Employee.class, e -> e.name);
+
+
+    @Test
+    public void conjunction_mergesRangesIntoSingleExtraction() {
+        Specification<Employee> spec = AGE.greaterThan(30).and(AGE.greaterThan(40)).and(AGE.lessThanOrEqualTo(60));
+
+        assertEquals(Expression.Kind.PROPERTY, spec.expression().kind());
+        assertEquals(AGE.greaterThan(40).and(AGE.lessThanOrEqualTo(60)), spec);
+
+        EXTRACTIONS.set(0);
+        assertFalse(spec.isSatisfiedBy(new Employee("a", 40)));
+        assertTrue(spec.isSatisfiedBy(new Employee("b", 41)));
+        assertTrue(spec.isSatisfiedBy(new Employee("c", 60)));
+        assertFalse(spec.isSatisfiedBy(new Employee("d", 61)));
+        assertEquals(4, EXTRACTIONS.get());
+    }
+
+    @Test
+    public void conjunction_detectsContradiction() {
+        Specification<Employee> spec = AGE.lessThan(20).and(NAME.equalTo("a")).and(AGE.greaterThanOrEqualTo(20));
+
+        assertEquals(Expression.Kind.CONSTANT, spec.expression().kind());
+        assertFalse(spec.isSatisfiedBy(new Employee("a", 19)));
+    }
+
+    @Test
+    public void conjunction_filtersValuesByRange() {
+        Specification<Employee> spec = AGE.in(10, 25, 50).and(AGE.between(20, 40));
+
+        assertEquals(AGE.equalTo(25), spec);
+        assertNotEquals(AGE.equalTo(10), spec);
+        assertTrue(spec.isSatisfiedBy(new Employee("a", 25)));
+        assertFalse(spec.isSatisfiedBy(new Employee("b", 10)));
+    }
+
+    @Test
+    public void conjunction_mergesSeparatelyCreatedNamedProperties() {
+        Specification<Employee> spec = Specification.property(Employee.class, "age", e -> e.age).greaterThan(30)
+                .and(Specification.property(Employee.class, "age", e -> e.age).lessThan(40));
+
+        assertEquals(Expression.Kind.PROPERTY, spec.expression().kind());
+        assertTrue(spec.isSatisfiedBy(new Employee("a", 35)));
+        assertFalse(spec.isSatisfiedBy(new Employee("b", 40)));
+
+        Specification<Employee> contradiction = Specification.property(Employee.class, "age", e -> e.age).lessThan(20)
+                .and(Specification.property(Employee.class, "age", e -> e.age).greaterThan(30));
+        assertEquals(Expression.Kind.CONSTANT, contradiction.expression().kind());
+    }
+
+    @Test
+    public void disjunction_mergesValueSets() {
+        Specification<Employee> spec = NAME.equalTo("a").or(NAME.in("b", "c"));
+
+        assertEquals(NAME.in("a", "b", "c"), spec);
+        assertTrue(spec.isSatisfiedBy(new Employee("c", 1)));
+        assertFalse(spec.isSatisfiedBy(new Employee("d", 1)));
+    }
+
+    @Test
+    public void nullProperty_satisfiesNothing() {
+        assertFalse(NAME.in("a").isSatisfiedBy(new Employee(null, 1)));
+        assertFalse(NAME.lessThan("z").not().not().isSatisfiedBy(new Employee(null, 1)));
+    }
+
+    @Test(expected = SpecificationException.class)
+    public void equalTo_rejectsNull() {
+        NAME.equalTo(null);
+    }
+
+    @Test(expected = SpecificationException.class)
+    public void in_rejectsNull() {
+        NAME.in("a", null);
+    }
+
+
+    private static final class Employee {
+        private final String name;
+        private final Integer age;
+
+        private Employee(String name, Integer age) {
+            this.name = name;
+            this.age = age;
+        }
+    }
+}
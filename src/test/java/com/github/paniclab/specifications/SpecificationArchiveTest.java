@@ -0,0 +1,160 @@
+package com.github.paniclab.specifications;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.github.paniclab.specifications.Specification.not;
+import static org.junit.Assert.*;
+
+
+@SuppressWarnings("unchecked")
+public class SpecificationArchiveTest {
+    private static final List<String> SAMPLES = Arrays.asList("", "a", "ab", "abc", "xyz", "xy", "abcdef");
+
+    private static Specification<String> empty;
+    private static Specification<String> shortOne;
+    private static Specification<String> startsWithA;
+
+
+    @BeforeClass
+    public static void registerLeaves() {
+        empty = Specification.of(String.class, String::isEmpty).withId(Leaf.EMPTY);
+        shortOne = Specification.of(String.class, (String s) -> s.length() < 3).withId(Leaf.SHORT);
+        startsWithA = Specification.of(String.class, (String s) -> s.startsWith("a")).withId(Leaf.STARTS_WITH_A);
+    }
+
+
+    @Test
+    public void roundTrip_preservesSemantics() {
+        Specification<String> rule = empty.or(shortOne.and(not(startsWithA)))
+                                          .or(Specification.never(String.class))
+                                          .and(startsWithA.or(shortOne).memoized());
+
+        Specification<?> restored = roundTrip(Collections.singletonList(rule)).get(0);
+
+        assertEquals(String.class, restored.subject());
+        assertEquals(rule.expression().toString(), restored.expression().toString());
+        for(String sample : SAMPLES) {
+            assertEquals(sample, rule.isSatisfiedBy(sample), ((Specification<String>) restored).isSatisfiedBy(sample));
+        }
+    }
+
+    @Test
+    public void roundTrip_keepsSpecificationType() {
+        FakeSpecification fake = new SpecificationBuilder<>(String.class, FakeSpecification.class)
+                .withExpression(empty.operand())
+                .build();
+        Specification<String> rule = fake.or(shortOne).compile();
+
+        Specification<?> restored = roundTrip(Collections.singletonList(rule)).get(0);
+
+        assertEquals(FakeSpecification.class, restored.getClass());
+    }
+
+    @Test
+    public void roundTrip_registersIdsInDependencyOrder() {
+        Specification<String> base = unregistered(Composite.BASE, Expression.or(empty.operand(), shortOne.operand()));
+        Specification<String> derived = unregistered(Composite.DERIVED,
+                                                     Expression.and(base.operand(), Expression.not(startsWithA.operand())));
+
+        List<Specification<?>> restored = roundTrip(Arrays.asList(derived, base));
+
+        assertEquals(Composite.BASE, restored.get(0).id());
+        assertEquals(Composite.DERIVED, restored.get(1).id());
+        Specification<String> registered = SpecificationProvider.byId(Composite.DERIVED).get();
+        assertTrue(registered.isSatisfiedBy("xy"));
+        assertFalse(registered.isSatisfiedBy("ab"));
+        assertFalse(registered.isSatisfiedBy("xyz"));
+    }
+
+    @Test
+    public void roundTrip_resolvesRegisteredSpecificationsByReference() {
+        Specification<String> rule = ((Specification<String>) empty.or(shortOne)).withId(Composite.REGISTERED);
+        byte[] bytes = write(Arrays.asList(empty, rule));
+
+        List<Specification<?>> restored = SpecificationArchive.read(new ByteArrayInputStream(bytes));
+        List<Specification<?>> again = SpecificationArchive.read(new ByteArrayInputStream(bytes));
+
+        assertSame(empty, restored.get(0));
+        assertSame(rule, restored.get(1));
+        assertSame(rule, again.get(1));
+    }
+
+    @Test
+    public void read_fromByteBuffer() {
+        byte[] bytes = write(Collections.singletonList(empty.or(shortOne)));
+
+        List<Specification<?>> restored = SpecificationArchive.read(ByteBuffer.wrap(bytes));
+
+        assertTrue(((Specification<String>) restored.get(0)).isSatisfiedBy("ab"));
+    }
+
+    @Test(expected = SpecificationException.class)
+    public void write_rejectsAnonymousPredicates() {
+        write(Collections.singletonList(empty.and(Specification.of(String.class, s -> true))));
+    }
+
+    @Test(expected = SpecificationException.class)
+    public void read_rejectsUnknownFormat() {
+        SpecificationArchive.read(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5}));
+    }
+
+    @Test(expected = SpecificationException.class)
+    public void read_rejectsNewerVersion() {
+        byte[] bytes = write(Collections.singletonList(empty.or(shortOne)));
+        bytes[4] = (byte) (SpecificationArchive.VERSION + 1);
+
+        SpecificationArchive.read(new ByteArrayInputStream(bytes));
+    }
+
+
+    private static List<Specification<?>> roundTrip(List<? extends Specification<?>> specifications) {
+        return SpecificationArchive.read(new ByteArrayInputStream(write(specifications)));
+    }
+
+    private static byte[] write(List<? extends Specification<?>> specifications) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        SpecificationArchive.write(specifications, stream);
+        return stream.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Specification<String> unregistered(Composite id, Expression<String> expression) {
+        Class<Specification<String>> specType = (Class<Specification<String>>) (Class<?>) Specification.class;
+        return new SpecificationBuilder<>(String.class, specType)
+                .withSpecId(id)
+                .withExpression(expression)
+                .build();
+    }
+
+
+    enum Leaf implements SpecId<String> {
+        EMPTY,
+        SHORT,
+        STARTS_WITH_A;
+
+        @Override
+        public Class<String> subject() {
+            return String.class;
+        }
+    }
+
+
+    enum Composite implements SpecId<String> {
+        BASE,
+        DERIVED,
+        REGISTERED;
+
+        @Override
+        public Class<String> subject() {
+            return String.class;
+        }
+    }
+}
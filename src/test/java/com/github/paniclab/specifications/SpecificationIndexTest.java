@@ -0,0 +1,130 @@
+package com.github.paniclab.specifications;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+
+public class SpecificationIndexTest {
+
+    @Test
+    public void index_followsAddUpdateAndRemove() {
+        Specification<Ticket> open = Specification.of(Ticket.class, t -> t.open).withId(Query.OPEN);
+        Specification<Ticket> urgent = Specification.of(Ticket.class, t -> t.priority > 3).withId(Query.URGENT);
+
+        try {
+            Ticket first = new Ticket(true, 5);
+            Ticket second = new Ticket(true, 1);
+            Ticket third = new Ticket(false, 4);
+            SpecificationIndex<Ticket> index = SpecificationIndex.builder(Ticket.class)
+                                                                 .withSpecification(open)
+                                                                 .withSpecification(urgent)
+                                                                 .withElements(Arrays.asList(first, second, third))
+                                                                 .build();
+
+            assertEquals(Arrays.asList(first, second), index.select(Query.OPEN));
+            assertEquals(2, index.count(Query.URGENT));
+
+            second.priority = 9;
+            index.update(second);
+            assertEquals(Arrays.asList(first, second, third), index.select(Query.URGENT));
+
+            index.remove(first);
+            assertEquals(Collections.singletonList(second), index.select(Query.OPEN));
+
+            Ticket fourth = new Ticket(true, 0);
+            assertEquals(0, index.add(fourth));
+            assertEquals(Arrays.asList(fourth, second), index.select(Query.OPEN));
+
+            Ticket fifth = new Ticket(false, 0);
+            assertTrue(index.replace(fourth, fifth));
+            assertEquals(Collections.singletonList(second), index.select(Query.OPEN));
+            assertFalse(index.contains(fourth));
+            assertEquals(3, index.size());
+        } finally {
+            SpecificationProvider.unregisterForTesting(open);
+            SpecificationProvider.unregisterForTesting(urgent);
+        }
+    }
+
+    @Test
+    public void composedQuery_combinesBitmapsAndChecksOnlyRemainingCandidates() {
+        Specification<Ticket> open = Specification.of(Ticket.class, t -> t.open).withId(Query.OPEN);
+        Specification<Ticket> urgent = Specification.of(Ticket.class, t -> t.priority > 3).withId(Query.URGENT);
+        AtomicInteger adHocChecks = new AtomicInteger();
+        Specification<Ticket> even = Specification.of(Ticket.class, t -> {
+            adHocChecks.incrementAndGet();
+            return t.priority % 2 == 0;
+        });
+
+        try {
+            SpecificationIndex<Ticket> index = SpecificationIndex.builder(Ticket.class)
+                                                                 .withSpecification(open)
+                                                                 .withSpecification(urgent)
+                                                                 .build();
+            for(int i = 0; i < 100; i++) {
+                index.add(new Ticket(i % 2 == 0, i % 10));
+            }
+
+            Specification<Ticket> openAndUrgent = open.and(urgent);
+            Specification<Ticket> openOrUrgent = open.or(urgent);
+            Specification<Ticket> closedUrgent = urgent.and(open.not());
+            Specification<Ticket> openUrgentEven = open.and(urgent).and(even);
+
+            assertEquals(30, index.count(openAndUrgent));
+            assertEquals(80, index.count(openOrUrgent));
+            assertEquals(30, index.count(closedUrgent));
+            assertEquals(0, adHocChecks.get());
+
+            Specification<Ticket> openAndUrgentOrEven = open.and(urgent.or(even));
+            BitSet expected = new BitSet();
+            for(int slot = 0; slot < 100; slot++) {
+                expected.set(slot, openAndUrgentOrEven.isSatisfiedBy(index.get(slot)));
+            }
+            assertEquals(expected, index.slots(openAndUrgentOrEven));
+            assertEquals(50, index.count(openAndUrgentOrEven));
+            adHocChecks.set(0);
+
+            assertEquals(30, index.count(openUrgentEven));
+            assertEquals(30, adHocChecks.get());
+            for(Ticket ticket : index.select(openOrUrgent)) {
+                assertTrue(openOrUrgent.isSatisfiedBy(ticket));
+            }
+        } finally {
+            SpecificationProvider.unregisterForTesting(open);
+            SpecificationProvider.unregisterForTesting(urgent);
+        }
+    }
+
+    @Test(expected = SpecificationException.class)
+    public void select_unknownIdThrows() {
+        SpecificationIndex.builder(Ticket.class).build().select(Query.OPEN);
+    }
+
+
+    private static final class Ticket {
+        private final boolean open;
+        private int priority;
+
+        private Ticket(boolean open, int priority) {
+            this.open = open;
+            this.priority = priority;
+        }
+    }
+
+
+    private enum Query implements SpecId<Ticket> {
+        OPEN,
+        URGENT;
+
+        @Override
+        public Class<Ticket> subject() {
+            return Ticket.class;
+        }
+    }
+}
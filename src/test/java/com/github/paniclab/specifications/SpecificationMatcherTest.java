@@ -0,0 +1,101 @@
+package com.github.paniclab.specifications;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+
+public class SpecificationMatcherTest {
+
+    @Test
+    public void match_evaluatesSharedOperandOncePerInstance() {
+        AtomicInteger heavyChecks = new AtomicInteger();
+        Specification<Parcel> heavy = Specification.of(Parcel.class, parcel -> {
+            heavyChecks.incrementAndGet();
+            return parcel.weight > 10;
+        }).withId(Rule.HEAVY);
+        Specification<Parcel> fragile = Specification.of(Parcel.class, parcel -> parcel.fragile);
+        Specification<Parcel> express = Specification.of(Parcel.class, parcel -> parcel.express);
+        Specification<Parcel> heavyFragile = ((Specification<Parcel>) heavy.and(fragile)).withId(Rule.HEAVY_FRAGILE);
+        Specification<Parcel> heavyOrExpress = ((Specification<Parcel>) heavy.or(express)).withId(Rule.HEAVY_OR_EXPRESS);
+
+        try(SpecificationMatcher<Parcel> matcher = SpecificationMatcher.forSubject(Parcel.class)) {
+            assertEquals(EnumSet.of(Rule.HEAVY, Rule.HEAVY_FRAGILE, Rule.HEAVY_OR_EXPRESS),
+                         matcher.match(new Parcel(20, true, false), Rule.class));
+            assertEquals(1, heavyChecks.get());
+
+            assertEquals(EnumSet.of(Rule.HEAVY_OR_EXPRESS), matcher.match(new Parcel(1, true, true), Rule.class));
+            assertEquals(2, heavyChecks.get());
+        } finally {
+            SpecificationProvider.unregisterForTesting(heavy);
+            SpecificationProvider.unregisterForTesting(heavyFragile);
+            SpecificationProvider.unregisterForTesting(heavyOrExpress);
+        }
+    }
+
+    @Test
+    public void matcher_followsRegistry() {
+        try(SpecificationMatcher<Parcel> matcher = SpecificationMatcher.forSubject(Parcel.class)) {
+            Parcel parcel = new Parcel(5, false, true);
+            assertTrue(matcher.matchingIds(parcel).isEmpty());
+
+            Specification<Parcel> express = Specification.of(Parcel.class, p -> p.express).withId(Rule.EXPRESS);
+            assertEquals(Arrays.<SpecId<?>>asList(Rule.EXPRESS), matcher.matchingIds(parcel));
+            assertTrue(matcher.match(parcel).get(0));
+
+            SpecificationProvider.unregisterForTesting(express);
+            assertTrue(matcher.matchingIds(parcel).isEmpty());
+            assertEquals(0, matcher.nodeCount());
+        }
+    }
+
+    @Test
+    public void matcher_sharesEqualSubtrees() {
+        Specification<Parcel> express = Specification.of(Parcel.class, p -> p.express).withId(Rule.EXPRESS);
+        Specification<Parcel> light = Specification.of(Parcel.class, p -> p.weight < 2).withId(Rule.LIGHT);
+        Specification<Parcel> first = ((Specification<Parcel>) express.and(light.not())).withId(Rule.FIRST);
+        Specification<Parcel> second = ((Specification<Parcel>) express.and(light.not())).withId(Rule.SECOND);
+        try(SpecificationMatcher<Parcel> matcher = SpecificationMatcher.forSubject(Parcel.class)) {
+            assertEquals(4, matcher.nodeCount());
+            assertEquals(EnumSet.of(Rule.EXPRESS, Rule.FIRST, Rule.SECOND),
+                         matcher.match(new Parcel(3, false, true), Rule.class));
+        } finally {
+            for(Specification<Parcel> spec : Arrays.asList(express, light, first, second)) {
+                SpecificationProvider.unregisterForTesting(spec);
+            }
+        }
+    }
+
+
+    private static final class Parcel {
+        private final int weight;
+        private final boolean fragile;
+        private final boolean express;
+
+        private Parcel(int weight, boolean fragile, boolean express) {
+            this.weight = weight;
+            this.fragile = fragile;
+            this.express = express;
+        }
+    }
+
+
+    private enum Rule implements SpecId<Parcel> {
+        HEAVY,
+        HEAVY_FRAGILE,
+        HEAVY_OR_EXPRESS,
+        EXPRESS,
+        LIGHT,
+        FIRST,
+        SECOND;
+
+        @Override
+        public Class<Parcel> subject() {
+            return Parcel.class;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.github.paniclab.specifications;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+
+public class SpecificationProviderTest {
+
+    @Test
+    public void byId_findsRegisteredSpecification() {
+        Specification<String> spec = Specification.of(String.class, String::isEmpty).withId(Rule.EMPTY);
+
+        assertSame(spec, SpecificationProvider.byId(Rule.EMPTY).get());
+        assertFalse(SpecificationProvider.byId(Rule.UNUSED).isPresent());
+    }
+
+    @Test
+    public void registry_isSplitBySubject() {
+        Specification<Integer> integers = Specification.as(Specification.of(Integer.class, value -> value > 0),
+                                                           new SubjectId<>(Integer.class, Rule.SHARED));
+        Specification<Long> longs = Specification.as(Specification.of(Long.class, value -> value > 0),
+                                                     new SubjectId<>(Long.class, Rule.SHARED));
+
+        assertSame(integers, SpecificationProvider.byId(new SubjectId<>(Integer.class, Rule.SHARED)).get());
+        assertSame(longs, SpecificationProvider.byId(new SubjectId<>(Long.class, Rule.SHARED)).get());
+        assertTrue(SpecificationProvider.allFor(Integer.class).contains(integers));
+        assertFalse(SpecificationProvider.allFor(Integer.class).contains((Object) longs));
+        assertNotEquals(new SubjectId<>(Integer.class, Rule.SHARED), new SubjectId<>(Long.class, Rule.SHARED));
+    }
+
+    @Test(expected = SecurityException.class)
+    public void register_rejectsDuplicateId() {
+        Specification.of(String.class, String::isEmpty).withId(Rule.DUPLICATE);
+        Specification.of(String.class, String::isEmpty).withId(Rule.DUPLICATE);
+    }
+
+    @Test
+    public void register_concurrently_acceptsExactlyOne() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for(int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        Specification.of(String.class, String::isEmpty).withId(Rule.CONTENDED);
+                        return true;
+                    } catch (SecurityException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int accepted = 0;
+            for(Future<Boolean> result : results) {
+                accepted += result.get() ? 1 : 0;
+            }
+            assertEquals(1, accepted);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void unregister_freesTheId() {
+        Specification<String> first = Specification.of(String.class, String::isEmpty).withId(Rule.REPLACED);
+
+        assertTrue(SpecificationProvider.unregisterForTesting(first));
+        assertFalse(SpecificationProvider.unregisterForTesting(first));
+        Specification<String> second = Specification.of(String.class, String::isEmpty).withId(Rule.REPLACED);
+
+        assertSame(second, SpecificationProvider.byId(Rule.REPLACED).get());
+    }
+
+    @Test
+    public void forEach_visitsRegisteredSpecifications() {
+        Specification<String> spec = Specification.of(String.class, String::isEmpty).withId(Rule.VISITED);
+        List<Specification<?>> visited = new ArrayList<>();
+
+        SpecificationProvider.forEach(visited::add);
+
+        assertTrue(visited.contains(spec));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void build_leavesTheBuilderReusable() {
+        Class<Specification<String>> specType = (Class<Specification<String>>) (Class<?>) Specification.class;
+        SpecificationBuilder<String, Specification<String>> builder = new SpecificationBuilder<>(String.class, specType);
+
+        Specification<String> empty = builder.withPredicate(String::isEmpty).build();
+        Specification<String> blank = builder.withPredicate(s -> s.trim().isEmpty()).build();
+
+        assertFalse(empty.isSatisfiedBy(" "));
+        assertTrue(blank.isSatisfiedBy(" "));
+    }
+
+
+
+    enum Rule implements SpecId<String> {
+        EMPTY,
+        UNUSED,
+        SHARED,
+        DUPLICATE,
+        CONTENDED,
+        VISITED,
+        REPLACED;
+
+        @Override
+        public Class<String> subject() {
+            return String.class;
+        }
+    }
+
+
+    static final class SubjectId<S> extends AbstractSpecId<S, Rule> {
+        SubjectId(Class<S> subject, Rule value) {
+            super(subject, value);
+        }
+    }
+}
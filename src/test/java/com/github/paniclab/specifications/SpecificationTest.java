@@ -1,8 +1,203 @@
 package com.github.paniclab.specifications;
 
+import com.github.paniclab.invariants.InvariantSet;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.github.paniclab.specifications.Specification.not;
 import static org.junit.Assert.*;
 
 
 public class SpecificationTest {
+    private final Specification<String> empty = Specification.of(String.class, String::isEmpty);
+    private final Specification<String> shortOne = Specification.of(String.class, s -> s.length() < 3);
+
+
+    @Test
+    public void and_or_not_keepBooleanSemantics() {
+        Specification<String> and = empty.and(shortOne);
+        Specification<String> or = empty.or(shortOne);
+        Specification<String> negated = empty.not();
+
+        assertTrue(and.isSatisfiedBy(""));
+        assertFalse(and.isSatisfiedBy("ab"));
+        assertTrue(or.isSatisfiedBy("ab"));
+        assertFalse(or.isSatisfiedBy("abc"));
+        assertTrue(negated.isSatisfiedBy("a"));
+        assertFalse(not(negated).isSatisfiedBy("a"));
+    }
+
+    @Test
+    public void streamingViews_evaluateLazily() {
+        List<String> seen = new ArrayList<>();
+        Specification<String> tracked = Specification.of(String.class, s -> seen.add(s) && s.length() < 3);
+        List<String> words = Arrays.asList("a", "abcd", "ab", "abc");
+
+        Iterator<String> matches = tracked.filter(words.iterator());
+        assertTrue(seen.isEmpty());
+        assertEquals("a", matches.next());
+        assertEquals(Collections.singletonList("a"), seen);
+        assertEquals("ab", matches.next());
+        assertFalse(matches.hasNext());
+
+        assertEquals(Arrays.asList("a", "ab"), tracked.filter(Stream.of("a", "abc", "ab")).collect(Collectors.toList()));
+        assertEquals(2, tracked.countSatisfying(words));
+    }
+
+    @Test
+    public void anyAndAll_stopAtDecisiveElement() {
+        List<String> seen = new ArrayList<>();
+        Specification<String> tracked = Specification.of(String.class, s -> seen.add(s) && s.isEmpty());
+
+        assertTrue(tracked.anySatisfying(Arrays.asList("a", "", "b")));
+        assertEquals(Arrays.asList("a", ""), seen);
+        seen.clear();
+        assertFalse(tracked.allSatisfying(Arrays.asList("", "a", "")));
+        assertEquals(Arrays.asList("", "a"), seen);
+        assertTrue(tracked.allSatisfying(Collections.emptyList()));
+    }
+
+    @Test
+    public void partitionAndIndices_keepEncounterOrder() {
+        List<String> words = new LinkedList<>(Arrays.asList("abc", "", "a", "abcd"));
+
+        Map<Boolean, List<String>> parts = shortOne.partition(words);
+        BitSet indices = shortOne.indicesSatisfying(words);
+
+        assertEquals(Arrays.asList("", "a"), parts.get(true));
+        assertEquals(Arrays.asList("abc", "abcd"), parts.get(false));
+        assertEquals(BitSet.valueOf(new long[] {0b0110}), indices);
+        assertEquals(indices, shortOne.indicesSatisfying(new ArrayList<>(words)));
+    }
+
+    @Test
+    public void compose_requiresAllSpecifications() {
+        Specification<String> composed = Specification.compose(shortOne, not(empty));
+
+        assertTrue(composed.isSatisfiedBy("ab"));
+        assertFalse(composed.isSatisfiedBy(""));
+        assertFalse(composed.isSatisfiedBy("abc"));
+    }
+
+    @Test
+    public void composition_keepsSpecificationType() {
+        FakeSpecification fake = new FakeSpecification(s -> s.startsWith("a"));
+        FakeSpecification composed = fake.and(shortOne);
+
+        assertEquals(FakeSpecification.class, composed.getClass());
+        assertTrue(composed.isSatisfiedBy("ab"));
+        assertFalse(composed.isSatisfiedBy("ba"));
+    }
+
+    @Test
+    public void compile_evaluatesAsInterpretedTree() {
+        Specification<String> startsWithA = Specification.of(String.class, s -> s.startsWith("a"));
+        Specification<String> interpreted = empty.or(shortOne.and(not(startsWithA))).or(Specification.never(String.class));
+        Specification<String> compiled = interpreted.compile();
+
+        for(String value : Arrays.asList("", "a", "b", "ab", "bc", "abc", "bcd")) {
+            assertEquals(value, interpreted.isSatisfiedBy(value), compiled.isSatisfiedBy(value));
+        }
+        assertEquals(interpreted.expression(), compiled.expression().plain());
+    }
+
+    @Test
+    public void selectSatisfying_filtersCollection() {
+        Set<String> result = shortOne.selectSatisfying(Arrays.asList("a", "abc", "ab"));
+
+        assertEquals(2, result.size());
+        assertTrue(result.containsAll(Arrays.asList("a", "ab")));
+    }
+
+    @Test
+    public void selectSatisfying_inParallel_keepsEncounterOrder() {
+        List<Integer> source = new ArrayList<>();
+        for(int i = 0; i < 100_000; i++) {
+            source.add(i);
+        }
+        Specification<Integer> even = Specification.of(Integer.class, value -> value % 2 == 0);
+        List<Integer> expected = new ArrayList<>(even.selectSatisfying(source, Specification.Selection.ORDERED));
+
+        ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Collection<Integer> forkJoined = even.selectSatisfying(source, Specification.Selection.ORDERED, forkJoinPool, 1000);
+            Collection<Integer> chunked = even.selectSatisfying(source, Specification.Selection.ORDERED, executor, 1000);
+
+            assertEquals(50_000, expected.size());
+            assertEquals(expected, forkJoined);
+            assertEquals(expected, chunked);
+        } finally {
+            forkJoinPool.shutdown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void selectSatisfying_identitySelection_keepsEqualInstances() {
+        String first = new String("a");
+        String second = new String("a");
+
+        Collection<String> hashed = shortOne.selectSatisfying(Arrays.asList(first, second), Specification.Selection.HASHED);
+        Collection<String> identity = shortOne.selectSatisfying(Arrays.asList(first, second), Specification.Selection.IDENTITY);
+
+        assertEquals(1, hashed.size());
+        assertEquals(2, identity.size());
+    }
+
+    @Test
+    public void equality_distinguishesWrappedCopies() {
+        Specification<String> original = empty.or(shortOne).withId(Rule.VARIANTS);
+        Specification<String> compiled = original.compile();
+        Specification<String> memoized = original.memoized();
+        Specification<String> adaptive = original.adaptive();
+
+        assertEquals(original, SpecificationProvider.byId(Rule.VARIANTS).get());
+        assertNotEquals(original, compiled);
+        assertNotEquals(original, memoized);
+        assertNotEquals(original, adaptive);
+        assertNotEquals(memoized, adaptive);
+        assertEquals(memoized, original.memoized());
+    }
+
+    @Test
+    public void invariants_areTheRulesOfTheSpecification() {
+        Specification<String> notEmpty = Specification.of(String.class, s -> !s.isEmpty()).withId(Rule.NOT_EMPTY);
+        Specification<String> shortText = Specification.of(String.class, s -> s.length() < 3).withId(Rule.SHORT);
+        Specification<String> both = notEmpty.and(shortText);
+
+        InvariantSet<String> invariants = both.invariants();
+
+        assertSame(invariants, both.invariants());
+        assertEquals(Arrays.asList("Rule.NOT_EMPTY", "Rule.SHORT"), invariants.names());
+        assertFalse(invariants.check("abcd"));
+        assertEquals(Collections.singletonList("Rule.SHORT"), invariants.checkAll("abcd").violations());
+    }
+
+
+    enum Rule implements SpecId<String> {
+        VARIANTS,
+        NOT_EMPTY,
+        SHORT;
 
-}
\ No newline at end of file
+        @Override
+        public Class<String> subject() {
+            return String.class;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.paniclab.specifications;
+
+import com.github.paniclab.invariants.InvariantCheckException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+
+public class ValidationResultTest {
+
+    @Test
+    public void validate_reportsEveryFailedRule() {
+        Specification<String> notEmpty = Specification.of(String.class, s -> !s.isEmpty()).withId(Rule.NOT_EMPTY);
+        Specification<String> shortText = Specification.of(String.class, s -> s.length() < 3).withId(Rule.SHORT);
+        Specification<String> lowerCase = Specification.of(String.class, s -> s.equals(s.toLowerCase()))
+                                                       .withId(Rule.LOWER_CASE);
+        Specification<String> all = notEmpty.and(shortText).and(lowerCase);
+
+        ValidationResult result = all.validate("ABCD");
+
+        assertFalse(result.isValid());
+        assertEquals(3, result.ruleCount());
+        assertEquals(2, result.failureCount());
+        assertEquals(Arrays.asList(Rule.SHORT, Rule.LOWER_CASE), result.failedIds());
+        assertTrue(result.hasFailed(Rule.SHORT));
+        assertFalse(result.hasFailed(Rule.NOT_EMPTY));
+        assertEquals(2, result.failedRules().cardinality());
+
+        assertTrue(all.validate("ab").isValid());
+    }
+
+    @Test
+    public void validate_singleRuleUsesTheIdOfTheSpecification() {
+        Specification<String> notEmpty = Specification.of(String.class, s -> !s.isEmpty()).withId(Rule.SINGLE);
+
+        ValidationResult result = notEmpty.validate("");
+
+        assertEquals(Collections.singletonList(Rule.SINGLE), result.failedIds());
+    }
+
+    @Test
+    public void validate_reusesTheResult() {
+        Specification<Integer> positive = Specification.of(Integer.class, i -> i > 0);
+        Specification<Integer> even = Specification.of(Integer.class, i -> i % 2 == 0);
+        Specification<Integer> both = positive.and(even);
+        ValidationResult result = new ValidationResult();
+
+        assertSame(result, both.validate(-3, result));
+        assertEquals(2, result.failureCount());
+        assertTrue(result.failedIds().isEmpty());
+
+        both.validate(4, result);
+        assertTrue(result.isValid());
+        assertEquals(Integer.valueOf(4), result.instance());
+    }
+
+    @Test
+    public void message_isBuiltOnlyWhenRead() {
+        AtomicInteger formatted = new AtomicInteger();
+        Object instance = new Object() {
+            @Override
+            public String toString() {
+                formatted.incrementAndGet();
+                return "instance";
+            }
+        };
+        Specification<Object> never = Specification.of(Object.class, o -> false);
+
+        ValidationResult result = never.validate(instance);
+        SpecificationException exception = new SpecificationException(instance, never);
+        assertEquals(0, formatted.get());
+
+        assertTrue(result.message().contains("instance"));
+        assertTrue(exception.getMessage().startsWith("Instance is not satisfy specification. Instance: instance"));
+        assertEquals(2, formatted.get());
+
+        SpecificationException thrown = null;
+        try {
+            never.validate(instance, result).throwIfInvalid();
+        } catch (SpecificationException e) {
+            thrown = e;
+        }
+        never.validate("reused", result);
+        assertEquals(2, formatted.get());
+        assertTrue(thrown.getMessage().contains("instance"));
+        assertEquals(3, formatted.get());
+    }
+
+    @Test
+    public void message_namesIdsNestedInFailedRules() {
+        Specification<String> notEmpty = Specification.of(String.class, s -> !s.isEmpty()).withId(Rule.NESTED_NOT_EMPTY);
+        Specification<String> shortText = Specification.of(String.class, s -> s.length() < 3).withId(Rule.NESTED_SHORT);
+        Specification<String> lowerCase = Specification.of(String.class, s -> s.equals(s.toLowerCase()))
+                                                       .withId(Rule.NESTED_LOWER_CASE);
+
+        ValidationResult result = notEmpty.and(shortText.or(lowerCase)).validate("ABCD");
+
+        assertEquals(1, result.failureCount());
+        assertTrue(result.failedIds().isEmpty());
+        assertTrue(result.message().contains("NESTED_SHORT"));
+        assertTrue(result.message().contains("NESTED_LOWER_CASE"));
+    }
+
+    @Test
+    public void throwIfInvalid_throwsStacklessException() {
+        Specification<String> notEmpty = Specification.of(String.class, s -> !s.isEmpty()).withId(Rule.THROWING);
+
+        try {
+            notEmpty.validate("").throwIfInvalid();
+            fail();
+        } catch (SpecificationException e) {
+            assertEquals(0, e.getStackTrace().length);
+            assertTrue(e.getMessage().contains("THROWING"));
+            assertEquals("", e.getInstance());
+        }
+
+        notEmpty.validate("a").throwIfInvalid();
+    }
+
+    @Test
+    public void stackless_skipsTheStackTrace() {
+        assertEquals(0, SpecificationException.stackless("a", null).getStackTrace().length);
+        assertEquals(0, InvariantCheckException.stackless("a", s -> true).getStackTrace().length);
+        assertTrue(new InvariantCheckException("a", s -> true).getMessage().startsWith("Invariant checking failed."));
+    }
+
+
+    private enum Rule implements SpecId<String> {
+        NOT_EMPTY,
+        SHORT,
+        LOWER_CASE,
+        SINGLE,
+        THROWING,
+        NESTED_NOT_EMPTY,
+        NESTED_SHORT,
+        NESTED_LOWER_CASE;
+
+        @Override
+        public Class<String> subject() {
+            return String.class;
+        }
+    }
+}
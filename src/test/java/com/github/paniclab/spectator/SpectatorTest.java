@@ -0,0 +1,150 @@
+package com.github.paniclab.spectator;
+
+import com.github.paniclab.invariants.InvariantState;
+import com.github.paniclab.specifications.Specification;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class SpectatorTest {
+    private final Specification<Order> largeOrder = Specification.of(Order.class, order -> order.total > 100);
+
+
+    @Test
+    public void satisfy_dispatchesByRuntimeClass() {
+        assertTrue(new Order(150).satisfy(largeOrder));
+        assertFalse(new Order(50).satisfy(largeOrder));
+        assertFalse(new Customer().satisfy(largeOrder));
+        assertEquals(SpectatorDispatch.MISS, SpectatorDispatch.of(Customer.class, Order.class));
+    }
+
+    @Test
+    public void satisfy_usesOverriddenUnwrap() {
+        assertTrue(new Shipment(new Order(500)).satisfy(largeOrder));
+        assertFalse(new Shipment(null).satisfy(largeOrder));
+        assertEquals(SpectatorDispatch.UNWRAP, SpectatorDispatch.of(Shipment.class, Order.class));
+    }
+
+    @Test
+    public void satisfy_prefersOverriddenUnwrapOverInstanceOfSubject() {
+        assertTrue(new Amendment(50, new Order(500)).satisfy(largeOrder));
+        assertFalse(new Amendment(500, new Order(50)).satisfy(largeOrder));
+        assertEquals(SpectatorDispatch.UNWRAP, SpectatorDispatch.of(Amendment.class, Order.class));
+    }
+
+    @Test
+    public void bulk_evaluatesHeterogeneousSpectators() {
+        List<Spectator> spectators = Arrays.asList(new Order(150), new Customer(), new Shipment(new Order(200)),
+                                                   new Order(10), new Customer(), new Order(101));
+
+        BitSet expected = new BitSet();
+        for(int i = 0; i < spectators.size(); i++) {
+            expected.set(i, spectators.get(i).satisfy(largeOrder));
+        }
+
+        assertEquals(expected, Spectators.satisfying(spectators, largeOrder));
+        assertEquals(expected, Spectators.satisfying(new LinkedList<>(spectators), largeOrder));
+        assertEquals(3, Spectators.count(spectators, largeOrder));
+        assertEquals(Arrays.asList(spectators.get(0), spectators.get(2), spectators.get(5)),
+                     Spectators.select(spectators, largeOrder));
+    }
+
+    @Test
+    public void trackingSpectator_rechecksOnlyRulesReadingChangedProperties() {
+        Specification<Account> rules = Specification.property(Account.class, "balance", (Account a) -> a.balance)
+                                                    .greaterThanOrEqualTo(0)
+                .and(Specification.property(Account.class, "owner", (Account a) -> a.owner).in("alice", "bob"))
+                .and(Specification.of(Account.class, a -> a.limit >= 0, "limit"));
+        Account account = new Account();
+        InvariantState<Account> state = rules.invariants().stateOf(account);
+        assertTrue(state.isValid());
+        assertEquals(3, state.lastChecked());
+
+        account.setBalance(-5);
+        assertFalse(account.recheck(state));
+        assertEquals(1, state.lastChecked());
+        assertEquals(1, state.violations().size());
+
+        assertFalse(account.recheck(state));
+        assertEquals(0, state.lastChecked());
+
+        account.setBalance(10);
+        account.setOwner("bob");
+        assertTrue(account.recheck(state));
+        assertEquals(2, state.lastChecked());
+    }
+
+
+    private static final class Account implements TrackingSpectator {
+        private final ChangeTracker changes = new ChangeTracker();
+        private int balance;
+        private String owner = "alice";
+        private int limit;
+
+        private void setBalance(int balance) {
+            this.balance = balance;
+            changes.changed("balance");
+        }
+
+        private void setOwner(String owner) {
+            this.owner = owner;
+            changes.changed("owner");
+        }
+
+        @Override
+        public ChangeTracker changes() {
+            return changes;
+        }
+    }
+
+
+    private static class Order implements Spectator {
+        private final int total;
+
+        private Order(int total) {
+            this.total = total;
+        }
+    }
+
+
+    private static final class Amendment extends Order {
+        private final Order amended;
+
+        private Amendment(int total, Order amended) {
+            super(total);
+            this.amended = amended;
+        }
+
+        @Override
+        public <U> U unwrap(Class<? extends U> clazz) {
+            return clazz.cast(amended);
+        }
+    }
+
+
+    private static final class Customer implements Spectator {
+    }
+
+
+    private static final class Shipment implements Spectator {
+        private final Order order;
+
+        private Shipment(Order order) {
+            this.order = order;
+        }
+
+        @Override
+        public <U> U unwrap(Class<? extends U> clazz) {
+            if(clazz == Order.class && order != null) {
+                return clazz.cast(order);
+            }
+            throw new UnsupportedOperationException("Unable to unwrap " + clazz);
+        }
+    }
+}